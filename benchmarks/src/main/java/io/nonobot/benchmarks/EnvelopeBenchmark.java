@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.benchmarks;
+
+import io.nonobot.core.impl.EnvelopeCodecs;
+import io.nonobot.core.impl.InboundMessage;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.impl.codecs.JsonObjectMessageCodec;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the inbound envelope with the former {@code JsonObject} envelope: building the envelope on the client,
+ * delivering it (a transform for the local delivery, an encode/decode for the clustered delivery) and unpacking it
+ * in the router.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvelopeBenchmark {
+
+  private static final String REPLY_ADDRESS = "bots.nono.replies.6f1c9b9e-2c5e-4d0e-a5e4-3d2c4b1c8a7f";
+  private static final String CHAT_ID = "C024BE91L";
+  private static final String CONTENT = "echo the quick brown fox jumps over the lazy dog";
+
+  private final JsonObjectMessageCodec jsonCodec = new JsonObjectMessageCodec();
+  private final EnvelopeCodecs.InboundCodec envelopeCodec = new EnvelopeCodecs.InboundCodec();
+  private long correlationId;
+
+  @Benchmark
+  public void jsonLocal(Blackhole bh) {
+    JsonObject sent = json();
+    unpack(jsonCodec.transform(sent), bh);
+  }
+
+  @Benchmark
+  public void envelopeLocal(Blackhole bh) {
+    InboundMessage sent = envelope();
+    unpack(envelopeCodec.transform(sent), bh);
+  }
+
+  @Benchmark
+  public void jsonWire(Blackhole bh) {
+    Buffer buffer = Buffer.buffer();
+    jsonCodec.encodeToWire(buffer, json());
+    unpack(jsonCodec.decodeFromWire(0, buffer), bh);
+  }
+
+  @Benchmark
+  public void envelopeWire(Blackhole bh) {
+    Buffer buffer = Buffer.buffer();
+    envelopeCodec.encodeToWire(buffer, envelope());
+    unpack(envelopeCodec.decodeFromWire(0, buffer), bh);
+  }
+
+  private JsonObject json() {
+    return new JsonObject().
+        put("replyAddress", REPLY_ADDRESS).
+        put("correlationId", ++correlationId).
+        put("chatId", CHAT_ID).
+        put("respond", true).
+        put("content", CONTENT);
+  }
+
+  private InboundMessage envelope() {
+    return new InboundMessage(REPLY_ADDRESS, ++correlationId, CHAT_ID, true, CONTENT);
+  }
+
+  private static void unpack(JsonObject json, Blackhole bh) {
+    bh.consume(json.getBoolean("respond"));
+    bh.consume(json.getString("content"));
+    bh.consume(json.getString("replyAddress"));
+    bh.consume(json.getString("chatId"));
+    bh.consume(json.getLong("correlationId", 0L));
+  }
+
+  private static void unpack(InboundMessage msg, Blackhole bh) {
+    bh.consume(msg.respond);
+    bh.consume(msg.content);
+    bh.consume(msg.replyAddress);
+    bh.consume(msg.chatId);
+    bh.consume(msg.correlationId);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.benchmarks;
+
+import io.nonobot.core.Bot;
+import io.nonobot.core.BotOptions;
+import io.nonobot.core.client.BotClient;
+import io.nonobot.core.client.ClientOptions;
+import io.nonobot.core.client.ReceiveOptions;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the full round trip of a message through {@code BotClient#receiveMessage}: alias detection, dispatch
+ * to the router of the same Vert.x instance, handler invocation and reply delivery back to the caller, for a
+ * message handled by the echo handler and for a message no handler matches. The sample time mode reports the
+ * latency percentiles.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoundTripBenchmark {
+
+  private Vertx vertx;
+  private Bot bot;
+  private BotClient client;
+  private final ReceiveOptions options = new ReceiveOptions().setChatId("benchmark");
+
+  @Setup
+  public void setup() throws Exception {
+    vertx = Vertx.vertx();
+    CompletableFuture<Void> ready = new CompletableFuture<>();
+    bot = Bot.createShared(vertx, new BotOptions().setName("benchmark"), ar -> complete(ready, ar));
+    ready.get(10, TimeUnit.SECONDS);
+    bot.chatRouter().respond("^echo\\s+(.+)", msg -> msg.reply(msg.matchedGroup(1)));
+    CompletableFuture<BotClient> connected = new CompletableFuture<>();
+    BotClient.client(vertx, new ClientOptions().setName("benchmark"), ar -> complete(connected, ar));
+    client = connected.get(10, TimeUnit.SECONDS);
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.close();
+    bot.close();
+    vertx.close();
+  }
+
+  @Benchmark
+  public String reply() throws Exception {
+    CompletableFuture<String> reply = new CompletableFuture<>();
+    client.receiveMessage(options, "benchmark echo the quick brown fox", ar -> complete(reply, ar));
+    return reply.get(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public Throwable noMatch() throws Exception {
+    CompletableFuture<Throwable> failure = new CompletableFuture<>();
+    client.receiveMessage(options, "benchmark what a lovely day", ar -> failure.complete(ar.cause()));
+    return failure.get(10, TimeUnit.SECONDS);
+  }
+
+  private static <T> void complete(CompletableFuture<T> future, AsyncResult<T> ar) {
+    if (ar.succeeded()) {
+      future.complete(ar.result());
+    } else {
+      future.completeExceptionally(ar.cause());
+    }
+  }
+}
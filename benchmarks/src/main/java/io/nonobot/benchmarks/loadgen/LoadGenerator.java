@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.benchmarks.loadgen;
+
+import io.nonobot.core.BotVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Runs a {@link BotVerticle} driven by the load generator adapter in this JVM, the arguments are the load generator
+ * options as {@code name=value} pairs, e.g {@code rate=1000 chats=100 users=500 duration=60}. The JVM exits once
+ * the report is printed.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class LoadGenerator {
+
+  public static void main(String[] args) {
+    JsonObject config = new JsonObject().put("loadgen.rate", "" + LoadGeneratorOptions.DEFAULT_RATE);
+    for (String arg : args) {
+      int index = arg.indexOf('=');
+      if (index < 0) {
+        System.err.println("Invalid argument " + arg + ", expected name=value");
+        System.exit(1);
+      }
+      config.put("loadgen." + arg.substring(0, index), arg.substring(index + 1));
+    }
+    Vertx vertx = Vertx.vertx();
+    vertx.eventBus().consumer(LoadGeneratorAdapter.REPORT_ADDRESS, msg -> vertx.close());
+    vertx.deployVerticle(new BotVerticle(), new DeploymentOptions().setConfig(config), ar -> {
+      if (ar.failed()) {
+        ar.cause().printStackTrace();
+        vertx.close();
+      }
+    });
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.benchmarks.loadgen;
+
+import io.nonobot.core.adapter.ConnectionRequest;
+import io.nonobot.core.client.BotClient;
+import io.nonobot.core.client.BusyException;
+import io.nonobot.core.client.NotHandledException;
+import io.nonobot.core.client.ReceiveOptions;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SynchronizedHistogram;
+
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An adapter simulating chat traffic: messages of random users in random chats are sent at a fixed rate, a
+ * configured ratio of them are addressed to the bot (as echo commands), the other are ambient.<p>
+ *
+ * The reply latency is recorded in two histograms: the corrected one measures each reply from the time the message
+ * was meant to be sent by the schedule, the uncorrected one from the time it was actually sent. When the bot
+ * stalls the sender falls behind and sends the late messages in a burst, only the corrected histogram accounts for
+ * the time these messages waited (coordinated omission).<p>
+ *
+ * Once all the messages are answered or timed out, the report is printed and published as a json object on
+ * {@link #REPORT_ADDRESS}.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class LoadGeneratorAdapter implements Handler<ConnectionRequest> {
+
+  public static final String REPORT_ADDRESS = "nonobot.loadgen.report";
+
+  private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(10);
+
+  private final LoadGeneratorOptions options;
+  private final PrintStream out;
+  private final Random random = new Random();
+  private final Histogram corrected = new SynchronizedHistogram(HIGHEST_LATENCY, 3);
+  private final Histogram uncorrected = new SynchronizedHistogram(HIGHEST_LATENCY, 3);
+  private long total;
+  private long interval;
+  private long start;
+  private long sent;
+  private long done;
+  private long replied;
+  private long notHandled;
+  private long busy;
+  private long failed;
+  private long end;
+
+  public LoadGeneratorAdapter(LoadGeneratorOptions options) {
+    this(options, System.out);
+  }
+
+  public LoadGeneratorAdapter(LoadGeneratorOptions options, PrintStream out) {
+    this.options = options;
+    this.out = out;
+  }
+
+  @Override
+  public void handle(ConnectionRequest request) {
+    BotClient client = request.client();
+    Vertx vertx = client.vertx();
+    request.complete();
+    total = options.getRate() * options.getDuration();
+    interval = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+    vertx.setTimer(Math.max(1, options.getDelay()), v1 -> {
+      start = System.nanoTime();
+      vertx.setPeriodic(1, id -> {
+        // Send the messages whose scheduled time is passed, a late sender catches up with a burst
+        long now = System.nanoTime();
+        while (sent < total && start + sent * interval <= now) {
+          send(client, start + sent * interval);
+          sent++;
+        }
+        if (sent == total) {
+          vertx.cancelTimer(id);
+        }
+      });
+    });
+  }
+
+  private void send(BotClient client, long scheduled) {
+    int chat = random.nextInt(options.getChats());
+    int user = random.nextInt(options.getUsers());
+    String message;
+    if (random.nextDouble() < options.getDirectRatio()) {
+      message = client.name() + " echo hello from user" + user;
+    } else {
+      message = "user" + user + " says hello to chat " + chat;
+    }
+    ReceiveOptions receiveOptions = new ReceiveOptions().setChatId("loadgen-" + chat).setTimeout(options.getTimeout());
+    long actual = System.nanoTime();
+    client.receiveMessage(receiveOptions, message, ar -> received(client, ar, scheduled, actual));
+  }
+
+  private synchronized void received(BotClient client, AsyncResult<String> ar, long scheduled, long actual) {
+    long now = System.nanoTime();
+    corrected.recordValue(Math.min(HIGHEST_LATENCY, TimeUnit.NANOSECONDS.toMicros(now - scheduled)));
+    uncorrected.recordValue(Math.min(HIGHEST_LATENCY, TimeUnit.NANOSECONDS.toMicros(now - actual)));
+    if (ar.succeeded()) {
+      replied++;
+    } else if (ar.cause() instanceof NotHandledException) {
+      notHandled++;
+    } else if (ar.cause() instanceof BusyException) {
+      busy++;
+    } else {
+      failed++;
+    }
+    if (++done == total) {
+      end = now;
+      JsonObject report = report();
+      print(report);
+      client.vertx().eventBus().publish(REPORT_ADDRESS, report);
+    }
+  }
+
+  private JsonObject report() {
+    double elapsed = (end - start) / (double) TimeUnit.SECONDS.toNanos(1);
+    return new JsonObject().
+        put("sent", total).
+        put("replied", replied).
+        put("notHandled", notHandled).
+        put("busy", busy).
+        put("failed", failed).
+        put("elapsed", elapsed).
+        put("throughput", total / elapsed).
+        put("corrected", percentiles(corrected)).
+        put("uncorrected", percentiles(uncorrected));
+  }
+
+  static JsonObject percentiles(Histogram histogram) {
+    return new JsonObject().
+        put("p50", histogram.getValueAtPercentile(50) / 1000d).
+        put("p90", histogram.getValueAtPercentile(90) / 1000d).
+        put("p99", histogram.getValueAtPercentile(99) / 1000d).
+        put("p999", histogram.getValueAtPercentile(99.9) / 1000d).
+        put("p9999", histogram.getValueAtPercentile(99.99) / 1000d).
+        put("max", histogram.getMaxValue() / 1000d);
+  }
+
+  private void print(JsonObject report) {
+    out.printf("%nLoad generator report: %d chats, %d users, %d msg/s for %d s, %.0f%% direct%n",
+        options.getChats(), options.getUsers(), options.getRate(), options.getDuration(), options.getDirectRatio() * 100);
+    out.printf("  sent %d, replied %d, not handled %d, busy %d, failed %d%n",
+        total, replied, notHandled, busy, failed);
+    out.printf("  elapsed %.2f s, throughput %.1f msg/s%n", report.getDouble("elapsed"), report.getDouble("throughput"));
+    out.printf("  %-12s %12s %12s%n", "latency (ms)", "corrected", "uncorrected");
+    JsonObject c = report.getJsonObject("corrected");
+    JsonObject u = report.getJsonObject("uncorrected");
+    for (String percentile : c.fieldNames()) {
+      out.printf("  %-12s %12.3f %12.3f%n", percentile, c.getDouble(percentile), u.getDouble(percentile));
+    }
+    out.flush();
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.benchmarks.loadgen;
+
+import io.nonobot.core.Config;
+import io.nonobot.core.adapter.BotAdapter;
+import io.nonobot.core.spi.BotAdapterFactory;
+import io.vertx.core.Vertx;
+
+/**
+ * Creates the load generator adapter when the {@code loadgen.rate} property is configured.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class LoadGeneratorAdapterFactory implements BotAdapterFactory {
+
+  @Override
+  public BotAdapter create(Vertx vertx, Config config) {
+    LoadGeneratorOptions options = LoadGeneratorOptions.of(config);
+    if (options == null) {
+      return null;
+    }
+    return BotAdapter.create(vertx).requestHandler(new LoadGeneratorAdapter(options));
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.benchmarks.loadgen;
+
+import io.nonobot.core.Config;
+
+/**
+ * The load generator options, read from the {@code loadgen.*} bot config properties.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class LoadGeneratorOptions {
+
+  public static final int DEFAULT_RATE = 100;
+  public static final int DEFAULT_CHATS = 10;
+  public static final int DEFAULT_USERS = 100;
+  public static final double DEFAULT_DIRECT_RATIO = 0.5;
+  public static final long DEFAULT_DURATION = 30;
+  public static final long DEFAULT_DELAY = 1000;
+  public static final long DEFAULT_TIMEOUT = 10000;
+
+  private int rate = DEFAULT_RATE;
+  private int chats = DEFAULT_CHATS;
+  private int users = DEFAULT_USERS;
+  private double directRatio = DEFAULT_DIRECT_RATIO;
+  private long duration = DEFAULT_DURATION;
+  private long delay = DEFAULT_DELAY;
+  private long timeout = DEFAULT_TIMEOUT;
+
+  public LoadGeneratorOptions() {
+  }
+
+  /**
+   * @return the options configured by the {@code config} or {@code null} when {@code loadgen.rate} is not set
+   */
+  public static LoadGeneratorOptions of(Config config) {
+    String rate = config.getProperty("loadgen.rate");
+    if (rate == null) {
+      return null;
+    }
+    LoadGeneratorOptions options = new LoadGeneratorOptions().setRate(Integer.parseInt(rate));
+    String value;
+    if ((value = config.getProperty("loadgen.chats")) != null) {
+      options.setChats(Integer.parseInt(value));
+    }
+    if ((value = config.getProperty("loadgen.users")) != null) {
+      options.setUsers(Integer.parseInt(value));
+    }
+    if ((value = config.getProperty("loadgen.directRatio")) != null) {
+      options.setDirectRatio(Double.parseDouble(value));
+    }
+    if ((value = config.getProperty("loadgen.duration")) != null) {
+      options.setDuration(Long.parseLong(value));
+    }
+    if ((value = config.getProperty("loadgen.delay")) != null) {
+      options.setDelay(Long.parseLong(value));
+    }
+    if ((value = config.getProperty("loadgen.timeout")) != null) {
+      options.setTimeout(Long.parseLong(value));
+    }
+    return options;
+  }
+
+  public int getRate() {
+    return rate;
+  }
+
+  /**
+   * @param rate the number of messages sent per second
+   * @return this object so it can be used fluently
+   */
+  public LoadGeneratorOptions setRate(int rate) {
+    if (rate < 1) {
+      throw new IllegalArgumentException("Invalid rate " + rate);
+    }
+    this.rate = rate;
+    return this;
+  }
+
+  public int getChats() {
+    return chats;
+  }
+
+  /**
+   * @param chats the number of simulated chats
+   * @return this object so it can be used fluently
+   */
+  public LoadGeneratorOptions setChats(int chats) {
+    if (chats < 1) {
+      throw new IllegalArgumentException("Invalid chats " + chats);
+    }
+    this.chats = chats;
+    return this;
+  }
+
+  public int getUsers() {
+    return users;
+  }
+
+  /**
+   * @param users the number of simulated users
+   * @return this object so it can be used fluently
+   */
+  public LoadGeneratorOptions setUsers(int users) {
+    if (users < 1) {
+      throw new IllegalArgumentException("Invalid users " + users);
+    }
+    this.users = users;
+    return this;
+  }
+
+  public double getDirectRatio() {
+    return directRatio;
+  }
+
+  /**
+   * @param directRatio the ratio of messages addressed to the bot, the other messages are ambient
+   * @return this object so it can be used fluently
+   */
+  public LoadGeneratorOptions setDirectRatio(double directRatio) {
+    if (directRatio < 0 || directRatio > 1) {
+      throw new IllegalArgumentException("Invalid direct ratio " + directRatio);
+    }
+    this.directRatio = directRatio;
+    return this;
+  }
+
+  public long getDuration() {
+    return duration;
+  }
+
+  /**
+   * @param duration the duration of the run in seconds
+   * @return this object so it can be used fluently
+   */
+  public LoadGeneratorOptions setDuration(long duration) {
+    if (duration < 1) {
+      throw new IllegalArgumentException("Invalid duration " + duration);
+    }
+    this.duration = duration;
+    return this;
+  }
+
+  public long getDelay() {
+    return delay;
+  }
+
+  /**
+   * @param delay the time to wait in milliseconds after the connection before sending, so the handlers are deployed
+   * @return this object so it can be used fluently
+   */
+  public LoadGeneratorOptions setDelay(long delay) {
+    this.delay = delay;
+    return this;
+  }
+
+  public long getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * @param timeout the reply timeout of each message in milliseconds
+   * @return this object so it can be used fluently
+   */
+  public LoadGeneratorOptions setTimeout(long timeout) {
+    this.timeout = timeout;
+    return this;
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.benchmarks.loadgen;
+
+import io.nonobot.core.Bot;
+import io.nonobot.core.adapter.ConnectionRequest;
+import io.nonobot.core.chat.ChatHandler;
+import io.nonobot.core.chat.impl.ChatRouterImpl;
+import io.nonobot.core.client.BotClient;
+import io.nonobot.core.client.BusyException;
+import io.nonobot.core.client.NotHandledException;
+import io.nonobot.core.client.ReceiveOptions;
+import io.nonobot.core.journal.EntryType;
+import io.nonobot.core.journal.Journal;
+import io.nonobot.core.journal.JournalEntry;
+import io.nonobot.core.journal.JournalReader;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SynchronizedHistogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An adapter replaying the inbound messages recorded in a journal: each message is received in its recorded chat,
+ * either at its recorded time relative to the first message divided by the speed factor or as fast as the
+ * {@code maxInFlight} window allows.<p>
+ *
+ * The reply latency is recorded from the scheduled time of each message like the {@link LoadGeneratorAdapter}. The
+ * report also contains the latency summary of each handler of the bot router, keyed by handler kind and pattern.
+ * When a baseline report is configured, the report prints the deltas of the throughput and of the handler
+ * latencies against the baseline, so a candidate build can be compared with the previous one on the same traffic.<p>
+ *
+ * The journal is opened, read by batches and closed on a worker so the replay never blocks the event loop on the
+ * file system.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class ReplayAdapter implements Handler<ConnectionRequest> {
+
+  public static final String REPORT_ADDRESS = "nonobot.replay.report";
+
+  private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(10);
+  private static final int BATCH_SIZE = 1024;
+
+  private final ReplayOptions options;
+  private final PrintStream out;
+  private final Histogram latency = new SynchronizedHistogram(HIGHEST_LATENCY, 3);
+  private Journal journal;
+  private JournalReader reader;
+  private long to;
+  private final ArrayDeque<JournalEntry> pending = new ArrayDeque<>();
+  private boolean reading;
+  private boolean drained;
+  private long firstTimestamp;
+  private long start;
+  private long sent;
+  private long done;
+  private int inFlight;
+  private long replied;
+  private long notHandled;
+  private long busy;
+  private long failed;
+  private boolean exhausted;
+
+  public ReplayAdapter(ReplayOptions options) {
+    this(options, System.out);
+  }
+
+  public ReplayAdapter(ReplayOptions options, PrintStream out) {
+    this.options = options;
+    this.out = out;
+  }
+
+  @Override
+  public void handle(ConnectionRequest request) {
+    BotClient client = request.client();
+    Vertx vertx = client.vertx();
+    request.complete();
+    vertx.setTimer(Math.max(1, options.getDelay()), v1 -> {
+      reading = true;
+      vertx.<List<JournalEntry>>executeBlocking(fut -> {
+        // The capture is only read, the replay must not change it
+        journal = Journal.openReadOnly(options.getJournal());
+        long from = options.getFrom() > 0 ? journal.positionOf(options.getFrom()) : journal.firstPosition();
+        to = options.getTo() > 0 ? journal.positionOf(options.getTo()) : journal.position();
+        reader = journal.reader(from);
+        fut.complete(read());
+      }, ar -> {
+        fetched(ar);
+        synchronized (this) {
+          if (pending.isEmpty()) {
+            finish(client);
+            return;
+          }
+          firstTimestamp = pending.peek().timestamp();
+          start = System.nanoTime();
+        }
+        vertx.setPeriodic(1, id -> {
+          if (pump(client)) {
+            vertx.cancelTimer(id);
+          }
+        });
+      });
+    });
+  }
+
+  /**
+   * Read the next batch of inbound entries of the replayed range, on a worker.
+   */
+  private List<JournalEntry> read() {
+    List<JournalEntry> entries = new ArrayList<>(BATCH_SIZE);
+    JournalEntry entry;
+    while (entries.size() < BATCH_SIZE && (entry = reader.next()) != null && entry.position() < to) {
+      if (entry.type() == EntryType.INBOUND) {
+        entries.add(entry);
+      }
+    }
+    return entries;
+  }
+
+  private synchronized void fetched(AsyncResult<List<JournalEntry>> ar) {
+    reading = false;
+    if (ar.succeeded()) {
+      pending.addAll(ar.result());
+      drained = ar.result().size() < BATCH_SIZE;
+    } else {
+      out.printf("Could not read %s: %s%n", options.getJournal(), ar.cause());
+      drained = true;
+    }
+  }
+
+  /**
+   * Read the next batch ahead when the pending entries run low.
+   */
+  private void prefetch(Vertx vertx) {
+    if (!reading && !drained && pending.size() < BATCH_SIZE / 2) {
+      reading = true;
+      vertx.<List<JournalEntry>>executeBlocking(fut -> fut.complete(read()), this::fetched);
+    }
+  }
+
+  /**
+   * Send the messages that are due.
+   *
+   * @return true when all the messages are sent
+   */
+  private synchronized boolean pump(BotClient client) {
+    long now = System.nanoTime();
+    JournalEntry next;
+    while (inFlight < options.getMaxInFlight() && (next = pending.peek()) != null) {
+      long scheduled = now;
+      if (options.getSpeed() > 0) {
+        scheduled = start + (long) (TimeUnit.MILLISECONDS.toNanos(next.timestamp() - firstTimestamp) / options.getSpeed());
+        if (scheduled > now) {
+          break;
+        }
+      }
+      pending.poll();
+      send(client, next, scheduled);
+    }
+    prefetch(client.vertx());
+    if (drained && !reading && pending.isEmpty()) {
+      exhausted = true;
+      if (inFlight == 0) {
+        finish(client);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private void send(BotClient client, JournalEntry entry, long scheduled) {
+    String message = entry.respond() ? client.name() + " " + entry.content() : entry.content();
+    ReceiveOptions receiveOptions = new ReceiveOptions().setChatId(entry.chatId()).setTimeout(options.getTimeout());
+    sent++;
+    inFlight++;
+    client.receiveMessage(receiveOptions, message, ar -> received(client, ar, scheduled));
+  }
+
+  private synchronized void received(BotClient client, AsyncResult<String> ar, long scheduled) {
+    latency.recordValue(Math.min(HIGHEST_LATENCY, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled)));
+    inFlight--;
+    done++;
+    if (ar.succeeded()) {
+      replied++;
+    } else if (ar.cause() instanceof NotHandledException) {
+      notHandled++;
+    } else if (ar.cause() instanceof BusyException) {
+      busy++;
+    } else {
+      failed++;
+    }
+    if (exhausted && inFlight == 0) {
+      finish(client);
+    }
+  }
+
+  private void finish(BotClient client) {
+    double elapsed = sent > 0 ? (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1) : 0;
+    JsonObject report = new JsonObject().
+        put("sent", sent).
+        put("replied", replied).
+        put("notHandled", notHandled).
+        put("busy", busy).
+        put("failed", failed).
+        put("elapsed", elapsed).
+        put("throughput", elapsed > 0 ? sent / elapsed : 0d).
+        put("latency", LoadGeneratorAdapter.percentiles(latency)).
+        put("handlers", handlers(client));
+    client.vertx().<JsonObject>executeBlocking(fut -> {
+      if (reader != null) {
+        reader.close();
+      }
+      if (journal != null) {
+        journal.close();
+      }
+      JsonObject baseline = null;
+      try {
+        if (options.getReport() != null) {
+          Files.write(Paths.get(options.getReport()), report.encodePrettily().getBytes(StandardCharsets.UTF_8));
+        }
+        if (options.getBaseline() != null) {
+          baseline = new JsonObject(new String(Files.readAllBytes(Paths.get(options.getBaseline())), StandardCharsets.UTF_8));
+        }
+      } catch (IOException e) {
+        out.printf("Could not write the report or read the baseline: %s%n", e);
+      }
+      fut.complete(baseline);
+    }, ar -> {
+      print(report, ar.result());
+      client.vertx().eventBus().publish(REPORT_ADDRESS, report);
+    });
+  }
+
+  /**
+   * @return the metrics of the handlers of the bot router, keyed by kind and pattern: the handlers sharing a kind
+   *         and a pattern are suffixed by their occurrence so the keys are the same from one run to another
+   */
+  private static JsonObject handlers(BotClient client) {
+    JsonObject handlers = new JsonObject();
+    Map<String, Integer> occurrences = new HashMap<>();
+    ChatRouterImpl router = (ChatRouterImpl) Bot.getShared(client.vertx(), client.name()).chatRouter();
+    for (ChatHandler handler : router.handlers()) {
+      JsonObject metrics = router.handlerMetrics(handler);
+      String key = metrics.getString("kind") + " " + metrics.getString("pattern");
+      int occurrence = occurrences.merge(key, 1, Integer::sum);
+      handlers.put(occurrence > 1 ? key + " #" + occurrence : key, new JsonObject().
+          put("matches", metrics.getLong("matches")).
+          put("failed", metrics.getLong("failed")).
+          put("rejected", metrics.getLong("rejected")).
+          put("invocationLatency", metrics.getJsonObject("invocationLatency")).
+          put("replyLatency", metrics.getJsonObject("replyLatency")));
+    }
+    return handlers;
+  }
+
+  private void print(JsonObject report, JsonObject baseline) {
+    out.printf("%nReplay report: %s at %s%n", options.getJournal(), options.getSpeed() > 0 ? options.getSpeed() + "x" : "full speed");
+    out.printf("  sent %d, replied %d, not handled %d, busy %d, failed %d%n",
+        report.getLong("sent"), report.getLong("replied"), report.getLong("notHandled"), report.getLong("busy"), report.getLong("failed"));
+    out.printf("  elapsed %.2f s, throughput %.1f msg/s%s%n", report.getDouble("elapsed"), report.getDouble("throughput"),
+        baseline != null ? delta(report.getDouble("throughput"), baseline.getDouble("throughput")) : "");
+    JsonObject latency = report.getJsonObject("latency");
+    JsonObject baselineLatency = baseline != null ? baseline.getJsonObject("latency") : null;
+    for (String percentile : latency.fieldNames()) {
+      out.printf("  %-6s %10.3f ms%s%n", percentile, latency.getDouble(percentile),
+          baselineLatency != null ? delta(latency.getDouble(percentile), baselineLatency.getDouble(percentile)) : "");
+    }
+    JsonObject handlers = report.getJsonObject("handlers");
+    JsonObject baselineHandlers = baseline != null ? baseline.getJsonObject("handlers") : new JsonObject();
+    // The handler latencies are estimated from the router histogram buckets
+    out.printf("  %-40s %8s %10s %10s %10s%n", "handler reply latency (ms)", "matches", "mean", "p50", "p99");
+    for (String name : handlers.fieldNames()) {
+      JsonObject handler = handlers.getJsonObject(name);
+      JsonObject previous = baselineHandlers.getJsonObject(name);
+      if (handler.getLong("matches") == 0 && (previous == null || previous.getLong("matches") == 0)) {
+        continue;
+      }
+      JsonObject reply = handler.getJsonObject("replyLatency");
+      out.printf("  %-40s %8d %10.3f %10.3f %10.3f%n", name, handler.getLong("matches"),
+          reply.getDouble("mean"), reply.getDouble("p50"), reply.getDouble("p99"));
+      if (previous != null) {
+        JsonObject previousReply = previous.getJsonObject("replyLatency");
+        out.printf("  %-40s %8s %10s %10s %10s%n", "  vs baseline", "",
+            delta(reply.getDouble("mean"), previousReply.getDouble("mean")),
+            delta(reply.getDouble("p50"), previousReply.getDouble("p50")),
+            delta(reply.getDouble("p99"), previousReply.getDouble("p99")));
+      }
+    }
+    if (baseline != null) {
+      for (String name : baselineHandlers.fieldNames()) {
+        if (!handlers.containsKey(name)) {
+          out.printf("  %-40s only in the baseline%n", name);
+        }
+      }
+    }
+    out.flush();
+  }
+
+  private static String delta(double value, double previous) {
+    if (previous == 0) {
+      return " (n/a)";
+    }
+    return String.format(" (%+.1f%%)", (value - previous) * 100 / previous);
+  }
+}
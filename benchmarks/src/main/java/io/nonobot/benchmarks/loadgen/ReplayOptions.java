@@ -0,0 +1,204 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.benchmarks.loadgen;
+
+import io.nonobot.core.Config;
+
+/**
+ * The replay options, read from the {@code replay.*} bot config properties.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class ReplayOptions {
+
+  public static final double DEFAULT_SPEED = 1;
+  public static final int DEFAULT_MAX_IN_FLIGHT = 1000;
+  public static final long DEFAULT_DELAY = 1000;
+  public static final long DEFAULT_TIMEOUT = 10000;
+
+  private String journal;
+  private double speed = DEFAULT_SPEED;
+  private long from;
+  private long to;
+  private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+  private long delay = DEFAULT_DELAY;
+  private long timeout = DEFAULT_TIMEOUT;
+  private String report;
+  private String baseline;
+
+  public ReplayOptions() {
+  }
+
+  /**
+   * @return the options configured by the {@code config} or {@code null} when {@code replay.journal} is not set
+   */
+  public static ReplayOptions of(Config config) {
+    String journal = config.getProperty("replay.journal");
+    if (journal == null) {
+      return null;
+    }
+    ReplayOptions options = new ReplayOptions().setJournal(journal);
+    String value;
+    if ((value = config.getProperty("replay.speed")) != null) {
+      options.setSpeed(Double.parseDouble(value));
+    }
+    if ((value = config.getProperty("replay.from")) != null) {
+      options.setFrom(Long.parseLong(value));
+    }
+    if ((value = config.getProperty("replay.to")) != null) {
+      options.setTo(Long.parseLong(value));
+    }
+    if ((value = config.getProperty("replay.maxInFlight")) != null) {
+      options.setMaxInFlight(Integer.parseInt(value));
+    }
+    if ((value = config.getProperty("replay.delay")) != null) {
+      options.setDelay(Long.parseLong(value));
+    }
+    if ((value = config.getProperty("replay.timeout")) != null) {
+      options.setTimeout(Long.parseLong(value));
+    }
+    options.setReport(config.getProperty("replay.report"));
+    options.setBaseline(config.getProperty("replay.baseline"));
+    return options;
+  }
+
+  public String getJournal() {
+    return journal;
+  }
+
+  /**
+   * @param journal the directory of the journal to replay, it must not be used by a running bot
+   * @return this object so it can be used fluently
+   */
+  public ReplayOptions setJournal(String journal) {
+    this.journal = journal;
+    return this;
+  }
+
+  public double getSpeed() {
+    return speed;
+  }
+
+  /**
+   * Set the replay speed: the recorded inter-arrival times are divided by the speed, a zero speed replays the
+   * messages as fast as possible.
+   *
+   * @param speed the speed factor
+   * @return this object so it can be used fluently
+   */
+  public ReplayOptions setSpeed(double speed) {
+    if (speed < 0) {
+      throw new IllegalArgumentException("Invalid speed " + speed);
+    }
+    this.speed = speed;
+    return this;
+  }
+
+  public long getFrom() {
+    return from;
+  }
+
+  /**
+   * @param from the timestamp in milliseconds of the first replayed message, {@code 0} for the start of the journal
+   * @return this object so it can be used fluently
+   */
+  public ReplayOptions setFrom(long from) {
+    this.from = from;
+    return this;
+  }
+
+  public long getTo() {
+    return to;
+  }
+
+  /**
+   * @param to the timestamp in milliseconds where the replay stops, {@code 0} for the end of the journal
+   * @return this object so it can be used fluently
+   */
+  public ReplayOptions setTo(long to) {
+    this.to = to;
+    return this;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  /**
+   * @param maxInFlight the maximum number of messages waiting for a reply, it paces the replay as fast as possible
+   * @return this object so it can be used fluently
+   */
+  public ReplayOptions setMaxInFlight(int maxInFlight) {
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("Invalid max in flight " + maxInFlight);
+    }
+    this.maxInFlight = maxInFlight;
+    return this;
+  }
+
+  public long getDelay() {
+    return delay;
+  }
+
+  /**
+   * @param delay the time to wait in milliseconds after the connection before replaying, so the handlers are deployed
+   * @return this object so it can be used fluently
+   */
+  public ReplayOptions setDelay(long delay) {
+    this.delay = delay;
+    return this;
+  }
+
+  public long getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * @param timeout the reply timeout of each message in milliseconds
+   * @return this object so it can be used fluently
+   */
+  public ReplayOptions setTimeout(long timeout) {
+    this.timeout = timeout;
+    return this;
+  }
+
+  public String getReport() {
+    return report;
+  }
+
+  /**
+   * @param report the file the json report is written to, it can be used as the baseline of another replay
+   * @return this object so it can be used fluently
+   */
+  public ReplayOptions setReport(String report) {
+    this.report = report;
+    return this;
+  }
+
+  public String getBaseline() {
+    return baseline;
+  }
+
+  /**
+   * @param baseline the json report of a previous replay the latencies are compared with
+   * @return this object so it can be used fluently
+   */
+  public ReplayOptions setBaseline(String baseline) {
+    this.baseline = baseline;
+    return this;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import io.nonobot.core.BotOptions;
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the routing of a message to the first matching handler among the default handlers, a few ambient
+ * style handlers and {@code patterns} generated command and ambient handlers. Run it with {@code -prof gc} to
+ * observe the allocation rate: a message matching no handler should not allocate, a matching message only
+ * allocates the offsets of the matched groups.<p>
+ *
+ * The benchmark lives in the router implementation package to reach the routing table.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+  private static final String NO_MATCH = "what a lovely day to ship a release";
+  private static final String MATCH = "echo the quick brown fox jumps over the lazy dog";
+
+  @Param({"10", "100", "1000", "10000"})
+  public int patterns;
+
+  private Vertx vertx;
+  private ChatRouterImpl router;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    router = new ChatRouterImpl(vertx, new BotOptions().setName("benchmark"));
+    router.respond("^echo\\s+(.+)", msg -> {});
+    router.respond("^ping", msg -> {});
+    router.respond("^help(\\s.+)?", msg -> {});
+    router.respond("^timer\\s+([0-9]+)", msg -> {});
+    router.respond("^giphy\\s+(.+)", msg -> {});
+    router.respond(".*deploy (\\w+) to (\\w+).*", msg -> {});
+    router.respond(".*status of (\\w+).*", msg -> {});
+    router.respond("(?i).*thanks.*", msg -> {});
+    for (int i = 0;i < patterns;i++) {
+      if (i % 2 == 0) {
+        router.respond("^command" + i + "\\s+(.+)", msg -> {});
+      } else {
+        router.respond(".*keyword" + i + " (\\w+).*", msg -> {});
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    router.close();
+    vertx.close();
+  }
+
+  @Benchmark
+  public void noMatch(Blackhole bh) {
+    bh.consume(router.routes.get().table(true).match(NO_MATCH));
+  }
+
+  @Benchmark
+  public void match(Blackhole bh) {
+    RoutingTable table = router.routes.get().table(true);
+    int index = table.match(MATCH);
+    bh.consume(table.handlers[index].groups());
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.client.impl;
+
+import io.nonobot.core.client.BotClient;
+import io.nonobot.core.client.ClientOptions;
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+/**
+ * Measures the detection of the messages addressed to the bot by the client aliases, for a message addressed to the
+ * bot by its last alias and for an ambient message.<p>
+ *
+ * The benchmark lives in the client implementation package to reach the alias pattern.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AliasBenchmark {
+
+  private static final String AMBIENT = "what a lovely day to ship a release";
+
+  @Param({"2", "10", "100"})
+  public int aliases;
+
+  private Vertx vertx;
+  private BotClientImpl client;
+  private String direct;
+
+  @Setup
+  public void setup() throws Exception {
+    vertx = Vertx.vertx();
+    CompletableFuture<BotClient> future = new CompletableFuture<>();
+    BotClient.client(vertx, new ClientOptions().setName("benchmark"), ar -> {
+      if (ar.succeeded()) {
+        future.complete(ar.result());
+      } else {
+        future.completeExceptionally(ar.cause());
+      }
+    });
+    client = (BotClientImpl) future.get(10, TimeUnit.SECONDS);
+    List<String> names = new ArrayList<>();
+    for (int i = 0;i < aliases;i++) {
+      names.add("alias" + i);
+    }
+    client.alias(names);
+    direct = "alias" + (aliases - 1) + ": echo the quick brown fox jumps over the lazy dog";
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.close();
+    vertx.close();
+  }
+
+  @Benchmark
+  public String direct() {
+    Matcher matcher = client.botPattern.matcher(direct);
+    return matcher.find() ? matcher.group(1) : null;
+  }
+
+  @Benchmark
+  public boolean ambient() {
+    return client.botPattern.matcher(AMBIENT).find();
+  }
+}
@@ -23,6 +23,7 @@ import io.nonobot.core.BotOptions;
 import io.nonobot.rxjava.core.chat.ChatRouter;
 import io.vertx.rxjava.core.Vertx;
 import io.vertx.rxjava.ext.web.Router;
+import io.nonobot.rxjava.core.timer.TimerWheel;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 
@@ -127,6 +128,8 @@ public class Bot {
    *
    * The main usage of this router is to provide a web server shared between the handlers, whose purpose is usually to provide
    * web service for pushing data to the botin the web hook style.<p>
+   *
+   * The router serves the chat router and handler metrics in the Prometheus text format on <code>/metrics</code>.
    * @return the web router
    */
   public Router webRouter() { 
@@ -138,16 +141,30 @@ public class Bot {
     return ret;
   }
 
+  /**
+   * The timer wheel handlers should use for scheduling their timeouts, it is shared with the other bots and clients
+   * of the Vert.x instance.
+   * @return the timer wheel
+   */
+  public TimerWheel timerWheel() { 
+    if (cached_3 != null) {
+      return cached_3;
+    }
+    TimerWheel ret= TimerWheel.newInstance(this.delegate.timerWheel());
+    cached_3 = ret;
+    return ret;
+  }
+
   /**
    * @return the bot name
    * @return 
    */
   public String name() { 
-    if (cached_3 != null) {
-      return cached_3;
+    if (cached_4 != null) {
+      return cached_4;
     }
     String ret = this.delegate.name();
-    cached_3 = ret;
+    cached_4 = ret;
     return ret;
   }
 
@@ -161,7 +178,8 @@ public class Bot {
   private Vertx cached_0;
   private ChatRouter cached_1;
   private Router cached_2;
-  private java.lang.String cached_3;
+  private TimerWheel cached_3;
+  private java.lang.String cached_4;
 
   public static Bot newInstance(io.nonobot.core.Bot arg) {
     return arg != null ? new Bot(arg) : null;
@@ -19,6 +19,7 @@ package io.nonobot.rxjava.core.chat;
 import java.util.Map;
 import io.vertx.lang.rxjava.InternalHelper;
 import rx.Observable;
+import io.nonobot.core.chat.HandlerOptions;
 import io.nonobot.core.chat.SendOptions;
 import io.vertx.core.Handler;
 
@@ -56,6 +57,22 @@ public class ChatRouter {
     return ret;
   }
 
+  /**
+   * Like {@link io.nonobot.rxjava.core.chat.ChatRouter#when} with handler options.
+   * @param pattern the matching pattern
+   * @param options the handler options
+   * @param handler the message handler
+   * @return the message handler object
+   */
+  public ChatHandler when(String pattern, HandlerOptions options, Handler<Message> handler) { 
+    ChatHandler ret= ChatHandler.newInstance(this.delegate.when(pattern, options, new Handler<io.nonobot.core.chat.Message>() {
+      public void handle(io.nonobot.core.chat.Message event) {
+        handler.handle(new Message(event));
+      }
+    }));
+    return ret;
+  }
+
   /**
    * Add a message handler triggered when the <code>pattern</code> prepended with the bot name is fully matched,
    * the pattern is a <code>java.util.regex</code>.
@@ -72,6 +89,22 @@ public class ChatRouter {
     return ret;
   }
 
+  /**
+   * Like {@link io.nonobot.rxjava.core.chat.ChatRouter#respond} with handler options.
+   * @param pattern the matching pattern
+   * @param options the handler options
+   * @param handler the message handler
+   * @return the message handler object
+   */
+  public ChatHandler respond(String pattern, HandlerOptions options, Handler<Message> handler) { 
+    ChatHandler ret= ChatHandler.newInstance(this.delegate.respond(pattern, options, new Handler<io.nonobot.core.chat.Message>() {
+      public void handle(io.nonobot.core.chat.Message event) {
+        handler.handle(new Message(event));
+      }
+    }));
+    return ret;
+  }
+
   /**
    * Send a message to a target.
    * @param options the options
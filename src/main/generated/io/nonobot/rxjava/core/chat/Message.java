@@ -120,6 +120,22 @@ public class Message {
     return ackHandler;
   }
 
+  /**
+   * Signal the handler is done with the message, an asynchronous handler must reply, complete or fail each message
+   * it handles. This has no effect for the other handlers.
+   */
+  public void complete() { 
+    this.delegate.complete();
+  }
+
+  /**
+   * Signal the handler failed to handle the message, see {@link io.nonobot.core.chat.Message}.
+   * @param cause the failure cause
+   */
+  public void fail(Throwable cause) { 
+    this.delegate.fail(cause);
+  }
+
 
   public static Message newInstance(io.nonobot.core.chat.Message arg) {
     return arg != null ? new Message(arg) : null;
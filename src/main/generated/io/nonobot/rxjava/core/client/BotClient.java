@@ -23,6 +23,7 @@ import java.util.List;
 import io.nonobot.core.client.ReceiveOptions;
 import io.nonobot.core.client.ClientOptions;
 import io.vertx.rxjava.core.Vertx;
+import io.vertx.core.json.JsonObject;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 
@@ -113,10 +114,39 @@ public class BotClient {
     this.delegate.alias(names);
   }
 
+  /**
+   * Claim the ownership of a chat, the messages sent by the bot to this chat are delivered to this client only
+   * instead of being broadcast to all the clients.
+   * @param chatId the chat id
+   * @return this object so it can be used fluently
+   */
+  public BotClient claimChat(String chatId) { 
+    this.delegate.claimChat(chatId);
+    return this;
+  }
+
+  /**
+   * Claim the ownership of the chats whose id starts with the <code>prefix</code>, the messages sent by the bot to these
+   * chats are delivered to this client only instead of being broadcast to all the clients. When several prefixes
+   * match a chat id, the longest one wins.
+   * @param prefix the chat id prefix
+   * @return this object so it can be used fluently
+   */
+  public BotClient claimChatPrefix(String prefix) { 
+    this.delegate.claimChatPrefix(prefix);
+    return this;
+  }
+
   /**
    * Receive a message, the message might trigger a reply from an handler, if that happens it should be fast. However
-   * if there is no handler for processing the message, the reply will be called and likely timeout. Therefore the client
-   * should not wait until the reply is called, instead if should just forward the reply content when it arrives.
+   * the handler may take time to reply or never reply, the reply handler is then failed after the timeout. Therefore
+   * the client should not wait until the reply is called, instead if should just forward the reply content when it
+   * arrives.<p>
+   *
+   * When no handler matches the message, the reply handler is failed immediately with a
+   * <code>NotHandledException</code>, except in a cluster when the routers are not partitioned: the routers of the other
+   * nodes may still handle the message, so the reply handler is failed after the timeout. When the bot is too busy
+   * to accept the message, the reply handler is failed immediately with a <code>BusyException</code>.
    * @param options the receive options
    * @param message the message content to process
    * @param replyHandler the handle to be notified with the message reply
@@ -127,8 +157,14 @@ public class BotClient {
 
   /**
    * Receive a message, the message might trigger a reply from an handler, if that happens it should be fast. However
-   * if there is no handler for processing the message, the reply will be called and likely timeout. Therefore the client
-   * should not wait until the reply is called, instead if should just forward the reply content when it arrives.
+   * the handler may take time to reply or never reply, the reply handler is then failed after the timeout. Therefore
+   * the client should not wait until the reply is called, instead if should just forward the reply content when it
+   * arrives.<p>
+   *
+   * When no handler matches the message, the reply handler is failed immediately with a
+   * <code>NotHandledException</code>, except in a cluster when the routers are not partitioned: the routers of the other
+   * nodes may still handle the message, so the reply handler is failed after the timeout. When the bot is too busy
+   * to accept the message, the reply handler is failed immediately with a <code>BusyException</code>.
    * @param options the receive options
    * @param message the message content to process
    * @return 
@@ -163,6 +199,27 @@ public class BotClient {
     return this;
   }
 
+  /**
+   * Returns a snapshot of the client metrics:
+   *
+   * <ul>
+   *   <li><code>pendingReplies</code>: the number of messages waiting for a reply, bounded by <code>maxPendingReplies</code></li>
+   *   <li><code>received</code>: the number of received messages</li>
+   *   <li><code>replies</code>, <code>replyTimeouts</code>, <code>notHandled</code> and <code>busy</code>: the number of received
+   *   messages by outcome</li>
+   *   <li><code>rejected</code>: the number of messages rejected because too many replies were pending</li>
+   *   <li><code>outboundMessages</code>: the number of messages sent by the bot to this client and <code>outboundRate</code>
+   *   their one minute rate in messages per second</li>
+   *   <li><code>contextHops</code>: the number of tasks executed on the client context, <code>contextHopTime</code> and
+   *   <code>maxContextHopTime</code> the total and the maximum time in nanoseconds they waited to run</li>
+   * </ul>
+   * @return the metrics
+   */
+  public JsonObject metrics() { 
+    JsonObject ret = this.delegate.metrics();
+    return ret;
+  }
+
   /**
    * Close the client.
    */
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.nonobot.rxjava.core.timer;
+
+import java.util.Map;
+import io.vertx.lang.rxjava.InternalHelper;
+import rx.Observable;
+
+/**
+ * A timeout scheduled on a {@link io.nonobot.rxjava.core.timer.TimerWheel}.
+ *
+ * <p/>
+ * NOTE: This class has been automatically generated from the {@link io.nonobot.core.timer.Timeout original} non RX-ified interface using Vert.x codegen.
+ */
+
+public class Timeout {
+
+  final io.nonobot.core.timer.Timeout delegate;
+
+  public Timeout(io.nonobot.core.timer.Timeout delegate) {
+    this.delegate = delegate;
+  }
+
+  public Object getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * Cancel the timeout.
+   * @return true if the timeout was cancelled, false if it already expired or was already cancelled
+   */
+  public boolean cancel() { 
+    boolean ret = this.delegate.cancel();
+    return ret;
+  }
+
+
+  public static Timeout newInstance(io.nonobot.core.timer.Timeout arg) {
+    return arg != null ? new Timeout(arg) : null;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.nonobot.rxjava.core.timer;
+
+import java.util.Map;
+import io.vertx.lang.rxjava.InternalHelper;
+import rx.Observable;
+import io.vertx.rxjava.core.Vertx;
+import io.vertx.core.Handler;
+
+/**
+ * A hierarchical timing wheel scheduling timeouts with a tick granularity. Scheduling and cancelling a timeout
+ * are constant time operations and a pending timeout uses a small amount of memory, so the wheel can hold a large
+ * number of timeouts that are usually cancelled before they expire.<p>
+ *
+ * The wheel ticks on its own thread while it has pending timeouts. Like a Vert.x timer, an expired timeout handler
+ * is called on the context that scheduled the timeout.
+ *
+ * <p/>
+ * NOTE: This class has been automatically generated from the {@link io.nonobot.core.timer.TimerWheel original} non RX-ified interface using Vert.x codegen.
+ */
+
+public class TimerWheel {
+
+  final io.nonobot.core.timer.TimerWheel delegate;
+
+  public TimerWheel(io.nonobot.core.timer.TimerWheel delegate) {
+    this.delegate = delegate;
+  }
+
+  public Object getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * Create a new timer wheel with a tick duration of 10 ms.
+   * @param vertx the Vert.x instance
+   * @return the timer wheel
+   */
+  public static TimerWheel create(Vertx vertx) { 
+    TimerWheel ret= TimerWheel.newInstance(io.nonobot.core.timer.TimerWheel.create((io.vertx.core.Vertx) vertx.getDelegate()));
+    return ret;
+  }
+
+  /**
+   * Create a new timer wheel.
+   * @param vertx the Vert.x instance
+   * @param tickDuration the tick duration in ms
+   * @return the timer wheel
+   */
+  public static TimerWheel create(Vertx vertx, long tickDuration) { 
+    TimerWheel ret= TimerWheel.newInstance(io.nonobot.core.timer.TimerWheel.create((io.vertx.core.Vertx) vertx.getDelegate(), tickDuration));
+    return ret;
+  }
+
+  /**
+   * Gets the timer wheel shared by the bots and clients of the Vert.x instance.
+   * @param vertx the Vert.x instance
+   * @return the timer wheel
+   */
+  public static TimerWheel getShared(Vertx vertx) { 
+    TimerWheel ret= TimerWheel.newInstance(io.nonobot.core.timer.TimerWheel.getShared((io.vertx.core.Vertx) vertx.getDelegate()));
+    return ret;
+  }
+
+  /**
+   * Schedule a timeout, the <code>handler</code> is called after the <code>delay</code> rounded up to the next tick.
+   * @param delay the delay in ms
+   * @param handler the handler to call when the timeout expires
+   * @return the timeout
+   */
+  public Timeout schedule(long delay, Handler<Void> handler) { 
+    Timeout ret= Timeout.newInstance(this.delegate.schedule(delay, handler));
+    return ret;
+  }
+
+  /**
+   * @return the number of pending timeouts
+   * @return 
+   */
+  public int size() { 
+    int ret = this.delegate.size();
+    return ret;
+  }
+
+  /**
+   * Close the wheel, the pending timeouts are discarded. Closing the {@link io.nonobot.core.timer.TimerWheel} wheel has no
+   * effect, it lives as long as the Vert.x instance.
+   */
+  public void close() { 
+    this.delegate.close();
+  }
+
+
+  public static TimerWheel newInstance(io.nonobot.core.timer.TimerWheel arg) {
+    return arg != null ? new TimerWheel(arg) : null;
+  }
+}
@@ -22,6 +22,7 @@ import io.nonobot.core.BotOptions
 import io.nonobot.groovy.core.chat.ChatRouter
 import io.vertx.groovy.core.Vertx
 import io.vertx.groovy.ext.web.Router
+import io.nonobot.groovy.core.timer.TimerWheel
 import io.vertx.core.AsyncResult
 import io.vertx.core.Handler
 /**
@@ -111,6 +112,8 @@ public class Bot {
    *
    * The main usage of this router is to provide a web server shared between the handlers, whose purpose is usually to provide
    * web service for pushing data to the botin the web hook style.<p>
+   *
+   * The router serves the chat router and handler metrics in the Prometheus text format on <code>/metrics</code>.
    * @return the web router
    */
   public Router webRouter() {
@@ -121,16 +124,29 @@ public class Bot {
     cached_2 = ret;
     return ret;
   }
+  /**
+   * The timer wheel handlers should use for scheduling their timeouts, it is shared with the other bots and clients
+   * of the Vert.x instance.
+   * @return the timer wheel
+   */
+  public TimerWheel timerWheel() {
+    if (cached_3 != null) {
+      return cached_3;
+    }
+    def ret= InternalHelper.safeCreate(this.delegate.timerWheel(), io.nonobot.groovy.core.timer.TimerWheel.class);
+    cached_3 = ret;
+    return ret;
+  }
   /**
    * @return the bot name
    * @return 
    */
   public String name() {
-    if (cached_3 != null) {
-      return cached_3;
+    if (cached_4 != null) {
+      return cached_4;
     }
     def ret = this.delegate.name();
-    cached_3 = ret;
+    cached_4 = ret;
     return ret;
   }
   /**
@@ -142,5 +158,6 @@ public class Bot {
   private Vertx cached_0;
   private ChatRouter cached_1;
   private Router cached_2;
-  private String cached_3;
+  private TimerWheel cached_3;
+  private String cached_4;
 }
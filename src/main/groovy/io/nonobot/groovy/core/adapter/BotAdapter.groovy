@@ -21,6 +21,7 @@ import io.vertx.core.json.JsonObject
 import io.nonobot.core.client.ClientOptions
 import io.vertx.groovy.core.Vertx
 import io.nonobot.groovy.core.client.BotClient
+import io.vertx.core.json.JsonObject
 import io.vertx.core.Handler
 import io.vertx.groovy.core.Future
 /**
@@ -46,7 +47,10 @@ public class BotAdapter {
   }
   /**
    * Run the bot adapter, until it is closed: the adapter performs a connection request. If the connection request
-   * fails or if the connection is closed, a new connection request is performed after the reconnect period.
+   * fails or if the connection is closed, a new connection request is performed after the reconnect period.<p>
+   *
+   * The messages the bot sends while the adapter is disconnected are queued, they are delivered in order to the
+   * client once a connection request completes.
    * @param options the client options to use (see <a href="../../../../../../../cheatsheet/ClientOptions.html">ClientOptions</a>)
    */
   public void run(Map<String, Object> options = [:]) {
@@ -68,6 +72,28 @@ public class BotAdapter {
     def ret = this.delegate.isConnected();
     return ret;
   }
+  /**
+   * Returns a snapshot of the adapter metrics:
+   *
+   * <ul>
+   *   <li><code>running</code> and <code>connected</code>: the adapter state</li>
+   *   <li><code>connectAttempts</code>, <code>connections</code> and <code>connectFailures</code>: the number of connection
+   *   requests by outcome</li>
+   *   <li><code>reconnects</code>: the number of scheduled reconnections</li>
+   *   <li><code>lastConnectTime</code> and <code>totalConnectTime</code>: the duration in milliseconds of the last and of all
+   *   the successful connection requests</li>
+   *   <li><code>disconnectedTime</code>: the time in milliseconds the running adapter spent disconnected</li>
+   *   <li><code>outboundQueued</code>: the number of messages sent by the bot waiting for a connection,
+   *   <code>outboundSpilled</code>, <code>outboundDropped</code> and <code>outboundDrained</code> the number of these messages
+   *   spilled to disk, dropped and delivered after a reconnection</li>
+   *   <li><code>client</code>: the metrics of the current client, see </li>
+   * </ul>
+   * @return the metrics
+   */
+  public Map<String, Object> metrics() {
+    def ret = (Map<String, Object>)InternalHelper.wrapObject(this.delegate.metrics());
+    return ret;
+  }
   /**
    * Set the connection request handler. The request handler is called when the adapter needs to connect to the adapted
    * service. The handler can be called many times (reconnect) but manages a single connection per adapter.<p>
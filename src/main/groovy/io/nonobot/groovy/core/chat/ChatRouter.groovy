@@ -18,6 +18,7 @@ package io.nonobot.groovy.core.chat;
 import groovy.transform.CompileStatic
 import io.vertx.lang.groovy.InternalHelper
 import io.vertx.core.json.JsonObject
+import io.nonobot.core.chat.HandlerOptions
 import io.nonobot.core.chat.SendOptions
 import io.vertx.core.Handler
 /**
@@ -46,6 +47,21 @@ public class ChatRouter {
     }), io.nonobot.groovy.core.chat.ChatHandler.class);
     return ret;
   }
+  /**
+   * Like {@link io.nonobot.groovy.core.chat.ChatRouter#when} with handler options.
+   * @param pattern the matching pattern
+   * @param options the handler options (see <a href="../../../../../../../cheatsheet/HandlerOptions.html">HandlerOptions</a>)
+   * @param handler the message handler
+   * @return the message handler object
+   */
+  public ChatHandler when(String pattern, Map<String, Object> options, Handler<Message> handler) {
+    def ret= InternalHelper.safeCreate(this.delegate.when(pattern, options != null ? new io.nonobot.core.chat.HandlerOptions(new io.vertx.core.json.JsonObject(options)) : null, new Handler<io.nonobot.core.chat.Message>() {
+      public void handle(io.nonobot.core.chat.Message event) {
+        handler.handle(new io.nonobot.groovy.core.chat.Message(event));
+      }
+    }), io.nonobot.groovy.core.chat.ChatHandler.class);
+    return ret;
+  }
   /**
    * Add a message handler triggered when the <code>pattern</code> prepended with the bot name is fully matched,
    * the pattern is a <code>java.util.regex</code>.
@@ -61,6 +77,21 @@ public class ChatRouter {
     }), io.nonobot.groovy.core.chat.ChatHandler.class);
     return ret;
   }
+  /**
+   * Like {@link io.nonobot.groovy.core.chat.ChatRouter#respond} with handler options.
+   * @param pattern the matching pattern
+   * @param options the handler options (see <a href="../../../../../../../cheatsheet/HandlerOptions.html">HandlerOptions</a>)
+   * @param handler the message handler
+   * @return the message handler object
+   */
+  public ChatHandler respond(String pattern, Map<String, Object> options, Handler<Message> handler) {
+    def ret= InternalHelper.safeCreate(this.delegate.respond(pattern, options != null ? new io.nonobot.core.chat.HandlerOptions(new io.vertx.core.json.JsonObject(options)) : null, new Handler<io.nonobot.core.chat.Message>() {
+      public void handle(io.nonobot.core.chat.Message event) {
+        handler.handle(new io.nonobot.groovy.core.chat.Message(event));
+      }
+    }), io.nonobot.groovy.core.chat.ChatHandler.class);
+    return ret;
+  }
   /**
    * Send a message to a target.
    * @param options the options (see <a href="../../../../../../../cheatsheet/SendOptions.html">SendOptions</a>)
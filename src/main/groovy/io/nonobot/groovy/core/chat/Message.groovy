@@ -82,4 +82,18 @@ public class Message {
   public void reply(String msg, long ackTimeout, Handler<AsyncResult<Void>> ackHandler) {
     this.delegate.reply(msg, ackTimeout, ackHandler);
   }
+  /**
+   * Signal the handler is done with the message, an asynchronous handler must reply, complete or fail each message
+   * it handles. This has no effect for the other handlers.
+   */
+  public void complete() {
+    this.delegate.complete();
+  }
+  /**
+   * Signal the handler failed to handle the message, see {@link io.nonobot.groovy.core.chat.Message#complete}.
+   * @param cause the failure cause
+   */
+  public void fail(Throwable cause) {
+    this.delegate.fail(cause);
+  }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.nonobot.groovy.core.timer;
+import groovy.transform.CompileStatic
+import io.vertx.lang.groovy.InternalHelper
+import io.vertx.core.json.JsonObject
+/**
+ * A timeout scheduled on a {@link io.nonobot.groovy.core.timer.TimerWheel}.
+*/
+@CompileStatic
+public class Timeout {
+  private final def io.nonobot.core.timer.Timeout delegate;
+  public Timeout(Object delegate) {
+    this.delegate = (io.nonobot.core.timer.Timeout) delegate;
+  }
+  public Object getDelegate() {
+    return delegate;
+  }
+  /**
+   * Cancel the timeout.
+   * @return true if the timeout was cancelled, false if it already expired or was already cancelled
+   */
+  public boolean cancel() {
+    def ret = this.delegate.cancel();
+    return ret;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.nonobot.groovy.core.timer;
+import groovy.transform.CompileStatic
+import io.vertx.lang.groovy.InternalHelper
+import io.vertx.core.json.JsonObject
+import io.vertx.groovy.core.Vertx
+import io.vertx.core.Handler
+/**
+ * A hierarchical timing wheel scheduling timeouts with a tick granularity. Scheduling and cancelling a timeout
+ * are constant time operations and a pending timeout uses a small amount of memory, so the wheel can hold a large
+ * number of timeouts that are usually cancelled before they expire.<p>
+ *
+ * The wheel ticks on its own thread while it has pending timeouts. Like a Vert.x timer, an expired timeout handler
+ * is called on the context that scheduled the timeout.
+*/
+@CompileStatic
+public class TimerWheel {
+  private final def io.nonobot.core.timer.TimerWheel delegate;
+  public TimerWheel(Object delegate) {
+    this.delegate = (io.nonobot.core.timer.TimerWheel) delegate;
+  }
+  public Object getDelegate() {
+    return delegate;
+  }
+  /**
+   * Create a new timer wheel with a tick duration of 10 ms.
+   * @param vertx the Vert.x instance
+   * @return the timer wheel
+   */
+  public static TimerWheel create(Vertx vertx) {
+    def ret= InternalHelper.safeCreate(io.nonobot.core.timer.TimerWheel.create((io.vertx.core.Vertx)vertx.getDelegate()), io.nonobot.groovy.core.timer.TimerWheel.class);
+    return ret;
+  }
+  /**
+   * Create a new timer wheel.
+   * @param vertx the Vert.x instance
+   * @param tickDuration the tick duration in ms
+   * @return the timer wheel
+   */
+  public static TimerWheel create(Vertx vertx, long tickDuration) {
+    def ret= InternalHelper.safeCreate(io.nonobot.core.timer.TimerWheel.create((io.vertx.core.Vertx)vertx.getDelegate(), tickDuration), io.nonobot.groovy.core.timer.TimerWheel.class);
+    return ret;
+  }
+  /**
+   * Gets the timer wheel shared by the bots and clients of the Vert.x instance.
+   * @param vertx the Vert.x instance
+   * @return the timer wheel
+   */
+  public static TimerWheel getShared(Vertx vertx) {
+    def ret= InternalHelper.safeCreate(io.nonobot.core.timer.TimerWheel.getShared((io.vertx.core.Vertx)vertx.getDelegate()), io.nonobot.groovy.core.timer.TimerWheel.class);
+    return ret;
+  }
+  /**
+   * Schedule a timeout, the <code>handler</code> is called after the <code>delay</code> rounded up to the next tick.
+   * @param delay the delay in ms
+   * @param handler the handler to call when the timeout expires
+   * @return the timeout
+   */
+  public Timeout schedule(long delay, Handler<Void> handler) {
+    def ret= InternalHelper.safeCreate(this.delegate.schedule(delay, handler), io.nonobot.groovy.core.timer.Timeout.class);
+    return ret;
+  }
+  /**
+   * @return the number of pending timeouts
+   * @return 
+   */
+  public int size() {
+    def ret = this.delegate.size();
+    return ret;
+  }
+  /**
+   * Close the wheel, the pending timeouts are discarded. Closing the {@link io.nonobot.groovy.core.timer.TimerWheel #getShared(Vertx) shared} wheel has no
+   * effect, it lives as long as the Vert.x instance.
+   */
+  public void close() {
+    this.delegate.close();
+  }
+}
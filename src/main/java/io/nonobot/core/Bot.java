@@ -18,6 +18,7 @@ package io.nonobot.core;
 
 import io.nonobot.core.chat.ChatRouter;
 import io.nonobot.core.impl.BotImpl;
+import io.nonobot.core.timer.TimerWheel;
 import io.vertx.codegen.annotations.CacheReturn;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.AsyncResult;
@@ -103,11 +104,22 @@ public interface Bot {
    * The main usage of this router is to provide a web server shared between the handlers, whose purpose is usually to provide
    * web service for pushing data to the botin the web hook style.<p>
    *
+   * The router serves the chat router and handler metrics in the Prometheus text format on {@code /metrics}.
+   *
    * @return the web router
    */
   @CacheReturn
   Router webRouter();
 
+  /**
+   * The timer wheel handlers should use for scheduling their timeouts, it is shared with the other bots and clients
+   * of the Vert.x instance.
+   *
+   * @return the timer wheel
+   */
+  @CacheReturn
+  TimerWheel timerWheel();
+
   /**
    * @return the bot name
    */
@@ -16,6 +16,7 @@
 
 package io.nonobot.core;
 
+import io.nonobot.core.journal.JournalOptions;
 import io.vertx.codegen.annotations.DataObject;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.json.JsonObject;
@@ -27,23 +28,77 @@ import io.vertx.core.json.JsonObject;
 public class BotOptions {
 
   public static final String DEFAULT_NAME = "nono";
+  public static final int DEFAULT_DISPATCH_SHARDS = 1;
+  public static final boolean DEFAULT_PARTITIONED = false;
+  public static final long DEFAULT_HEARTBEAT_PERIOD = 1000;
+  public static final int DEFAULT_MAX_IN_FLIGHT = 1000;
+  public static final int DEFAULT_MAX_QUEUED = 10000;
+  public static final SheddingPolicy DEFAULT_SHEDDING_POLICY = SheddingPolicy.DROP_AMBIENT;
+  public static final int DEFAULT_DIRECT_LANE_WEIGHT = 4;
+  public static final int DEFAULT_MAX_QUEUED_PER_CHAT = 1000;
+  public static final int DEFAULT_CHAT_QUANTUM = 1;
+  public static final int DEFAULT_MAX_VIRTUAL_THREADS = 10000;
 
   private String name;
   private HttpServerOptions httpServerOptions;
+  private int dispatchShards;
+  private boolean partitioned;
+  private long heartbeatPeriod;
+  private int maxInFlight;
+  private int maxQueued;
+  private SheddingPolicy sheddingPolicy;
+  private int directLaneWeight;
+  private int maxQueuedPerChat;
+  private int chatQuantum;
+  private int maxVirtualThreads;
+  private JournalOptions journalOptions;
 
   public BotOptions() {
     name = DEFAULT_NAME;
     httpServerOptions = null;
+    dispatchShards = DEFAULT_DISPATCH_SHARDS;
+    partitioned = DEFAULT_PARTITIONED;
+    heartbeatPeriod = DEFAULT_HEARTBEAT_PERIOD;
+    maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    maxQueued = DEFAULT_MAX_QUEUED;
+    sheddingPolicy = DEFAULT_SHEDDING_POLICY;
+    directLaneWeight = DEFAULT_DIRECT_LANE_WEIGHT;
+    maxQueuedPerChat = DEFAULT_MAX_QUEUED_PER_CHAT;
+    chatQuantum = DEFAULT_CHAT_QUANTUM;
+    maxVirtualThreads = DEFAULT_MAX_VIRTUAL_THREADS;
+    journalOptions = null;
   }
 
   public BotOptions(JsonObject json) {
     name = json.getString("name", DEFAULT_NAME);
     httpServerOptions = json.getJsonObject("httpServerOptions") != null ? new HttpServerOptions(json.getJsonObject("httpServerOptions")) : null;
+    dispatchShards = json.getInteger("dispatchShards", DEFAULT_DISPATCH_SHARDS);
+    partitioned = json.getBoolean("partitioned", DEFAULT_PARTITIONED);
+    heartbeatPeriod = json.getLong("heartbeatPeriod", DEFAULT_HEARTBEAT_PERIOD);
+    maxInFlight = json.getInteger("maxInFlight", DEFAULT_MAX_IN_FLIGHT);
+    maxQueued = json.getInteger("maxQueued", DEFAULT_MAX_QUEUED);
+    sheddingPolicy = SheddingPolicy.valueOf(json.getString("sheddingPolicy", DEFAULT_SHEDDING_POLICY.name()));
+    directLaneWeight = json.getInteger("directLaneWeight", DEFAULT_DIRECT_LANE_WEIGHT);
+    maxQueuedPerChat = json.getInteger("maxQueuedPerChat", DEFAULT_MAX_QUEUED_PER_CHAT);
+    chatQuantum = json.getInteger("chatQuantum", DEFAULT_CHAT_QUANTUM);
+    maxVirtualThreads = json.getInteger("maxVirtualThreads", DEFAULT_MAX_VIRTUAL_THREADS);
+    journalOptions = json.getJsonObject("journalOptions") != null ? new JournalOptions(json.getJsonObject("journalOptions")) : null;
   }
 
   public BotOptions(BotOptions that) {
     name = that.name;
     httpServerOptions = that.httpServerOptions != null ? new HttpServerOptions(that.httpServerOptions) : null;
+    dispatchShards = that.dispatchShards;
+    partitioned = that.partitioned;
+    heartbeatPeriod = that.heartbeatPeriod;
+    maxInFlight = that.maxInFlight;
+    maxQueued = that.maxQueued;
+    sheddingPolicy = that.sheddingPolicy;
+    directLaneWeight = that.directLaneWeight;
+    maxQueuedPerChat = that.maxQueuedPerChat;
+    chatQuantum = that.chatQuantum;
+    maxVirtualThreads = that.maxVirtualThreads;
+    journalOptions = that.journalOptions != null ? new JournalOptions(that.journalOptions) : null;
   }
 
   public String getName() {
@@ -63,4 +118,208 @@ public class BotOptions {
     this.httpServerOptions = httpServerOptions;
     return this;
   }
+
+  public int getDispatchShards() {
+    return dispatchShards;
+  }
+
+  /**
+   * Set the number of dispatch shards of the chat router. Messages are hashed by chat id onto the shards, each
+   * shard dispatching on its own event loop: messages of a chat are processed in order while unrelated chats are
+   * processed in parallel.
+   *
+   * @param dispatchShards the number of shards
+   * @return this object so it can be used fluently
+   */
+  public BotOptions setDispatchShards(int dispatchShards) {
+    if (dispatchShards < 1) {
+      throw new IllegalArgumentException("Invalid dispatch shards " + dispatchShards);
+    }
+    this.dispatchShards = dispatchShards;
+    return this;
+  }
+
+  public boolean isPartitioned() {
+    return partitioned;
+  }
+
+  /**
+   * Set the partitioned mode of the chat router. In a cluster, the partitioned routers of a bot share the chat ids
+   * with a consistent hash ring: a message is sent to the router owning its chat id only instead of being handled
+   * by all the routers. The chat ids are reassigned when routers join or leave the cluster.
+   *
+   * @param partitioned true for the partitioned mode
+   * @return this object so it can be used fluently
+   */
+  public BotOptions setPartitioned(boolean partitioned) {
+    this.partitioned = partitioned;
+    return this;
+  }
+
+  public long getHeartbeatPeriod() {
+    return heartbeatPeriod;
+  }
+
+  /**
+   * Set the period in ms at which a partitioned router announces itself to the cluster, a router is considered
+   * gone after three missed heartbeats.
+   *
+   * @param heartbeatPeriod the heartbeat period
+   * @return this object so it can be used fluently
+   */
+  public BotOptions setHeartbeatPeriod(long heartbeatPeriod) {
+    if (heartbeatPeriod < 1) {
+      throw new IllegalArgumentException("Invalid heartbeat period " + heartbeatPeriod);
+    }
+    this.heartbeatPeriod = heartbeatPeriod;
+    return this;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  /**
+   * Set the maximum number of handler invocations the chat router runs at the same time, the other messages wait
+   * in the dispatch queues. An invocation is in flight until it is done, including the time it waits for its
+   * handler concurrency limit and for the asynchronous handlers the time until the message is replied.
+   *
+   * @param maxInFlight the maximum number of in flight invocations
+   * @return this object so it can be used fluently
+   */
+  public BotOptions setMaxInFlight(int maxInFlight) {
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("Invalid max in flight " + maxInFlight);
+    }
+    this.maxInFlight = maxInFlight;
+    return this;
+  }
+
+  public int getMaxQueued() {
+    return maxQueued;
+  }
+
+  /**
+   * Set the maximum number of messages waiting in the chat router dispatch queues, beyond this number the messages
+   * are shed according to the {@link #setSheddingPolicy(SheddingPolicy) shedding policy}.
+   *
+   * @param maxQueued the maximum number of queued messages
+   * @return this object so it can be used fluently
+   */
+  public BotOptions setMaxQueued(int maxQueued) {
+    if (maxQueued < 0) {
+      throw new IllegalArgumentException("Invalid max queued " + maxQueued);
+    }
+    this.maxQueued = maxQueued;
+    return this;
+  }
+
+  public SheddingPolicy getSheddingPolicy() {
+    return sheddingPolicy;
+  }
+
+  /**
+   * Set what the chat router does with a message when its dispatch queues are full.
+   *
+   * @param sheddingPolicy the shedding policy
+   * @return this object so it can be used fluently
+   */
+  public BotOptions setSheddingPolicy(SheddingPolicy sheddingPolicy) {
+    this.sheddingPolicy = sheddingPolicy;
+    return this;
+  }
+
+  public int getDirectLaneWeight() {
+    return directLaneWeight;
+  }
+
+  /**
+   * Set how the chat router serves the messages addressed to the bot ahead of the ambient messages: when both kinds
+   * of messages are waiting, {@code directLaneWeight} direct messages are dispatched for each ambient message. A
+   * zero weight dispatches the ambient messages only when no direct message is waiting.
+   *
+   * @param directLaneWeight the direct lane weight
+   * @return this object so it can be used fluently
+   */
+  public BotOptions setDirectLaneWeight(int directLaneWeight) {
+    if (directLaneWeight < 0) {
+      throw new IllegalArgumentException("Invalid direct lane weight " + directLaneWeight);
+    }
+    this.directLaneWeight = directLaneWeight;
+    return this;
+  }
+
+  public int getMaxQueuedPerChat() {
+    return maxQueuedPerChat;
+  }
+
+  /**
+   * Set the maximum number of messages of a single chat waiting to be dispatched in each lane, a message received
+   * when the queue of its chat is full is shed according to the {@link #setSheddingPolicy shedding policy}.
+   *
+   * @param maxQueuedPerChat the maximum number of queued messages per chat
+   * @return this object so it can be used fluently
+   */
+  public BotOptions setMaxQueuedPerChat(int maxQueuedPerChat) {
+    if (maxQueuedPerChat < 1) {
+      throw new IllegalArgumentException("Invalid max queued per chat " + maxQueuedPerChat);
+    }
+    this.maxQueuedPerChat = maxQueuedPerChat;
+    return this;
+  }
+
+  public int getChatQuantum() {
+    return chatQuantum;
+  }
+
+  /**
+   * Set how many waiting messages of a chat are dispatched before the chat router moves to the next chat with waiting
+   * messages, the chats are served in turn so a busy chat does not delay the messages of the other chats.
+   *
+   * @param chatQuantum the number of messages dispatched per chat turn
+   * @return this object so it can be used fluently
+   */
+  public BotOptions setChatQuantum(int chatQuantum) {
+    if (chatQuantum < 1) {
+      throw new IllegalArgumentException("Invalid chat quantum " + chatQuantum);
+    }
+    this.chatQuantum = chatQuantum;
+    return this;
+  }
+
+  public int getMaxVirtualThreads() {
+    return maxVirtualThreads;
+  }
+
+  /**
+   * Set the maximum number of concurrent invocations of the handlers executed on virtual threads, a message received
+   * when the limit is reached is failed with a {@code BusyException}. On a JVM without virtual threads the handlers
+   * run on platform threads and the limit is capped to the default worker pool size.
+   *
+   * @param maxVirtualThreads the maximum number of concurrent invocations
+   * @return this object so it can be used fluently
+   */
+  public BotOptions setMaxVirtualThreads(int maxVirtualThreads) {
+    if (maxVirtualThreads < 1) {
+      throw new IllegalArgumentException("Invalid max virtual threads " + maxVirtualThreads);
+    }
+    this.maxVirtualThreads = maxVirtualThreads;
+    return this;
+  }
+
+  public JournalOptions getJournalOptions() {
+    return journalOptions;
+  }
+
+  /**
+   * Set the options of the journal recording the inbound messages, the replies and the outbound messages of the
+   * chat router. The router does not journal when the options are {@code null}.
+   *
+   * @param journalOptions the journal options
+   * @return this object so it can be used fluently
+   */
+  public BotOptions setJournalOptions(JournalOptions journalOptions) {
+    this.journalOptions = journalOptions;
+    return this;
+  }
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * What the chat router does with a message when its dispatch queue is full.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@VertxGen
+public enum SheddingPolicy {
+
+  /**
+   * Drop the ambient messages first: an ambient message is dropped and a message addressed to the bot replaces
+   * the most recent queued ambient message, when there is none the client is failed.
+   */
+  DROP_AMBIENT,
+
+  /**
+   * Reply a busy message to the messages addressed to the bot, the ambient messages are dropped.
+   */
+  REPLY_BUSY,
+
+  /**
+   * Fail the client immediately with a {@code BusyException}.
+   */
+  FAIL
+
+}
@@ -24,6 +24,7 @@ import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
 
 /**
  * Expose the bot to an external (usually remote) service.
@@ -45,7 +46,10 @@ public interface BotAdapter {
 
   /**
    * Run the bot adapter, until it is closed: the adapter performs a connection request. If the connection request
-   * fails or if the connection is closed, a new connection request is performed after the reconnect period.
+   * fails or if the connection is closed, a new connection request is performed after the reconnect period.<p>
+   *
+   * The messages the bot sends while the adapter is disconnected are queued, they are delivered in order to the
+   * client once a connection request completes.
    *
    * @param options the client options to use
    */
@@ -61,6 +65,27 @@ public interface BotAdapter {
    */
   boolean isConnected();
 
+  /**
+   * Returns a snapshot of the adapter metrics:
+   *
+   * <ul>
+   *   <li>{@code running} and {@code connected}: the adapter state</li>
+   *   <li>{@code connectAttempts}, {@code connections} and {@code connectFailures}: the number of connection
+   *   requests by outcome</li>
+   *   <li>{@code reconnects}: the number of scheduled reconnections</li>
+   *   <li>{@code lastConnectTime} and {@code totalConnectTime}: the duration in milliseconds of the last and of all
+   *   the successful connection requests</li>
+   *   <li>{@code disconnectedTime}: the time in milliseconds the running adapter spent disconnected</li>
+   *   <li>{@code outboundQueued}: the number of messages sent by the bot waiting for a connection,
+   *   {@code outboundSpilled}, {@code outboundDropped} and {@code outboundDrained} the number of these messages
+   *   spilled to disk, dropped and delivered after a reconnection</li>
+   *   <li>{@code client}: the metrics of the current client, see {@link BotClient#metrics()}</li>
+   * </ul>
+   *
+   * @return the metrics
+   */
+  JsonObject metrics();
+
   /**
    * Set the connection request handler. The request handler is called when the adapter needs to connect to the adapted
    * service. The handler can be called many times (reconnect) but manages a single connection per adapter.<p>
@@ -58,6 +58,7 @@ public class ConsoleBotAdapter implements Handler<ConnectionRequest> {
   void run(BotClient client) {
     Console console = System.console();
     PrintWriter writer = console.writer();
+    client.claimChat("console");
     client.messageHandler(msg -> {
       if (msg.chatId().equals("console")) {
         System.out.println(msg.body());
@@ -21,21 +21,53 @@ import io.nonobot.core.adapter.ConnectionRequest;
 import io.nonobot.core.client.BotClient;
 import io.nonobot.core.client.ClientOptions;
 import io.nonobot.core.client.impl.BotClientImpl;
+import io.nonobot.core.impl.EnvelopeCodecs;
+import io.nonobot.core.impl.OutboundMessage;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * The adapter implementation.<p>
+ *
+ * A running adapter consumes the messages the bot sends to all the clients on behalf of its client: they are
+ * delivered to the client while it is connected, otherwise they are queued and then drained in order once a
+ * connection request completes.
+ *
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
 public class BotAdapterImpl implements BotAdapter {
 
+  /**
+   * The number of queued messages delivered per event loop turn when draining.
+   */
+  private static final int DRAIN_BATCH_SIZE = 256;
+
   private Handler<ConnectionRequest> connectHandler;
   private final Vertx vertx;
-  private BotClient client;
+  private BotClientImpl client;
+  private Context context;
+  private OutboundQueue outbound;
+  private MessageConsumer<Object> outboundConsumer;
+  private long drained;
   private boolean closed;
   private boolean running;
   private boolean connected;
+  private long connectAttempts;
+  private long connections;
+  private long connectFailures;
+  private long reconnects;
+  private long connectStart;
+  private long lastConnectTime;
+  private long totalConnectTime;
+  private long disconnectedSince = System.nanoTime();
+  private long disconnectedTime;
 
   public BotAdapterImpl(Vertx vertx) {
     this.vertx = vertx;
@@ -53,68 +85,207 @@ public class BotAdapterImpl implements BotAdapter {
       throw new IllegalStateException("Running");
     }
     running = true;
-    connect(options.getReconnectPeriod(), options.getName());
+    synchronized (this) {
+      disconnectedSince = System.nanoTime();
+      String name = options.getName();
+      context = vertx.getOrCreateContext();
+      outbound = new OutboundQueue(context, options.getOutboundQueueSize(),
+          options.getOutboundSpillPath() != null ? Paths.get(options.getOutboundSpillPath()) : null, name,
+          options.getMaxOutboundSpilled(), this::drain);
+      EnvelopeCodecs.register(vertx);
+      outboundConsumer = vertx.eventBus().consumer("bots." + name + ".outbound", msg -> {
+        OutboundMessage message = OutboundMessage.of(msg.body());
+        // Delivering and draining the messages happens on the adapter context to preserve the order
+        if (Vertx.currentContext() == context) {
+          handleOutbound(message);
+        } else {
+          context.runOnContext(v -> handleOutbound(message));
+        }
+      });
+    }
+    connect(new ClientOptions(options));
   }
 
   @Override
-  public boolean isRunning() {
+  public synchronized boolean isRunning() {
     return running;
   }
 
   @Override
-  public boolean isConnected() {
+  public synchronized boolean isConnected() {
     return connected;
   }
 
-  private synchronized void connect(long reconnectPeriod, String name) {
+  private synchronized void connect(ClientOptions options) {
     if (closed) {
       throw new IllegalStateException("Closed");
     }
     if (client != null) {
       throw new IllegalStateException("Already connected");
     }
-    client = new BotClientImpl(vertx, vertx.getOrCreateContext(), new ClientOptions().setName(name), ar1 -> {
+    connectAttempts++;
+    connectStart = System.nanoTime();
+    client = new BotClientImpl(vertx, vertx.getOrCreateContext(), options, false, ar1 -> {
       if (ar1.succeeded()) {
         Future<Void> completionFuture = Future.future();
         completionFuture.setHandler(ar2 -> {
           if (ar2.failed()) {
-            client = null;
+            connectFailed();
             System.out.println("Connection failure");
             ar2.cause().printStackTrace();
-            reconnect(reconnectPeriod, name);
+            reconnect(options);
           } else {
-            connected = true;
+            connected();
           }
         });
-        connectHandler.handle(new ConnectionRequestImpl(this, client, completionFuture));
+        // The client field may not be assigned yet when the registration completes
+        connectHandler.handle(new ConnectionRequestImpl(this, ar1.result(), completionFuture));
       } else {
-        client = null;
+        connectFailed();
         ar1.cause().printStackTrace();
-        reconnect(reconnectPeriod, name);
+        reconnect(options);
       }
     }) {
       @Override
       public void close() {
         super.close();
-        client = null;
-        connected = false;
-        reconnect(reconnectPeriod, name);
+        if (disconnected(this)) {
+          reconnect(options);
+        }
       }
     };
   }
 
-  private synchronized void reconnect(long reconnectPeriod, String name) {
+  /**
+   * Forget the {@code closed} client when it is the current client, this waits until
+   * {@link #connect(ClientOptions)} has assigned the client when the client is closed while being created.
+   *
+   * @return true if the client was the current client
+   */
+  private synchronized boolean disconnected(BotClientImpl closed) {
+    if (client != closed) {
+      return false;
+    }
+    disconnected();
+    return true;
+  }
+
+  private synchronized void disconnected() {
+    if (connected) {
+      disconnectedSince = System.nanoTime();
+    }
+    client = null;
+    connected = false;
+  }
+
+  /**
+   * Forget and close the client of a failed connection request, this waits until {@link #connect(ClientOptions)}
+   * has assigned the client when the client fails while being created.
+   */
+  private void connectFailed() {
+    BotClientImpl failed;
+    synchronized (this) {
+      connectFailures++;
+      failed = client;
+      disconnected();
+    }
+    if (failed != null) {
+      // Not the current client anymore, closing it does not trigger a reconnection
+      failed.close();
+    }
+  }
+
+  private synchronized void connected() {
+    long now = System.nanoTime();
+    connections++;
+    lastConnectTime = now - connectStart;
+    totalConnectTime += lastConnectTime;
+    disconnectedTime += now - disconnectedSince;
+    connected = true;
+    if (outbound != null) {
+      context.runOnContext(v -> drain());
+    }
+  }
+
+  /**
+   * @return the client when it is connected
+   */
+  private synchronized BotClientImpl connectedClient() {
+    return connected ? client : null;
+  }
+
+  /**
+   * Deliver a message sent by the bot or queue it when the adapter is not connected or still draining, this is
+   * called on the adapter context.
+   */
+  private void handleOutbound(OutboundMessage message) {
+    BotClientImpl client = connectedClient();
+    if (client != null && outbound.isEmpty()) {
+      client.handleOutbound(message);
+    } else {
+      outbound.add(message);
+    }
+  }
+
+  /**
+   * Deliver the queued messages in order while the adapter is connected, a batch per event loop turn. The drain
+   * stops when the memory queue is empty and resumes when the spill file refills it.
+   */
+  private void drain() {
+    for (int i = 0;i < DRAIN_BATCH_SIZE;i++) {
+      BotClientImpl client = connectedClient();
+      if (client == null) {
+        return;
+      }
+      OutboundMessage message = outbound.poll();
+      if (message == null) {
+        return;
+      }
+      client.handleOutbound(message);
+      synchronized (this) {
+        drained++;
+      }
+    }
+    context.runOnContext(v -> drain());
+  }
+
+  private synchronized void reconnect(ClientOptions options) {
     if (closed) {
       return;
     }
+    long reconnectPeriod = options.getReconnectPeriod();
     if (reconnectPeriod > 0) {
       System.out.println("Connection failure, will reconnect after " + reconnectPeriod);
+      reconnects++;
       vertx.setTimer(reconnectPeriod, id -> {
-        connect(reconnectPeriod, name);
+        connect(options);
       });
     }
   }
 
+  @Override
+  public synchronized JsonObject metrics() {
+    long disconnected = disconnectedTime;
+    if (running && !connected) {
+      disconnected += System.nanoTime() - disconnectedSince;
+    }
+    return new JsonObject().
+        put("running", running).
+        put("connected", connected).
+        put("connectAttempts", connectAttempts).
+        put("connections", connections).
+        put("connectFailures", connectFailures).
+        put("reconnects", reconnects).
+        put("lastConnectTime", TimeUnit.NANOSECONDS.toMillis(lastConnectTime)).
+        put("totalConnectTime", TimeUnit.NANOSECONDS.toMillis(totalConnectTime)).
+        put("disconnectedTime", TimeUnit.NANOSECONDS.toMillis(disconnected)).
+        put("outboundQueued", outbound != null ? outbound.size() : 0).
+        put("outboundSpilled", outbound != null ? outbound.spilledTotal() : 0L).
+        put("outboundDropped", outbound != null ? outbound.dropped() : 0L).
+        put("outboundDrained", drained).
+        put("client", client != null ? client.metrics() : null);
+  }
+
   @Override
   public BotAdapter requestHandler(Handler<ConnectionRequest> handler) {
     connectHandler = handler;
@@ -128,6 +299,12 @@ public class BotAdapterImpl implements BotAdapter {
     }
     closed = true;
     running = false;
+    if (outboundConsumer != null) {
+      outboundConsumer.unregister();
+    }
+    if (outbound != null) {
+      outbound.close();
+    }
     if (client != null) {
       client.close();
     }
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.adapter.impl;
+
+import io.nonobot.core.impl.OutboundMessage;
+import io.vertx.core.Context;
+import io.vertx.core.VertxException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The messages sent by the bot while an adapter is disconnected, in order. The oldest messages are kept in memory,
+ * once the memory queue is full the newer messages are appended to a spill file, the memory queue is refilled
+ * from the spill file as it is drained. The spill file is truncated when it is fully drained, the messages it
+ * contains when the adapter is created are recovered. The adapters of a bot sharing a spill directory use distinct
+ * spill files, an adapter uses the first spill file of the bot that no other adapter has locked.<p>
+ *
+ * The spill file is locked while the queue is open and only accessed from a dedicated spill thread: the spilled
+ * messages are written in order and the memory queue is refilled ahead of the drain, the {@code refillHandler} is
+ * called on the adapter context when a refill completes. An I/O failure drops the messages concerned, it is
+ * reported on the adapter context.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class OutboundQueue {
+
+  private final ArrayDeque<OutboundMessage> memory = new ArrayDeque<>();
+  private final Context context;
+  private final Runnable refillHandler;
+  private final int maxInMemory;
+  private final int maxSpilled;
+  private final FileChannel spill;
+  private final ExecutorService spillThread;
+  private boolean refilling;
+  private boolean closed;
+  private int spilled;
+  private long spilledTotal;
+  private long dropped;
+
+  // Owned by the spill thread
+  private long readPos;
+  private long writePos;
+  private int unread;
+
+  /**
+   * @param context the adapter context
+   * @param spillDir the spill directory or {@code null} to drop the messages exceeding the memory queue
+   * @param name the bot name
+   * @param refillHandler called on the adapter context when messages are read back from the spill file
+   */
+  OutboundQueue(Context context, int maxInMemory, Path spillDir, String name, int maxSpilled, Runnable refillHandler) {
+    this.context = context;
+    this.refillHandler = refillHandler;
+    this.maxInMemory = maxInMemory;
+    this.maxSpilled = maxSpilled;
+    if (spillDir != null) {
+      Path spillFile;
+      try {
+        Files.createDirectories(spillDir);
+        // Each adapter of a bot locks its own spill file, the first one that is not locked by another adapter
+        FileChannel channel;
+        for (int slot = 0;;slot++) {
+          spillFile = spillDir.resolve(name + "-outbound" + (slot > 0 ? "-" + slot : "") + ".spill");
+          channel = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+          if (lock(channel)) {
+            break;
+          }
+          channel.close();
+        }
+        spill = channel;
+        recover();
+      } catch (IOException e) {
+        throw new VertxException(e);
+      }
+      String threadName = "nonobot-outbound-spill-" + spillFile.getFileName();
+      spillThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, threadName);
+        thread.setDaemon(true);
+        return thread;
+      });
+    } else {
+      spill = null;
+      spillThread = null;
+    }
+  }
+
+  private static boolean lock(FileChannel channel) throws IOException {
+    try {
+      return channel.tryLock() != null;
+    } catch (OverlappingFileLockException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Count the complete records of the spill file, a record torn by a crash is truncated. The lock is released
+   * when the spill file is closed.
+   */
+  private void recover() throws IOException {
+    long size = spill.size();
+    long pos = 0;
+    ByteBuffer header = ByteBuffer.allocate(4);
+    while (true) {
+      long next = skipString(pos, size, header);
+      next = next >= 0 ? skipString(next, size, header) : -1;
+      if (next < 0) {
+        break;
+      }
+      pos = next;
+      spilled++;
+    }
+    spill.truncate(pos);
+    writePos = pos;
+    unread = spilled;
+  }
+
+  private long skipString(long pos, long size, ByteBuffer header) throws IOException {
+    if (pos + 4 > size) {
+      return -1;
+    }
+    header.clear();
+    spill.read(header, pos);
+    int length = header.getInt(0);
+    long next = pos + 4 + Math.max(0, length);
+    return length >= -1 && next <= size ? next : -1;
+  }
+
+  synchronized boolean isEmpty() {
+    return memory.isEmpty() && spilled == 0;
+  }
+
+  /**
+   * @return the number of queued messages
+   */
+  synchronized int size() {
+    return memory.size() + spilled;
+  }
+
+  /**
+   * @return the number of messages spilled so far
+   */
+  synchronized long spilledTotal() {
+    return spilledTotal;
+  }
+
+  /**
+   * @return the number of messages dropped so far
+   */
+  synchronized long dropped() {
+    return dropped;
+  }
+
+  /**
+   * Queue a message.
+   *
+   * @return false when the message is dropped
+   */
+  synchronized boolean add(OutboundMessage message) {
+    if (closed) {
+      dropped++;
+      return false;
+    }
+    // Once a message is spilled, the newer ones are spilled too so they are drained in order
+    if (spilled == 0 && memory.size() < maxInMemory) {
+      memory.add(message);
+      return true;
+    }
+    if (spill != null && spilled < maxSpilled) {
+      spilled++;
+      spilledTotal++;
+      spillThread.execute(() -> write(message));
+      return true;
+    }
+    dropped++;
+    return false;
+  }
+
+  /**
+   * Append a message to the spill file, called on the spill thread.
+   */
+  private void write(OutboundMessage message) {
+    byte[] chatId = message.chatId != null ? message.chatId.getBytes(StandardCharsets.UTF_8) : null;
+    byte[] body = message.body != null ? message.body.getBytes(StandardCharsets.UTF_8) : null;
+    ByteBuffer record = ByteBuffer.allocate(8 + (chatId != null ? chatId.length : 0) + (body != null ? body.length : 0));
+    putString(record, chatId);
+    putString(record, body);
+    record.flip();
+    long pos = writePos;
+    try {
+      while (record.hasRemaining()) {
+        pos += spill.write(record, pos);
+      }
+      writePos = pos;
+      unread++;
+    } catch (IOException e) {
+      // Discard what a partial write may have left so the next record follows the last complete one
+      try {
+        spill.truncate(writePos);
+      } catch (IOException ignore) {
+      }
+      synchronized (this) {
+        spilled--;
+        spilledTotal--;
+        dropped++;
+      }
+      failed(e);
+    }
+  }
+
+  private static void putString(ByteBuffer buffer, byte[] bytes) {
+    if (bytes != null) {
+      buffer.putInt(bytes.length);
+      buffer.put(bytes);
+    } else {
+      buffer.putInt(-1);
+    }
+  }
+
+  /**
+   * @return the oldest message or {@code null} when the queue is empty
+   */
+  synchronized OutboundMessage poll() {
+    OutboundMessage message = memory.poll();
+    // Refill ahead so the drain does not wait for the spill thread, a null message is then only transient
+    if (spilled > 0 && !refilling && !closed && memory.size() < Math.max(1, maxInMemory / 2)) {
+      refilling = true;
+      spillThread.execute(this::refill);
+    }
+    return message;
+  }
+
+  /**
+   * Read the spilled messages back into the memory queue, called on the spill thread.
+   */
+  private void refill() {
+    List<OutboundMessage> messages = new ArrayList<>();
+    int room;
+    synchronized (this) {
+      room = Math.max(1, maxInMemory) - memory.size();
+    }
+    try {
+      while (unread > 0 && messages.size() < room) {
+        String chatId = readString();
+        String body = readString();
+        messages.add(new OutboundMessage(chatId, body));
+        unread--;
+      }
+      if (unread == 0) {
+        readPos = 0;
+        writePos = 0;
+        spill.truncate(0);
+      }
+    } catch (IOException e) {
+      // The unread spilled messages are lost
+      synchronized (this) {
+        spilled -= unread;
+        dropped += unread;
+      }
+      unread = 0;
+      readPos = 0;
+      writePos = 0;
+      try {
+        spill.truncate(0);
+      } catch (IOException ignore) {
+      }
+      failed(e);
+    }
+    synchronized (this) {
+      memory.addAll(messages);
+      spilled -= messages.size();
+      refilling = false;
+      if (closed) {
+        return;
+      }
+    }
+    context.runOnContext(v -> refillHandler.run());
+  }
+
+  private void failed(IOException e) {
+    context.runOnContext(v -> {
+      throw new VertxException(e);
+    });
+  }
+
+  private String readString() throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(4);
+    readFully(header);
+    int length = header.getInt(0);
+    if (length < 0) {
+      return null;
+    }
+    ByteBuffer bytes = ByteBuffer.allocate(length);
+    readFully(bytes);
+    return new String(bytes.array(), StandardCharsets.UTF_8);
+  }
+
+  private void readFully(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = spill.read(buffer, readPos);
+      if (read < 0) {
+        throw new IOException("Truncated spill file");
+      }
+      readPos += read;
+    }
+  }
+
+  synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (spill != null) {
+      // The pending writes complete before the spill file is closed and unlocked
+      spillThread.execute(() -> {
+        try {
+          spill.close();
+        } catch (IOException ignore) {
+        }
+      });
+      spillThread.shutdown();
+    }
+  }
+}
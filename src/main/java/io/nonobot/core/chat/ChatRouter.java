@@ -37,6 +37,16 @@ public interface ChatRouter {
    */
   ChatHandler when(String pattern, Handler<Message> handler);
 
+  /**
+   * Like {@link #when(String, Handler)} with handler options.
+   *
+   * @param pattern the matching pattern
+   * @param options the handler options
+   * @param handler the message handler
+   * @return the message handler object
+   */
+  ChatHandler when(String pattern, HandlerOptions options, Handler<Message> handler);
+
   /**
    * Add a message handler triggered when the {@code pattern} prepended with the bot name is fully matched,
    * the pattern is a {@code java.util.regex}.
@@ -47,6 +57,16 @@ public interface ChatRouter {
    */
   ChatHandler respond(String pattern, Handler<Message> handler);
 
+  /**
+   * Like {@link #respond(String, Handler)} with handler options.
+   *
+   * @param pattern the matching pattern
+   * @param options the handler options
+   * @param handler the message handler
+   * @return the message handler object
+   */
+  ChatHandler respond(String pattern, HandlerOptions options, Handler<Message> handler);
+
   /**
    * Send a message to a target.
    *
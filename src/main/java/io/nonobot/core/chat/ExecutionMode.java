@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * Where a message handler is executed.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@VertxGen
+public enum ExecutionMode {
+
+  /**
+   * Execute the handler on the event loop dispatching the message, the handler must not block.
+   */
+  EVENT_LOOP,
+
+  /**
+   * Execute the handler on a thread of a named worker pool, the handler can block.
+   */
+  WORKER,
+
+  /**
+   * Execute each invocation of the handler on its own virtual thread, the handler can block. The number of concurrent
+   * invocations is capped per bot. On a JVM without virtual threads the invocations run on platform threads.
+   */
+  VIRTUAL_THREAD
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The options of a message handler.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@DataObject
+public class HandlerOptions {
+
+  public static final ExecutionMode DEFAULT_EXECUTION_MODE = ExecutionMode.EVENT_LOOP;
+  public static final String DEFAULT_WORKER_POOL_NAME = "nonobot-worker";
+  public static final int DEFAULT_WORKER_POOL_SIZE = 8;
+  public static final int DEFAULT_WORKER_POOL_MAX_QUEUED = 1000;
+  public static final boolean DEFAULT_ASYNC = false;
+  public static final long DEFAULT_ASYNC_TIMEOUT = 30000;
+  public static final int DEFAULT_MAX_IN_FLIGHT = 0;
+  public static final int DEFAULT_MAX_QUEUED = 1000;
+
+  private ExecutionMode executionMode;
+  private String workerPoolName;
+  private int workerPoolSize;
+  private int workerPoolMaxQueued;
+  private boolean async;
+  private long asyncTimeout;
+  private int maxInFlight;
+  private int maxQueued;
+
+  public HandlerOptions() {
+    executionMode = DEFAULT_EXECUTION_MODE;
+    workerPoolName = DEFAULT_WORKER_POOL_NAME;
+    workerPoolSize = DEFAULT_WORKER_POOL_SIZE;
+    workerPoolMaxQueued = DEFAULT_WORKER_POOL_MAX_QUEUED;
+    async = DEFAULT_ASYNC;
+    asyncTimeout = DEFAULT_ASYNC_TIMEOUT;
+    maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    maxQueued = DEFAULT_MAX_QUEUED;
+  }
+
+  public HandlerOptions(JsonObject json) {
+    executionMode = ExecutionMode.valueOf(json.getString("executionMode", DEFAULT_EXECUTION_MODE.name()));
+    workerPoolName = json.getString("workerPoolName", DEFAULT_WORKER_POOL_NAME);
+    workerPoolSize = json.getInteger("workerPoolSize", DEFAULT_WORKER_POOL_SIZE);
+    workerPoolMaxQueued = json.getInteger("workerPoolMaxQueued", DEFAULT_WORKER_POOL_MAX_QUEUED);
+    async = json.getBoolean("async", DEFAULT_ASYNC);
+    asyncTimeout = json.getLong("asyncTimeout", DEFAULT_ASYNC_TIMEOUT);
+    maxInFlight = json.getInteger("maxInFlight", DEFAULT_MAX_IN_FLIGHT);
+    maxQueued = json.getInteger("maxQueued", DEFAULT_MAX_QUEUED);
+  }
+
+  public HandlerOptions(HandlerOptions that) {
+    executionMode = that.executionMode;
+    workerPoolName = that.workerPoolName;
+    workerPoolSize = that.workerPoolSize;
+    workerPoolMaxQueued = that.workerPoolMaxQueued;
+    async = that.async;
+    asyncTimeout = that.asyncTimeout;
+    maxInFlight = that.maxInFlight;
+    maxQueued = that.maxQueued;
+  }
+
+  public ExecutionMode getExecutionMode() {
+    return executionMode;
+  }
+
+  /**
+   * Set where the handler is executed, handlers performing blocking work should use {@link ExecutionMode#WORKER}.
+   *
+   * @param executionMode the execution mode
+   * @return this object so it can be used fluently
+   */
+  public HandlerOptions setExecutionMode(ExecutionMode executionMode) {
+    this.executionMode = executionMode;
+    return this;
+  }
+
+  public String getWorkerPoolName() {
+    return workerPoolName;
+  }
+
+  /**
+   * Set the name of the worker pool executing the handler in the {@link ExecutionMode#WORKER} mode, the handlers of
+   * a router using the same name share the pool.
+   *
+   * @param workerPoolName the worker pool name
+   * @return this object so it can be used fluently
+   */
+  public HandlerOptions setWorkerPoolName(String workerPoolName) {
+    this.workerPoolName = workerPoolName;
+    return this;
+  }
+
+  public int getWorkerPoolSize() {
+    return workerPoolSize;
+  }
+
+  /**
+   * Set the number of threads of the worker pool, only the handler creating the pool configures it.
+   *
+   * @param workerPoolSize the number of threads
+   * @return this object so it can be used fluently
+   */
+  public HandlerOptions setWorkerPoolSize(int workerPoolSize) {
+    if (workerPoolSize < 1) {
+      throw new IllegalArgumentException("Invalid worker pool size " + workerPoolSize);
+    }
+    this.workerPoolSize = workerPoolSize;
+    return this;
+  }
+
+  public int getWorkerPoolMaxQueued() {
+    return workerPoolMaxQueued;
+  }
+
+  /**
+   * Set the maximum number of messages waiting for a thread of the worker pool, a message received when the pool
+   * queue is full is failed with a {@code BusyException}. Only the handler creating the pool configures it.
+   *
+   * @param workerPoolMaxQueued the maximum number of queued messages
+   * @return this object so it can be used fluently
+   */
+  public HandlerOptions setWorkerPoolMaxQueued(int workerPoolMaxQueued) {
+    if (workerPoolMaxQueued < 0) {
+      throw new IllegalArgumentException("Invalid worker pool max queued " + workerPoolMaxQueued);
+    }
+    this.workerPoolMaxQueued = workerPoolMaxQueued;
+    return this;
+  }
+
+  public boolean isAsync() {
+    return async;
+  }
+
+  /**
+   * Set whether the handler is asynchronous: the invocation of an asynchronous handler is done when the handler
+   * replies, completes or fails the message instead of when the handler returns. The concurrency limits and the
+   * handler metrics account for the whole invocation.
+   *
+   * @param async true for an asynchronous handler
+   * @return this object so it can be used fluently
+   */
+  public HandlerOptions setAsync(boolean async) {
+    this.async = async;
+    return this;
+  }
+
+  public long getAsyncTimeout() {
+    return asyncTimeout;
+  }
+
+  /**
+   * Set the time after which the invocation of an asynchronous handler that is not done is failed.
+   *
+   * @param asyncTimeout the timeout in milliseconds
+   * @return this object so it can be used fluently
+   */
+  public HandlerOptions setAsyncTimeout(long asyncTimeout) {
+    if (asyncTimeout < 1) {
+      throw new IllegalArgumentException("Invalid async timeout " + asyncTimeout);
+    }
+    this.asyncTimeout = asyncTimeout;
+    return this;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  /**
+   * Set the maximum number of concurrent invocations of the handler, the extra invocations wait until an invocation
+   * is done, see {@link #setMaxQueued(int)}. Zero does not limit the invocations.
+   *
+   * @param maxInFlight the maximum number of concurrent invocations
+   * @return this object so it can be used fluently
+   */
+  public HandlerOptions setMaxInFlight(int maxInFlight) {
+    if (maxInFlight < 0) {
+      throw new IllegalArgumentException("Invalid max in flight " + maxInFlight);
+    }
+    this.maxInFlight = maxInFlight;
+    return this;
+  }
+
+  public int getMaxQueued() {
+    return maxQueued;
+  }
+
+  /**
+   * Set the maximum number of invocations waiting when the handler reached its maximum number of concurrent
+   * invocations, a message received when the queue is full is failed with a {@code BusyException}. Zero rejects
+   * the messages immediately.
+   *
+   * @param maxQueued the maximum number of waiting invocations
+   * @return this object so it can be used fluently
+   */
+  public HandlerOptions setMaxQueued(int maxQueued) {
+    if (maxQueued < 0) {
+      throw new IllegalArgumentException("Invalid max queued " + maxQueued);
+    }
+    this.maxQueued = maxQueued;
+    return this;
+  }
+}
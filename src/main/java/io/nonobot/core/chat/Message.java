@@ -16,6 +16,7 @@
 
 package io.nonobot.core.chat;
 
+import io.vertx.codegen.annotations.GenIgnore;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
@@ -71,4 +72,28 @@ public interface Message {
    */
   void reply(String msg, long ackTimeout, Handler<AsyncResult<Void>> ackHandler);
 
+  /**
+   * Reply to the message and block until the reply is acknowledged, this is meant for the handlers executed on a
+   * worker or on a virtual thread and cannot be called from an event loop thread.
+   *
+   * @param msg the reply
+   * @param ackTimeout the acknowledgement timeout
+   * @throws io.vertx.core.VertxException when the reply is not acknowledged
+   */
+  @GenIgnore
+  void replyAndAwait(String msg, long ackTimeout);
+
+  /**
+   * Signal the handler is done with the message, an asynchronous handler must reply, complete or fail each message
+   * it handles. This has no effect for the other handlers.
+   */
+  void complete();
+
+  /**
+   * Signal the handler failed to handle the message, see {@link #complete()}.
+   *
+   * @param cause the failure cause
+   */
+  void fail(Throwable cause);
+
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the work a router accepts: the number of queued messages and the number of in flight handler invocations.
+ * A dispatch queue that cannot start an invocation waits until another invocation is done.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class Admission {
+
+  final int maxInFlight;
+  final int maxQueued;
+  final AtomicInteger queued = new AtomicInteger();
+  final AtomicInteger inFlight = new AtomicInteger();
+  final LongAdder shed = new LongAdder();
+  private final Queue<DispatchQueue> waiters = new ConcurrentLinkedQueue<>();
+
+  Admission(int maxInFlight, int maxQueued) {
+    this.maxInFlight = maxInFlight;
+    this.maxQueued = maxQueued;
+  }
+
+  /**
+   * @return true if a message can be queued, it must then be {@link #dequeued()} once taken from its queue
+   */
+  boolean tryEnqueue() {
+    while (true) {
+      int current = queued.get();
+      if (current >= maxQueued) {
+        return false;
+      }
+      if (queued.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  void dequeued() {
+    queued.decrementAndGet();
+  }
+
+  /**
+   * Try to start an handler invocation, when it is not possible the {@code queue} is woken up by the next
+   * {@link #release()}.
+   *
+   * @return true if the invocation can start, it must then be {@link #release() released} once done
+   */
+  boolean acquire(DispatchQueue queue) {
+    if (tryAcquire()) {
+      return true;
+    }
+    waiters.add(queue);
+    // An invocation may have been released in the meantime, a spurious wake up is harmless
+    if (tryAcquire()) {
+      waiters.remove(queue);
+      return true;
+    }
+    return false;
+  }
+
+  private boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= maxInFlight) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  void release() {
+    inFlight.decrementAndGet();
+    DispatchQueue waiter = waiters.poll();
+    if (waiter != null) {
+      waiter.wakeUp();
+    }
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable Aho-Corasick automaton finding in a single pass which of a set of literals occur in a text.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class AhoCorasick {
+
+  interface HitHandler {
+    void hit(int literal);
+  }
+
+  private static final int[] NO_OUTPUT = new int[0];
+
+  private final char[][] edgeChars;
+  private final int[][] edgeTargets;
+  private final int[] fail;
+  private final int[][] outputs;
+
+  /**
+   * Build the automaton, the index of each literal in the array is the id reported when it is found.
+   *
+   * @param literals the non empty literals
+   */
+  AhoCorasick(String[] literals) {
+
+    // Build the trie
+    List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+    List<List<Integer>> terminals = new ArrayList<>();
+    trie.add(new TreeMap<>());
+    terminals.add(new ArrayList<>());
+    for (int id = 0;id < literals.length;id++) {
+      int node = 0;
+      String literal = literals[id];
+      for (int i = 0;i < literal.length();i++) {
+        Integer next = trie.get(node).get(literal.charAt(i));
+        if (next == null) {
+          next = trie.size();
+          trie.add(new TreeMap<>());
+          terminals.add(new ArrayList<>());
+          trie.get(node).put(literal.charAt(i), next);
+        }
+        node = next;
+      }
+      terminals.get(node).add(id);
+    }
+
+    // Freeze the trie into sorted arrays
+    int size = trie.size();
+    edgeChars = new char[size][];
+    edgeTargets = new int[size][];
+    for (int node = 0;node < size;node++) {
+      TreeMap<Character, Integer> edges = trie.get(node);
+      char[] chars = new char[edges.size()];
+      int[] targets = new int[edges.size()];
+      int index = 0;
+      for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+        chars[index] = edge.getKey();
+        targets[index++] = edge.getValue();
+      }
+      edgeChars[node] = chars;
+      edgeTargets[node] = targets;
+    }
+
+    // Compute failure links and outputs breadth first, so a failure target is always processed before its sources
+    fail = new int[size];
+    outputs = new int[size][];
+    outputs[0] = toArray(terminals.get(0), NO_OUTPUT);
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    for (int target : edgeTargets[0]) {
+      fail[target] = 0;
+      queue.add(target);
+    }
+    while (!queue.isEmpty()) {
+      int node = queue.poll();
+      if (node != 0) {
+        outputs[node] = toArray(terminals.get(node), outputs[fail[node]]);
+      }
+      for (int index = 0;index < edgeChars[node].length;index++) {
+        char c = edgeChars[node][index];
+        int target = edgeTargets[node][index];
+        int state = fail[node];
+        int next;
+        while ((next = transition(state, c)) < 0 && state != 0) {
+          state = fail[state];
+        }
+        fail[target] = next >= 0 && node != 0 ? next : 0;
+        queue.add(target);
+      }
+    }
+  }
+
+  private static int[] toArray(List<Integer> own, int[] inherited) {
+    if (own.isEmpty()) {
+      return inherited;
+    }
+    int[] array = Arrays.copyOf(inherited, inherited.length + own.size());
+    for (int i = 0;i < own.size();i++) {
+      array[inherited.length + i] = own.get(i);
+    }
+    return array;
+  }
+
+  private int transition(int node, char c) {
+    int index = Arrays.binarySearch(edgeChars[node], c);
+    return index >= 0 ? edgeTargets[node][index] : -1;
+  }
+
+  /**
+   * Scan the {@code text} and report each literal occurrence to the {@code handler}, a literal is reported
+   * as many times as it occurs.
+   *
+   * @param text the text to scan
+   * @param handler the hit handler
+   */
+  void scan(CharSequence text, HitHandler handler) {
+    int state = 0;
+    for (int i = 0;i < text.length();i++) {
+      char c = text.charAt(i);
+      int next;
+      while ((next = transition(state, c)) < 0 && state != 0) {
+        state = fail[state];
+      }
+      state = next >= 0 ? next : 0;
+      for (int literal : outputs[state]) {
+        handler.hit(literal);
+      }
+    }
+  }
+}
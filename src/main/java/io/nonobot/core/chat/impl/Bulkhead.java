@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the concurrent invocations of a message handler: an invocation exceeding {@code maxInFlight} waits in a
+ * queue of {@code maxQueued} invocations, beyond that it is rejected. A zero {@code maxInFlight} does not bound
+ * the handler, the bulkhead then only records the handler metrics.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class Bulkhead {
+
+  private final int maxInFlight;
+  private final int maxQueued;
+  private final ArrayDeque<ChatRouterImpl.MessageImpl> waiters = new ArrayDeque<>();
+  private int inFlight;
+  final LongAdder invocations = new LongAdder();
+  final LongAdder completed = new LongAdder();
+  final LongAdder failed = new LongAdder();
+  final LongAdder rejected = new LongAdder();
+  final LongAdder totalTime = new LongAdder();
+
+  Bulkhead(int maxInFlight, int maxQueued) {
+    this.maxInFlight = maxInFlight > 0 ? maxInFlight : Integer.MAX_VALUE;
+    this.maxQueued = maxQueued;
+  }
+
+  /**
+   * Start the invocation or queue it until an invocation is done.
+   *
+   * @return false when the invocation is rejected
+   */
+  boolean start(ChatRouterImpl.MessageImpl message) {
+    synchronized (this) {
+      if (inFlight >= maxInFlight) {
+        if (waiters.size() >= maxQueued) {
+          rejected.increment();
+          return false;
+        }
+        waiters.add(message);
+        return true;
+      }
+      inFlight++;
+    }
+    invocations.increment();
+    message.start();
+    return true;
+  }
+
+  /**
+   * Signal an invocation is done, the next waiting invocation is resumed on its context.
+   *
+   * @param time the invocation duration in nanoseconds
+   */
+  void done(long time, boolean succeeded) {
+    (succeeded ? completed : failed).increment();
+    totalTime.add(time);
+    ChatRouterImpl.MessageImpl next;
+    synchronized (this) {
+      next = waiters.poll();
+      if (next == null) {
+        inFlight--;
+        return;
+      }
+    }
+    invocations.increment();
+    next.resume();
+  }
+
+  synchronized int inFlight() {
+    return inFlight;
+  }
+
+  synchronized int queued() {
+    return waiters.size();
+  }
+
+  JsonObject metrics() {
+    return new JsonObject().
+        put("inFlight", inFlight()).
+        put("queued", queued()).
+        put("invocations", invocations.sum()).
+        put("completed", completed.sum()).
+        put("failed", failed.sum()).
+        put("rejected", rejected.sum()).
+        put("totalTime", totalTime.sum());
+  }
+}
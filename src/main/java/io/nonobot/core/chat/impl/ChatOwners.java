@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The clients owning chats, keyed by chat id or by chat id prefix. A lookup first tries the chat id and then the
+ * longest claimed prefix of the chat id.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class ChatOwners {
+
+  private static final String[][] NO_PREFIXES = new String[0][];
+
+  private final Map<String, String> chats = new ConcurrentHashMap<>();
+
+  // Pairs of (prefix, address) sorted by decreasing prefix length, replaced on each update
+  private volatile String[][] prefixes = NO_PREFIXES;
+
+  /**
+   * @return the address of the client owning the {@code chatId} or {@code null}
+   */
+  String owner(String chatId) {
+    if (chatId == null) {
+      return null;
+    }
+    String address = chats.get(chatId);
+    if (address == null) {
+      for (String[] prefix : prefixes) {
+        if (chatId.startsWith(prefix[0])) {
+          return prefix[1];
+        }
+      }
+    }
+    return address;
+  }
+
+  /**
+   * Record the chat ids and the chat id prefixes claimed by the client at {@code address}, a claim replaces any
+   * previous claim of another client.
+   */
+  synchronized void claim(String address, List<String> chatIds, List<String> chatIdPrefixes) {
+    for (String chatId : chatIds) {
+      chats.put(chatId, address);
+    }
+    if (chatIdPrefixes.size() > 0) {
+      List<String[]> list = new ArrayList<>();
+      for (String[] prefix : prefixes) {
+        if (!chatIdPrefixes.contains(prefix[0])) {
+          list.add(prefix);
+        }
+      }
+      for (String prefix : chatIdPrefixes) {
+        list.add(new String[]{prefix, address});
+      }
+      update(list);
+    }
+  }
+
+  /**
+   * Forget the chats owned by the client at {@code address}.
+   */
+  synchronized void release(String address) {
+    chats.values().removeIf(address::equals);
+    List<String[]> list = new ArrayList<>(Arrays.asList(prefixes));
+    if (list.removeIf(prefix -> prefix[1].equals(address))) {
+      update(list);
+    }
+  }
+
+  private void update(List<String[]> list) {
+    list.sort(Comparator.comparingInt((String[] prefix) -> prefix[0].length()).reversed());
+    prefixes = list.toArray(NO_PREFIXES);
+  }
+}
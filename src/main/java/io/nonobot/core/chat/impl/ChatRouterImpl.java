@@ -16,24 +16,51 @@
 
 package io.nonobot.core.chat.impl;
 
+import io.nonobot.core.BotOptions;
+import io.nonobot.core.SheddingPolicy;
 import io.nonobot.core.chat.Message;
 import io.nonobot.core.chat.ChatHandler;
 import io.nonobot.core.chat.ChatRouter;
+import io.nonobot.core.chat.HandlerOptions;
 import io.nonobot.core.chat.SendOptions;
+import io.nonobot.core.impl.EnvelopeCodecs;
+import io.nonobot.core.impl.InboundMessage;
+import io.nonobot.core.impl.Membership;
+import io.nonobot.core.impl.OutboundMessage;
+import io.nonobot.core.impl.Replier;
+import io.nonobot.core.journal.EntryType;
+import io.nonobot.core.journal.Journal;
+import io.nonobot.core.timer.Timeout;
+import io.nonobot.core.timer.TimerWheel;
+import io.vertx.core.AbstractVerticle;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
 import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -42,6 +69,27 @@ import java.util.regex.Pattern;
  */
 public class ChatRouterImpl implements ChatRouter {
 
+  /**
+   * The reply header signaling the router has no handler matching a message, its value is the number of routers
+   * for the bot on the router node.
+   */
+  public static final String NO_MATCH_HEADER = "nonobot.nomatch";
+
+  /**
+   * The reply header correlating a reply with the received message.
+   */
+  public static final String CORRELATION_HEADER = "nonobot.correlation";
+
+  /**
+   * The reply header signaling the router shed the message.
+   */
+  public static final String BUSY_HEADER = "nonobot.busy";
+
+  /**
+   * The reply of the {@link SheddingPolicy#REPLY_BUSY} policy.
+   */
+  public static final String BUSY_REPLY = "I'm busy right now, please try again later";
+
   static final class Key {
 
     final Vertx vertx;
@@ -64,6 +112,18 @@ public class ChatRouterImpl implements ChatRouter {
 
   static final ConcurrentMap<Key, ChatRouterImpl> routers = new ConcurrentHashMap<>();
 
+  /**
+   * The live routers of this JVM keyed by Vert.x instance and bot name.
+   */
+  static final ConcurrentMap<Key, List<ChatRouterImpl>> registry = new ConcurrentHashMap<>();
+
+  /**
+   * @return the routers of the bot {@code name} living in the Vert.x instance
+   */
+  public static List<ChatRouterImpl> localRouters(Vertx vertx, String name) {
+    return registry.getOrDefault(new Key(vertx, name), Collections.emptyList());
+  }
+
   public static ChatRouter getShared(Vertx vertx, String name, Handler<AsyncResult<Void>> initHandler) {
     ChatRouterImpl router = routers.computeIfAbsent(new Key(vertx, name), key -> new ChatRouterImpl(key.vertx, key.name));
     if (initHandler != null) {
@@ -74,16 +134,99 @@ public class ChatRouterImpl implements ChatRouter {
   }
 
   final Vertx vertx;
-  final MessageConsumer<JsonObject> consumer;
-  final List<MessageHandlerImpl> messageHandlers = new ArrayList<>();
+  final Key key;
+  final MessageConsumer<Object> consumer;
+  final MessageConsumer<JsonObject> ownershipConsumer;
+  final String partitionAddress;
+  final MessageConsumer<Object> partitionConsumer;
+  final Membership membership;
+  final ChatOwners owners = new ChatOwners();
+  final LongAdder indexedDispatches = new LongAdder();
+  final LongAdder fallbackDispatches = new LongAdder();
+  final LongAdder noMatches = new LongAdder();
+  final AtomicInteger handlerIds = new AtomicInteger();
+  final AtomicReference<Routes> routes = new AtomicReference<>(new Routes(indexedDispatches, fallbackDispatches));
   final List<Handler<AsyncResult<Void>>> initHandlers = new CopyOnWriteArrayList<>();
   final Future<Void> initFuture = Future.future();
   final String outboundAddress;
+  final Context context;
+  final Admission admission;
+  final SheddingPolicy sheddingPolicy;
+  final DispatchQueue[] queues;
+  final ConcurrentMap<String, WorkerPool> workerPools = new ConcurrentHashMap<>();
+  final VirtualThreads virtualThreads;
+  final TimerWheel timerWheel;
+  final String name;
+  final Journal journal;
+  final List<String> shardDeployments = new ArrayList<>();
+  boolean closed;
 
   public ChatRouterImpl(Vertx vertx, String name) {
-    this.consumer = vertx.eventBus().consumer("bots." + name + ".inbound", this::handle);
+    this(vertx, new BotOptions().setName(name));
+  }
+
+  public ChatRouterImpl(Vertx vertx, BotOptions options) {
+    String name = options.getName();
+    this.name = name;
     this.vertx = vertx;
+    this.key = new Key(vertx, name);
+    this.context = vertx.getOrCreateContext();
     this.outboundAddress = "bots." + name + ".outbound";
+    registry.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(this);
+    EnvelopeCodecs.register(vertx);
+
+    this.admission = new Admission(options.getMaxInFlight(), options.getMaxQueued());
+    this.sheddingPolicy = options.getSheddingPolicy();
+    this.timerWheel = TimerWheel.getShared(vertx);
+    this.virtualThreads = new VirtualThreads("nonobot-" + name, options.getMaxVirtualThreads());
+    this.journal = options.getJournalOptions() != null ? Journal.open(options.getJournalOptions()) : null;
+
+    // Each shard is drained by its own verticle, the verticle contexts are assigned to the event loops in round
+    // robin, a shard accumulates the messages until its verticle is deployed
+    if (options.getDispatchShards() > 1) {
+      queues = new DispatchQueue[options.getDispatchShards()];
+      for (int i = 0;i < queues.length;i++) {
+        DispatchQueue queue = new DispatchQueue(null, admission, options.getDirectLaneWeight(), options.getChatQuantum(), options.getMaxQueuedPerChat(), this::dispatch);
+        queues[i] = queue;
+        vertx.deployVerticle(new ShardVerticle(queue), ar -> {
+          if (ar.failed()) {
+            // Drain the shard on the router context instead
+            queue.start(context);
+            return;
+          }
+          synchronized (shardDeployments) {
+            if (!closed) {
+              shardDeployments.add(ar.result());
+              return;
+            }
+          }
+          vertx.undeploy(ar.result());
+        });
+      }
+    } else {
+      queues = new DispatchQueue[]{new DispatchQueue(context, admission, options.getDirectLaneWeight(), options.getChatQuantum(), options.getMaxQueuedPerChat(), this::dispatch)};
+    }
+
+    // Clients announce the chats they own, ask the existing clients to announce them again once we listen
+    this.ownershipConsumer = vertx.eventBus().consumer("bots." + name + ".ownership", this::handleOwnership);
+    ownershipConsumer.completionHandler(ar -> {
+      if (ar.succeeded()) {
+        vertx.eventBus().publish("bots." + name + ".ownership.sync", null);
+      }
+    });
+
+    // A partitioned router receives the messages of the chats it owns on its own address
+    if (options.isPartitioned()) {
+      partitionAddress = "bots." + name + ".inbound." + UUID.randomUUID();
+      partitionConsumer = vertx.eventBus().consumer(partitionAddress, msg -> handle(msg, 1));
+      membership = new Membership(vertx, name, partitionAddress, options.getHeartbeatPeriod());
+    } else {
+      partitionAddress = null;
+      partitionConsumer = null;
+      membership = null;
+    }
+
+    this.consumer = vertx.eventBus().consumer("bots." + name + ".inbound", this::handle);
 
     consumer.completionHandler(ar -> {
       if (ar.succeeded()) {
@@ -111,106 +254,744 @@ public class ChatRouterImpl implements ChatRouter {
     return this;
   }
 
-  private void handle(io.vertx.core.eventbus.Message<JsonObject> message) {
+  private void handleOwnership(io.vertx.core.eventbus.Message<JsonObject> message) {
     JsonObject body = message.body();
-    boolean respond = body.getBoolean("respond");
-    String content = body.getString("content");
-    String replyAddress = body.getString("replyAddress");
-    String chatId = body.getString("chatId");
-    for (MessageHandlerImpl handler : messageHandlers) {
-      if (handler.respond == respond) {
-        Matcher matcher = handler.pattern.matcher(content);
-        if (matcher.matches()) {
-          handler.handler.handle(new Message() {
-            boolean replied;
-            @Override
-            public String chatId() {
-              return chatId;
-            }
-            @Override
-            public String body() {
-              return content;
-            }
-            @Override
-            public String matchedGroup(int index) {
-              if (index > 0 && index <= matcher.groupCount()) {
-                return matcher.group(index);
-              } else {
-                return null;
-              }
-            }
-            @Override
-            public void reply(String msg) {
-              reply(msg, null);
-            }
-            @Override
-            public void reply(String msg, Handler<AsyncResult<Void>> ackHandler) {
-              reply(msg, DeliveryOptions.DEFAULT_TIMEOUT, ackHandler);
-            }
-            @Override
-            public void reply(String msg, long ackTimeout, Handler<AsyncResult<Void>> ackHandler) {
-              if (!replied) {
-                replied = true;
-                if (ackHandler != null) {
-                  vertx.eventBus().send(replyAddress, msg, new DeliveryOptions().setSendTimeout(ackTimeout), ack -> {
-                    if (ack.succeeded()) {
-                      ackHandler.handle(Future.succeededFuture());
-                    } else {
-                      ackHandler.handle(Future.failedFuture(ack.cause()));
-                    }
-                  });
-                } else {
-                  vertx.eventBus().send(replyAddress, msg);
-                }
-              } else if (ackHandler != null) {
-                ackHandler.handle(Future.failedFuture("Already replied"));
-              }
+    String address = body.getString("address");
+    if (body.getBoolean("release", false)) {
+      owners.release(address);
+    } else {
+      owners.claim(address, strings(body.getJsonArray("chatIds")), strings(body.getJsonArray("chatIdPrefixes")));
+    }
+  }
+
+  private static List<String> strings(JsonArray array) {
+    List<String> list = new ArrayList<>(array.size());
+    for (int i = 0;i < array.size();i++) {
+      list.add(array.getString(i));
+    }
+    return list;
+  }
+
+  private void handle(io.vertx.core.eventbus.Message<Object> message) {
+    if (membership != null) {
+      // Only the owner handles a broadcast message, unless there is no owner yet
+      InboundMessage inbound = InboundMessage.of(message.body());
+      String owner = membership.owner(inbound.chatId);
+      if (owner == null) {
+        handle(message, 0);
+      } else if (owner.equals(partitionAddress)) {
+        handle(message, 1);
+      }
+    } else {
+      handle(message, 0);
+    }
+  }
+
+  /**
+   * @param routers the number of routers handling the message, {@code 0} when all the routers of the node handle it
+   */
+  private void handle(io.vertx.core.eventbus.Message<Object> message, int routers) {
+    InboundMessage inbound = InboundMessage.of(message.body());
+    Replier replier = new EventBusReplier(inbound.replyAddress, routers);
+    submit(new DispatchTask(inbound.chatId, inbound.respond, inbound.content, inbound.correlationId, replier));
+  }
+
+  private void submit(DispatchTask task) {
+    if (journal != null) {
+      journal.append(EntryType.INBOUND, task.chatId, task.correlationId, task.respond, task.content);
+    }
+    int hash = task.chatId != null ? task.chatId.hashCode() : 0;
+    DispatchQueue queue = queues[(hash & 0x7FFFFFFF) % queues.length];
+    if (admission.tryEnqueue()) {
+      if (!queue.submit(task)) {
+        // The chat queue is full
+        admission.dequeued();
+        shed(queue, task, false);
+      }
+    } else {
+      shed(queue, task, true);
+    }
+  }
+
+  /**
+   * Shed a task when the queues are full.
+   *
+   * @param evict whether a queued ambient task can be evicted to make room for a direct task
+   */
+  private void shed(DispatchQueue queue, DispatchTask task, boolean evict) {
+    admission.shed.increment();
+    switch (sheddingPolicy) {
+      case DROP_AMBIENT:
+        if (task.respond) {
+          DispatchTask evicted = evict ? queue.evictAmbient() : null;
+          if (evicted != null) {
+            evicted.replier.noMatch(evicted.correlationId, registry.get(key).size());
+            if (queue.submit(task)) {
+              // The evicted task slot is reused
+              break;
             }
+            // The chat queue is full, the slot is given back
+            admission.dequeued();
+          }
+          task.replier.busy(task.correlationId);
+        } else {
+          task.replier.noMatch(task.correlationId, registry.get(key).size());
+        }
+        break;
+      case REPLY_BUSY:
+        if (task.respond) {
+          task.replier.reply(task.correlationId, BUSY_REPLY, DeliveryOptions.DEFAULT_TIMEOUT, null);
+        } else {
+          task.replier.noMatch(task.correlationId, registry.get(key).size());
+        }
+        break;
+      default:
+        task.replier.busy(task.correlationId);
+        break;
+    }
+  }
+
+  /**
+   * Receive a message from a client of the same Vert.x instance without going through the event bus, the message
+   * is queued like a message received from the event bus.
+   *
+   * @param chatId the chat id
+   * @param respond whether the message is addressed to the bot
+   * @param content the message content
+   * @param correlationId the message correlation id
+   * @param replier the replier of the client
+   */
+  public void receive(String chatId, boolean respond, String content, long correlationId, Replier replier) {
+    submit(new DispatchTask(chatId, respond, content, correlationId, replier));
+  }
+
+  /**
+   * @param release releases the admission of the task, called once the handler invocation is done
+   */
+  private void dispatch(DispatchTask task, Runnable release) {
+    MessageImpl message = null;
+    try {
+      RoutingTable table = routes.get().table(task.respond);
+      int index = table.match(task.content);
+      if (index >= 0) {
+        MessageHandlerImpl handler = table.handlers[index];
+        handler.matches.increment();
+        message = new MessageImpl(handler, task, handler.groups(), vertx.getOrCreateContext(), release);
+        if (!handler.bulkhead.start(message)) {
+          task.replier.busy(task.correlationId);
+          release.run();
+        }
+        return;
+      }
+    } catch (RuntimeException e) {
+      if (message == null) {
+        release.run();
+      }
+      throw e;
+    }
+    // Signal the client we did not handle the message, along with the number of routers that may handle it
+    // so the client can wait until all of them have answered, this count is only known for a partitioned router
+    // or when the routers are all in the same Vert.x instance
+    noMatches.increment();
+    task.replier.noMatch(task.correlationId, registry.get(key).size());
+    release.run();
+  }
+
+  private static final AtomicIntegerFieldUpdater<MessageImpl> DONE = AtomicIntegerFieldUpdater.newUpdater(MessageImpl.class, "done");
+
+  private static final int[] NO_GROUPS = new int[0];
+
+  /**
+   * A message dispatched to a handler, it tracks the handler invocation until it is done: when the handler returns
+   * or for the asynchronous handlers when the handler replies, completes or fails the message.
+   */
+  class MessageImpl implements Message {
+
+    private final MessageHandlerImpl handler;
+    private final DispatchTask task;
+    private final int[] groups;
+    private final Context context;
+    private final Runnable release;
+    volatile int done;
+    private boolean replied;
+    private long startTime;
+    private volatile Timeout timeout;
+
+    MessageImpl(MessageHandlerImpl handler, DispatchTask task, int[] groups, Context context, Runnable release) {
+      this.handler = handler;
+      this.task = task;
+      this.groups = groups;
+      this.context = context;
+      this.release = release;
+    }
+
+    /**
+     * Resume an invocation that waited in the handler bulkhead.
+     */
+    void resume() {
+      context.runOnContext(v -> start());
+    }
+
+    void start() {
+      startTime = System.nanoTime();
+      if (handler.async) {
+        timeout = timerWheel.schedule(handler.asyncTimeout, v -> fail(new VertxException("Handler timeout")));
+      }
+      HandlerExecutor executor = handler.executor;
+      if (executor == null) {
+        invoke();
+      } else if (!executor.execute(() -> {
+        try {
+          invoke();
+        } catch (Throwable t) {
+          fail(t);
+          // Let the dispatching context report the failure like for a handler executed on the event loop
+          context.runOnContext(v -> {
+            throw t instanceof RuntimeException ? (RuntimeException) t : new VertxException(t);
           });
-          return;
         }
+      })) {
+        handler.bulkhead.rejected.increment();
+        task.replier.busy(task.correlationId);
+        fail(new VertxException("Rejected"));
+      }
+    }
+
+    private void invoke() {
+      try {
+        handler.handler.handle(this);
+      } catch (RuntimeException e) {
+        fail(e);
+        throw e;
+      }
+      if (!handler.async) {
+        complete();
       }
     }
-    message.reply(null);
+
+    @Override
+    public String chatId() {
+      return task.chatId;
+    }
+
+    @Override
+    public String body() {
+      return task.content;
+    }
+
+    @Override
+    public String matchedGroup(int index) {
+      if (index > 0 && index <= groups.length / 2 && groups[index * 2 - 2] >= 0) {
+        return task.content.substring(groups[index * 2 - 2], groups[index * 2 - 1]);
+      } else {
+        return null;
+      }
+    }
+
+    @Override
+    public void reply(String msg) {
+      reply(msg, null);
+    }
+
+    @Override
+    public void reply(String msg, Handler<AsyncResult<Void>> ackHandler) {
+      reply(msg, DeliveryOptions.DEFAULT_TIMEOUT, ackHandler);
+    }
+
+    @Override
+    public void reply(String msg, long ackTimeout, Handler<AsyncResult<Void>> ackHandler) {
+      if (Vertx.currentContext() != context) {
+        // Replies of the handlers executed off the event loop are sent from the dispatching context
+        context.runOnContext(v -> reply(msg, ackTimeout, ackHandler));
+      } else if (!replied) {
+        replied = true;
+        handler.replyLatency.record(System.nanoTime() - task.receivedTime);
+        if (journal != null) {
+          journal.append(EntryType.REPLY, task.chatId, task.correlationId, task.respond, msg);
+        }
+        Handler<AsyncResult<Void>> ack = null;
+        if (ackHandler != null) {
+          ack = ar -> {
+            if (ar.failed()) {
+              handler.ackFailures.increment();
+            }
+            ackHandler.handle(ar);
+          };
+        }
+        task.replier.reply(task.correlationId, msg, ackTimeout, ack);
+        if (handler.async) {
+          complete();
+        }
+      } else if (ackHandler != null) {
+        ackHandler.handle(Future.failedFuture("Already replied"));
+      }
+    }
+
+    @Override
+    public void replyAndAwait(String msg, long ackTimeout) {
+      if (Context.isOnEventLoopThread()) {
+        throw new IllegalStateException("Cannot block an event loop thread");
+      }
+      CompletableFuture<Void> ack = new CompletableFuture<>();
+      reply(msg, ackTimeout, ar -> {
+        if (ar.succeeded()) {
+          ack.complete(null);
+        } else {
+          ack.completeExceptionally(ar.cause());
+        }
+      });
+      try {
+        ack.get();
+      } catch (ExecutionException e) {
+        throw new VertxException(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new VertxException(e);
+      }
+    }
+
+    @Override
+    public void complete() {
+      done(true);
+    }
+
+    @Override
+    public void fail(Throwable cause) {
+      done(false);
+    }
+
+    private void done(boolean succeeded) {
+      if (DONE.compareAndSet(this, 0, 1)) {
+        Timeout t = timeout;
+        if (t != null) {
+          t.cancel();
+        }
+        long time = System.nanoTime() - startTime;
+        handler.invocationLatency.record(time);
+        handler.bulkhead.done(time, succeeded);
+        release.run();
+      }
+    }
+  }
+
+  /**
+   * Sends the replies to the reply address of a client.
+   */
+  private class EventBusReplier implements Replier {
+
+    final String replyAddress;
+    final int routers;
+
+    EventBusReplier(String replyAddress, int routers) {
+      this.replyAddress = replyAddress;
+      this.routers = routers;
+    }
+
+    @Override
+    public void reply(long correlationId, String content, long ackTimeout, Handler<AsyncResult<Void>> ackHandler) {
+      DeliveryOptions options = new DeliveryOptions().addHeader(CORRELATION_HEADER, "" + correlationId);
+      if (ackHandler != null) {
+        vertx.eventBus().send(replyAddress, content, options.setSendTimeout(ackTimeout), ack -> {
+          if (ack.succeeded()) {
+            ackHandler.handle(Future.succeededFuture());
+          } else {
+            ackHandler.handle(Future.failedFuture(ack.cause()));
+          }
+        });
+      } else {
+        vertx.eventBus().send(replyAddress, content, options);
+      }
+    }
+
+    @Override
+    public void noMatch(long correlationId, int routers) {
+      if (this.routers == 0 && vertx.isClustered()) {
+        // The routers of the other nodes may handle the message, the client waits until the message times out
+        return;
+      }
+      vertx.eventBus().send(replyAddress, null, new DeliveryOptions().
+          addHeader(CORRELATION_HEADER, "" + correlationId).
+          addHeader(NO_MATCH_HEADER, "" + (this.routers > 0 ? this.routers : routers)));
+    }
+
+    @Override
+    public void busy(long correlationId) {
+      vertx.eventBus().send(replyAddress, null, new DeliveryOptions().
+          addHeader(CORRELATION_HEADER, "" + correlationId).
+          addHeader(BUSY_HEADER, "true"));
+    }
   }
 
   @Override
   public ChatHandler when(String pattern, Handler<Message> handler) {
-    MessageHandlerImpl messageHandler = new MessageHandlerImpl(false, Pattern.compile(pattern), handler);
-    messageHandlers.add(messageHandler);
-    return messageHandler;
+    return addHandler(new MessageHandlerImpl(false, Pattern.compile(pattern), new HandlerOptions(), null, handler));
+  }
+
+  @Override
+  public ChatHandler when(String pattern, HandlerOptions options, Handler<Message> handler) {
+    return addHandler(new MessageHandlerImpl(false, Pattern.compile(pattern), options, executor(options), handler));
   }
 
   @Override
   public ChatHandler respond(String pattern, Handler<Message> handler) {
-    MessageHandlerImpl messageHandler = new MessageHandlerImpl(true, Pattern.compile(pattern), handler);
-    messageHandlers.add(messageHandler);
+    return addHandler(new MessageHandlerImpl(true, Pattern.compile(pattern), new HandlerOptions(), null, handler));
+  }
+
+  @Override
+  public ChatHandler respond(String pattern, HandlerOptions options, Handler<Message> handler) {
+    return addHandler(new MessageHandlerImpl(true, Pattern.compile(pattern), options, executor(options), handler));
+  }
+
+  /**
+   * @return the executor of the handlers registered with the {@code options} or {@code null} for the event loop
+   *         handlers
+   */
+  private HandlerExecutor executor(HandlerOptions options) {
+    switch (options.getExecutionMode()) {
+      case WORKER:
+        return workerPools.computeIfAbsent(options.getWorkerPoolName(), name -> new WorkerPool(name, options.getWorkerPoolSize(), options.getWorkerPoolMaxQueued()));
+      case VIRTUAL_THREAD:
+        return virtualThreads;
+      default:
+        return null;
+    }
+  }
+
+  private ChatHandler addHandler(MessageHandlerImpl messageHandler) {
+    updateRoutes(current -> current.add(messageHandler));
     return messageHandler;
   }
 
+  /**
+   * Publish a new snapshot of the routes, the updates are serialized so each snapshot compiles its routing tables
+   * once.
+   */
+  private void updateRoutes(UnaryOperator<Routes> update) {
+    synchronized (routes) {
+      routes.set(update.apply(routes.get()));
+    }
+  }
+
+  /**
+   * @return the version of the current routes, incremented each time a handler is added or removed
+   */
+  public long routesVersion() {
+    return routes.get().version;
+  }
+
+  /**
+   * @return the number of messages addressed to the bot whose first token selected the indexed command handlers
+   */
+  public long indexedDispatches() {
+    return indexedDispatches.sum();
+  }
+
+  /**
+   * @return the number of messages addressed to the bot that could only be dispatched to the non indexed handlers
+   */
+  public long fallbackDispatches() {
+    return fallbackDispatches.sum();
+  }
+
+  /**
+   * @return the number of messages waiting in the dispatch queues
+   */
+  public int queuedMessages() {
+    return admission.queued.get();
+  }
+
+  /**
+   * @return the number of messages addressed to the bot waiting in the dispatch queues
+   */
+  public int directQueuedMessages() {
+    return queuedMessages(true);
+  }
+
+  /**
+   * @return the number of ambient messages waiting in the dispatch queues
+   */
+  public int ambientQueuedMessages() {
+    return queuedMessages(false);
+  }
+
+  private int queuedMessages(boolean respond) {
+    int size = 0;
+    for (DispatchQueue queue : queues) {
+      size += queue.size(respond);
+    }
+    return size;
+  }
+
+  /**
+   * @return the number of chats with messages waiting in the dispatch queues
+   */
+  public int queuedChats() {
+    int chats = 0;
+    for (DispatchQueue queue : queues) {
+      chats += queue.chats();
+    }
+    return chats;
+  }
+
+  /**
+   * @return the number of handler invocations in flight
+   */
+  public int inFlightMessages() {
+    return admission.inFlight.get();
+  }
+
+  /**
+   * @return the number of messages shed since the router was created
+   */
+  public long shedMessages() {
+    return admission.shed.sum();
+  }
+
+  /**
+   * @return the number of messages that matched no handler of this router
+   */
+  public long noMatchMessages() {
+    return noMatches.sum();
+  }
+
+  /**
+   * @return the metrics of the worker pool {@code name}: its {@code size}, the number of {@code active} threads,
+   *         the number of {@code queued}, {@code completed} and {@code rejected} messages or {@code null} when
+   *         there is no such pool
+   */
+  public JsonObject workerPoolMetrics(String name) {
+    WorkerPool pool = workerPools.get(name);
+    return pool != null ? pool.metrics() : null;
+  }
+
+  /**
+   * @return the metrics of a handler of this router: the number of {@code inFlight} and {@code queued} invocations,
+   *         the number of {@code invocations}, the number of {@code completed}, {@code failed} and {@code rejected}
+   *         messages, the {@code totalTime} of the invocations in nanoseconds, the number of {@code matches} and
+   *         of {@code ackFailures} of the replies, the handler {@code id}, {@code pattern} and {@code kind} and the
+   *         summaries of the {@code invocationLatency} and of the {@code replyLatency}, see
+   *         {@link LatencyHistogram#summary()}
+   */
+  public JsonObject handlerMetrics(ChatHandler handler) {
+    MessageHandlerImpl impl = (MessageHandlerImpl) handler;
+    return impl.bulkhead.metrics().
+        put("matches", impl.matches.sum()).
+        put("ackFailures", impl.ackFailures.sum()).
+        put("id", impl.id).
+        put("pattern", impl.pattern.pattern()).
+        put("kind", impl.respond ? "respond" : "when").
+        put("invocationLatency", impl.invocationLatency.summary()).
+        put("replyLatency", impl.replyLatency.summary());
+  }
+
+  /**
+   * @return the handlers of this router in registration order
+   */
+  public List<ChatHandler> handlers() {
+    return Collections.unmodifiableList(Arrays.asList(routes.get().handlers));
+  }
+
+  /**
+   * @return the content type of the {@link #prometheusMetrics()}
+   */
+  public static String prometheusContentType() {
+    return PrometheusWriter.CONTENT_TYPE;
+  }
+
+  /**
+   * @return the router and handler metrics in the Prometheus text format, the handlers are labelled by id, kind
+   *         and pattern
+   */
+  public String prometheusMetrics() {
+    String[] labels = {"bot", name};
+    PrometheusWriter writer = new PrometheusWriter().
+        family("nonobot_messages_no_match_total", "counter", "Messages that matched no handler.").
+        sample("nonobot_messages_no_match_total", labels, noMatches.sum()).
+        family("nonobot_messages_shed_total", "counter", "Messages shed by the router.").
+        sample("nonobot_messages_shed_total", labels, admission.shed.sum()).
+        family("nonobot_messages_queued", "gauge", "Messages waiting in the dispatch queues.").
+        sample("nonobot_messages_queued", labels, admission.queued.get()).
+        family("nonobot_messages_in_flight", "gauge", "Handler invocations in flight.").
+        sample("nonobot_messages_in_flight", labels, admission.inFlight.get());
+    MessageHandlerImpl[] handlers = routes.get().handlers;
+    String[][] handlerLabels = new String[handlers.length][];
+    for (int i = 0;i < handlers.length;i++) {
+      MessageHandlerImpl handler = handlers[i];
+      handlerLabels[i] = new String[]{"bot", name, "handler", "" + handler.id, "kind", handler.respond ? "respond" : "when", "pattern", handler.pattern.pattern()};
+    }
+    writer.family("nonobot_handler_matches_total", "counter", "Messages matched by the handler.");
+    for (int i = 0;i < handlers.length;i++) {
+      writer.sample("nonobot_handler_matches_total", handlerLabels[i], handlers[i].matches.sum());
+    }
+    writer.family("nonobot_handler_rejected_total", "counter", "Messages rejected by the handler bulkhead or executor.");
+    for (int i = 0;i < handlers.length;i++) {
+      writer.sample("nonobot_handler_rejected_total", handlerLabels[i], handlers[i].bulkhead.rejected.sum());
+    }
+    writer.family("nonobot_handler_reply_ack_failures_total", "counter", "Replies whose acknowledgement failed.");
+    for (int i = 0;i < handlers.length;i++) {
+      writer.sample("nonobot_handler_reply_ack_failures_total", handlerLabels[i], handlers[i].ackFailures.sum());
+    }
+    writer.family("nonobot_handler_invocation_seconds", "histogram", "Handler invocation latency.");
+    for (int i = 0;i < handlers.length;i++) {
+      writer.histogram("nonobot_handler_invocation_seconds", handlerLabels[i], handlers[i].invocationLatency);
+    }
+    writer.family("nonobot_handler_reply_seconds", "histogram", "Time from the message reception to the handler reply.");
+    for (int i = 0;i < handlers.length;i++) {
+      writer.histogram("nonobot_handler_reply_seconds", handlerLabels[i], handlers[i].replyLatency);
+    }
+    return writer.toString();
+  }
+
+  /**
+   * @return the metrics of the virtual thread handlers: whether the JVM provides {@code virtual} threads, the
+   *         maximum number of concurrent invocations as {@code size}, the number of {@code active} invocations and
+   *         the number of {@code rejected} messages
+   */
+  public JsonObject virtualThreadMetrics() {
+    return virtualThreads.metrics();
+  }
+
+  /**
+   * @return the journal of this router or {@code null} when it does not journal
+   */
+  public Journal journal() {
+    return journal;
+  }
+
+  /**
+   * @return the address of this router in the partitioned mode or {@code null}
+   */
+  public String partitionAddress() {
+    return partitionAddress;
+  }
+
+  /**
+   * @return the addresses of the partitioned routers known by this router
+   */
+  public List<String> partitionMembers() {
+    return membership != null ? membership.members() : Collections.emptyList();
+  }
+
+  /**
+   * @return the address of the client owning the {@code chatId} or {@code null} when no client claimed it
+   */
+  public String chatOwner(String chatId) {
+    return owners.owner(chatId);
+  }
+
   @Override
   public ChatRouter sendMessage(SendOptions options, String body) {
-    vertx.eventBus().publish(outboundAddress, new JsonObject().put("chatId", options.getChatId()).put("body", body));
+    OutboundMessage msg = new OutboundMessage(options.getChatId(), body);
+    if (journal != null) {
+      journal.append(EntryType.OUTBOUND, options.getChatId(), 0, false, body);
+    }
+    String owner = owners.owner(options.getChatId());
+    if (owner != null) {
+      vertx.eventBus().send(owner, msg, ack -> {
+        if (ack.failed() && ((ReplyException) ack.cause()).failureType() == ReplyFailure.NO_HANDLERS) {
+          // The owner is gone without releasing its chats
+          owners.release(owner);
+          vertx.eventBus().publish(outboundAddress, msg);
+        }
+      });
+    } else {
+      vertx.eventBus().publish(outboundAddress, msg);
+    }
     return this;
   }
 
   @Override
   public void close() {
+    synchronized (shardDeployments) {
+      closed = true;
+      shardDeployments.forEach(vertx::undeploy);
+    }
+    registry.get(key).remove(this);
     consumer.unregister();
+    ownershipConsumer.unregister();
+    if (membership != null) {
+      membership.close();
+      partitionConsumer.unregister();
+    }
+    workerPools.values().forEach(WorkerPool::close);
+    virtualThreads.close();
+    if (journal != null) {
+      journal.close();
+    }
+  }
+
+  /**
+   * The verticle providing the context of a dispatch shard.
+   */
+  private static class ShardVerticle extends AbstractVerticle {
+
+    private final DispatchQueue queue;
+
+    ShardVerticle(DispatchQueue queue) {
+      this.queue = queue;
+    }
+
+    @Override
+    public void start() {
+      queue.start(context);
+    }
   }
 
   class MessageHandlerImpl implements ChatHandler {
+    final int id = handlerIds.incrementAndGet();
     final boolean respond;
     final Pattern pattern;
+    final HandlerExecutor executor;
+    final boolean async;
+    final long asyncTimeout;
+    final Bulkhead bulkhead;
     final Handler<Message> handler;
-    public MessageHandlerImpl(boolean respond, Pattern pattern, Handler<Message> handler) {
+    final ThreadLocal<Matcher> matchers;
+    final LongAdder matches = new LongAdder();
+    final LongAdder ackFailures = new LongAdder();
+    final LatencyHistogram invocationLatency = new LatencyHistogram();
+    final LatencyHistogram replyLatency = new LatencyHistogram();
+    volatile boolean closed;
+    public MessageHandlerImpl(boolean respond, Pattern pattern, HandlerOptions options, HandlerExecutor executor, Handler<Message> handler) {
       this.respond = respond;
       this.pattern = pattern;
+      this.executor = executor;
+      this.async = options.isAsync();
+      this.asyncTimeout = options.getAsyncTimeout();
+      this.bulkhead = new Bulkhead(options.getMaxInFlight(), options.getMaxQueued());
+      this.matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
       this.handler = handler;
     }
+    /**
+     * @return the matcher of the current thread reset with the {@code content}
+     */
+    Matcher matcher(String content) {
+      return matchers.get().reset(content);
+    }
+
+    /**
+     * @return the start and end offsets of the groups of the last match of the current thread matcher, the offsets
+     *         of a group that did not participate to the match are {@code -1}
+     */
+    int[] groups() {
+      Matcher matcher = matchers.get();
+      int count = matcher.groupCount();
+      if (count == 0) {
+        return NO_GROUPS;
+      }
+      int[] groups = new int[count * 2];
+      for (int group = 1;group <= count;group++) {
+        groups[group * 2 - 2] = matcher.start(group);
+        groups[group * 2 - 1] = matcher.end(group);
+      }
+      return groups;
+    }
+
     @Override
     public void close() {
-      throw new UnsupportedOperationException("todo");
+      // Dispatches still using a previous snapshot will skip the handler
+      closed = true;
+      updateRoutes(current -> current.remove(this));
     }
   }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import io.vertx.core.Context;
+
+import java.util.function.BiConsumer;
+
+/**
+ * The messages waiting to be dispatched on a context. Messages addressed to the bot and ambient messages wait in
+ * separate lanes, each lane serves the chats in turn with a {@link FairLane}. When both lanes have messages, the
+ * direct lane is served {@code directWeight} times for each time the ambient lane is served, a zero weight gives the
+ * direct lane a strict priority.<p>
+ *
+ * The queue is drained on its context by batches so a busy queue does not monopolize the event loop. A queue created
+ * without a context only accumulates the tasks until it is {@link #start(Context) started}.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class DispatchQueue {
+
+  private static final int BATCH_SIZE = 64;
+
+  private Context context;
+  private final Admission admission;
+  private final BiConsumer<DispatchTask, Runnable> dispatcher;
+  private final Runnable release;
+  private final int directWeight;
+  private final FairLane direct;
+  private final FairLane ambient;
+  private int directServed;
+  private boolean scheduled;
+
+  DispatchQueue(Context context, Admission admission, int directWeight, int chatQuantum, int maxQueuedPerChat, BiConsumer<DispatchTask, Runnable> dispatcher) {
+    this.context = context;
+    this.admission = admission;
+    this.directWeight = directWeight;
+    this.direct = new FairLane(chatQuantum, maxQueuedPerChat);
+    this.ambient = new FairLane(chatQuantum, maxQueuedPerChat);
+    this.dispatcher = dispatcher;
+    this.release = admission::release;
+    // Not draining until started
+    this.scheduled = context == null;
+  }
+
+  /**
+   * Start draining a queue created without a context.
+   *
+   * @param context the context draining the queue
+   */
+  void start(Context context) {
+    synchronized (this) {
+      if (this.context != null) {
+        throw new IllegalStateException("Already started");
+      }
+      this.context = context;
+    }
+    context.runOnContext(v -> drain());
+  }
+
+  /**
+   * Queue a task, the caller must have been admitted by {@link Admission#tryEnqueue()}.
+   *
+   * @return false when the queue of the task chat is full
+   */
+  boolean submit(DispatchTask task) {
+    synchronized (this) {
+      if (!(task.respond ? direct : ambient).add(task)) {
+        return false;
+      }
+      if (scheduled) {
+        return true;
+      }
+      scheduled = true;
+    }
+    context.runOnContext(v -> drain());
+    return true;
+  }
+
+  /**
+   * Remove the most recent ambient task of the busiest chat.
+   *
+   * @return the removed task or {@code null}
+   */
+  synchronized DispatchTask evictAmbient() {
+    return ambient.evict();
+  }
+
+  /**
+   * @return the number of chats with waiting tasks
+   */
+  synchronized int chats() {
+    return direct.chats() + ambient.chats();
+  }
+
+  /**
+   * @return the number of tasks waiting in the direct or in the ambient lane
+   */
+  synchronized int size(boolean respond) {
+    return (respond ? direct : ambient).size();
+  }
+
+  private DispatchTask next() {
+    if (direct.isEmpty()) {
+      return ambient.poll();
+    }
+    if (ambient.isEmpty()) {
+      directServed = 0;
+      return direct.poll();
+    }
+    if (directWeight == 0 || directServed < directWeight) {
+      directServed++;
+      return direct.poll();
+    }
+    directServed = 0;
+    return ambient.poll();
+  }
+
+  void wakeUp() {
+    synchronized (this) {
+      if (scheduled || (direct.isEmpty() && ambient.isEmpty())) {
+        return;
+      }
+      scheduled = true;
+    }
+    context.runOnContext(v -> drain());
+  }
+
+  private void drain() {
+    for (int i = 0;i < BATCH_SIZE;i++) {
+      DispatchTask task;
+      synchronized (this) {
+        if ((direct.isEmpty() && ambient.isEmpty()) || !admission.acquire(this)) {
+          scheduled = false;
+          return;
+        }
+        task = next();
+      }
+      admission.dequeued();
+      try {
+        // The dispatcher releases the invocation once done
+        dispatcher.accept(task, release);
+      } catch (RuntimeException e) {
+        // Keep draining and let the context report the failure
+        context.runOnContext(v -> drain());
+        throw e;
+      }
+    }
+    context.runOnContext(v -> drain());
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import io.nonobot.core.impl.Replier;
+
+/**
+ * An inbound message waiting in a dispatch queue.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class DispatchTask {
+
+  final String chatId;
+  final boolean respond;
+  final String content;
+  final long correlationId;
+  final Replier replier;
+  final long receivedTime = System.nanoTime();
+
+  DispatchTask(String chatId, boolean respond, String content, long correlationId, Replier replier) {
+    this.chatId = chatId;
+    this.respond = respond;
+    this.content = content;
+    this.correlationId = correlationId;
+    this.replier = replier;
+  }
+}
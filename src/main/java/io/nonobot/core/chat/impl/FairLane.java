@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A lane of tasks queued per chat and served with a deficit round robin: each chat with waiting tasks gets a turn
+ * during which it can dispatch up to {@code quantum} tasks, so a busy chat cannot delay the other chats by more than
+ * one turn. The tasks of a chat are served in arrival order and each chat queue is bounded.<p>
+ *
+ * This class is not thread safe.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class FairLane {
+
+  private static final class ChatQueue {
+
+    final String chatId;
+    final ArrayDeque<DispatchTask> tasks = new ArrayDeque<>();
+    int deficit;
+
+    ChatQueue(String chatId) {
+      this.chatId = chatId;
+    }
+  }
+
+  private final int quantum;
+  private final int maxQueuedPerChat;
+  private final Map<String, ChatQueue> chats = new HashMap<>();
+  private final ArrayDeque<ChatQueue> active = new ArrayDeque<>();
+  private int size;
+
+  FairLane(int quantum, int maxQueuedPerChat) {
+    this.quantum = quantum;
+    this.maxQueuedPerChat = maxQueuedPerChat;
+  }
+
+  /**
+   * @return false when the chat queue of the task is full
+   */
+  boolean add(DispatchTask task) {
+    ChatQueue queue = chats.get(task.chatId);
+    if (queue == null) {
+      queue = new ChatQueue(task.chatId);
+      chats.put(task.chatId, queue);
+      active.add(queue);
+    } else if (queue.tasks.size() >= maxQueuedPerChat) {
+      return false;
+    }
+    queue.tasks.add(task);
+    size++;
+    return true;
+  }
+
+  /**
+   * @return the next task or {@code null} when the lane is empty
+   */
+  DispatchTask poll() {
+    ChatQueue queue = active.peek();
+    if (queue == null) {
+      return null;
+    }
+    if (queue.deficit == 0) {
+      // Start of the chat turn
+      queue.deficit = quantum;
+    }
+    DispatchTask task = queue.tasks.poll();
+    size--;
+    queue.deficit--;
+    if (queue.tasks.isEmpty()) {
+      active.poll();
+      chats.remove(queue.chatId);
+    } else if (queue.deficit == 0) {
+      // End of the chat turn
+      active.add(active.poll());
+    }
+    return task;
+  }
+
+  /**
+   * Remove the most recent task of the chat with the most waiting tasks.
+   *
+   * @return the removed task or {@code null} when the lane is empty
+   */
+  DispatchTask evict() {
+    ChatQueue busiest = null;
+    for (ChatQueue queue : active) {
+      if (busiest == null || queue.tasks.size() > busiest.tasks.size()) {
+        busiest = queue;
+      }
+    }
+    if (busiest == null) {
+      return null;
+    }
+    DispatchTask task = busiest.tasks.pollLast();
+    size--;
+    if (busiest.tasks.isEmpty()) {
+      active.remove(busiest);
+      chats.remove(busiest.chatId);
+    }
+    return task;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * @return the number of chats with waiting tasks
+   */
+  int chats() {
+    return active.size();
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Executes the message handlers that must not run on the event loop.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+interface HandlerExecutor {
+
+  /**
+   * @return false when the executor is saturated or closed
+   */
+  boolean execute(Runnable task);
+
+  JsonObject metrics();
+
+  void close();
+
+}
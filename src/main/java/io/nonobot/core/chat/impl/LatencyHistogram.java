@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram with fixed buckets, each bucket is a striped counter so concurrent recordings from the event
+ * loops and the worker threads do not contend on a single cache line.<p>
+ *
+ * The buckets follow the Prometheus conventions: the upper bounds are inclusive and the exported counts are
+ * cumulative, the last bucket counts everything.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class LatencyHistogram {
+
+  /**
+   * The bucket upper bounds in nanoseconds, from 100 microseconds to 10 seconds.
+   */
+  static final long[] BOUNDS = {
+      TimeUnit.MICROSECONDS.toNanos(100),
+      TimeUnit.MICROSECONDS.toNanos(250),
+      TimeUnit.MICROSECONDS.toNanos(500),
+      TimeUnit.MILLISECONDS.toNanos(1),
+      TimeUnit.MICROSECONDS.toNanos(2500),
+      TimeUnit.MILLISECONDS.toNanos(5),
+      TimeUnit.MILLISECONDS.toNanos(10),
+      TimeUnit.MILLISECONDS.toNanos(25),
+      TimeUnit.MILLISECONDS.toNanos(50),
+      TimeUnit.MILLISECONDS.toNanos(100),
+      TimeUnit.MILLISECONDS.toNanos(250),
+      TimeUnit.MILLISECONDS.toNanos(500),
+      TimeUnit.SECONDS.toNanos(1),
+      TimeUnit.MILLISECONDS.toNanos(2500),
+      TimeUnit.SECONDS.toNanos(5),
+      TimeUnit.SECONDS.toNanos(10)
+  };
+
+  private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+  private final LongAdder sum = new LongAdder();
+
+  LatencyHistogram() {
+    for (int i = 0;i < buckets.length;i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * @param time the latency in nanoseconds
+   */
+  void record(long time) {
+    int index = 0;
+    while (index < BOUNDS.length && time > BOUNDS[index]) {
+      index++;
+    }
+    buckets[index].increment();
+    sum.add(time);
+  }
+
+  /**
+   * @return the cumulative count of each bucket, the last one being the total count
+   */
+  long[] cumulativeCounts() {
+    long[] counts = new long[buckets.length];
+    long count = 0;
+    for (int i = 0;i < buckets.length;i++) {
+      count += buckets[i].sum();
+      counts[i] = count;
+    }
+    return counts;
+  }
+
+  /**
+   * @return the sum of the recorded latencies in nanoseconds
+   */
+  long sum() {
+    return sum.sum();
+  }
+
+  /**
+   * Estimate a percentile with the upper bound of the bucket it falls in, the percentiles of the last bucket are
+   * reported as the last bound.
+   *
+   * @param counts the {@link #cumulativeCounts() cumulative counts}
+   * @param percentile the percentile between {@code 0} and {@code 100}
+   * @return the percentile in nanoseconds or {@code 0} when nothing was recorded
+   */
+  static long percentile(long[] counts, double percentile) {
+    long total = counts[counts.length - 1];
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(total * percentile / 100);
+    for (int i = 0;i < BOUNDS.length;i++) {
+      if (counts[i] >= rank) {
+        return BOUNDS[i];
+      }
+    }
+    return BOUNDS[BOUNDS.length - 1];
+  }
+
+  /**
+   * @return the {@code count}, the {@code mean} and the estimated {@code p50}, {@code p90} and {@code p99} latencies
+   *         in milliseconds
+   */
+  JsonObject summary() {
+    long[] counts = cumulativeCounts();
+    long count = counts[counts.length - 1];
+    return new JsonObject().
+        put("count", count).
+        put("mean", count > 0 ? sum() / (double) count / 1_000_000 : 0d).
+        put("p50", percentile(counts, 50) / 1_000_000d).
+        put("p90", percentile(counts, 90) / 1_000_000d).
+        put("p99", percentile(counts, 99) / 1_000_000d);
+  }
+}
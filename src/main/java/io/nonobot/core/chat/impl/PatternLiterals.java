@@ -0,0 +1,377 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extracts the literals a {@code java.util.regex} pattern requires to be present in any input it fully matches.<p>
+ *
+ * The analysis is conservative: only top level literal characters that are not made optional by a quantifier are
+ * considered, anything it does not understand (alternation, inline flags, ...) yields no literal at all.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class PatternLiterals {
+
+  private static final String META = "\\[](){}.*+?^$|";
+  private static final String QUANTIFIERS = "*+?{";
+
+  /**
+   * The letters of the two characters escapes that do not match a literal character of the pattern.
+   */
+  private static final String SINGLE_ESCAPES = "dDsSwWhHvVbBAGZzRXtnrfae";
+
+  private PatternLiterals() {
+  }
+
+  /**
+   * @return the longest literal any match of the {@code regex} must contain or {@code null}
+   */
+  static String requiredLiteral(String regex) {
+    List<String> runs = literalRuns(regex);
+    String longest = null;
+    if (runs != null) {
+      for (String run : runs) {
+        if (longest == null || run.length() > longest.length()) {
+          longest = run;
+        }
+      }
+    }
+    return longest;
+  }
+
+  /**
+   * Extract the command word of patterns like {@code ^echo\s+(.+)} or {@code ^ping}: a literal at the start of the
+   * pattern followed by a whitespace or by the end of the input. Any content fully matched by such pattern has the
+   * command as first token, see {@link #firstToken(String)}.
+   *
+   * @return the command word or {@code null} when the pattern does not start with one
+   */
+  static String commandToken(String regex) {
+    if (literalRuns(regex) == null) {
+      return null;
+    }
+    int len = regex.length();
+    int i = regex.startsWith("^") ? 1 : 0;
+    StringBuilder token = new StringBuilder();
+    while (i < len) {
+      char c = regex.charAt(i);
+      int next;
+      if (c == '\\' && i + 1 < len && !Character.isLetterOrDigit(regex.charAt(i + 1)) && !isWhitespace(regex.charAt(i + 1))) {
+        c = regex.charAt(i + 1);
+        next = i + 2;
+      } else if (isWhitespace(c) || META.indexOf(c) >= 0) {
+        break;
+      } else {
+        next = i + 1;
+      }
+      if (next < len && QUANTIFIERS.indexOf(regex.charAt(next)) >= 0) {
+        return null;
+      }
+      token.append(c);
+      i = next;
+    }
+    if (token.length() == 0 || !isTokenEnd(regex, i)) {
+      return null;
+    }
+    return token.toString();
+  }
+
+  /**
+   * @return the leading characters of the {@code content} up to the first whitespace
+   */
+  static String firstToken(String content) {
+    return content.substring(0, firstTokenLength(content));
+  }
+
+  /**
+   * @return the length of the {@link #firstToken(String) first token} of the {@code content}
+   */
+  static int firstTokenLength(String content) {
+    int len = content.length();
+    for (int i = 0;i < len;i++) {
+      if (isWhitespace(content.charAt(i))) {
+        return i;
+      }
+    }
+    return len;
+  }
+
+  /**
+   * @return true for the characters matched by the {@code \s} character class
+   */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  /**
+   * @return true if whatever matches the {@code regex} from {@code i} is empty or starts with a whitespace
+   */
+  private static boolean isTokenEnd(String regex, int i) {
+    int len = regex.length();
+    if (i == len || regex.substring(i).equals("$")) {
+      return true;
+    }
+    if (startsWithWhitespace(regex, i)) {
+      return true;
+    }
+    if (regex.charAt(i) == '(') {
+      // An optional trailing group starting with a whitespace, e.g ^help(\s.+)?
+      int end = skipGroup(regex, i);
+      if (end < 0) {
+        return false;
+      }
+      int start = regex.startsWith("(?:", i) ? i + 3 : i + 1;
+      if (regex.charAt(start) == '?' || !startsWithWhitespace(regex, start) || literalRuns(regex.substring(start, end - 1)) == null) {
+        return false;
+      }
+      end = skipQuantifier(regex, end);
+      return end == len || regex.substring(end).equals("$");
+    }
+    return false;
+  }
+
+  private static boolean startsWithWhitespace(String regex, int i) {
+    int len = regex.length();
+    int next;
+    if (isWhitespace(regex.charAt(i))) {
+      next = i + 1;
+    } else if (regex.startsWith("\\s", i) || regex.startsWith("\\t", i)) {
+      next = i + 2;
+    } else {
+      return false;
+    }
+    // The whitespace must not be optional
+    return next == len || (regex.charAt(next) != '*' && regex.charAt(next) != '?' && regex.charAt(next) != '{');
+  }
+
+  /**
+   * @return the sequence of mandatory literal runs of the {@code regex} or {@code null} when it cannot be analyzed
+   */
+  static List<String> literalRuns(String regex) {
+    if (hasInlineFlags(regex)) {
+      return null;
+    }
+    List<String> runs = new ArrayList<>();
+    StringBuilder run = new StringBuilder();
+    int len = regex.length();
+    int i = 0;
+    while (i < len) {
+      char c = regex.charAt(i);
+      switch (c) {
+        case '\\': {
+          if (i + 1 >= len) {
+            return null;
+          }
+          char escaped = regex.charAt(i + 1);
+          if (escaped == 'Q') {
+            int end = regex.indexOf("\\E", i + 2);
+            String quoted = end < 0 ? regex.substring(i + 2) : regex.substring(i + 2, end);
+            i = end < 0 ? len : end + 2;
+            if (quoted.length() > 0) {
+              run.append(quoted, 0, quoted.length() - 1);
+              i = appendLiteral(regex, i, quoted.charAt(quoted.length() - 1), run, runs);
+            }
+          } else if (escaped >= '1' && escaped <= '9') {
+            // Back reference, it may be followed by more digits
+            flush(run, runs);
+            i += 2;
+            while (i < len && Character.isDigit(regex.charAt(i))) {
+              i++;
+            }
+            i = skipQuantifier(regex, i);
+          } else if (SINGLE_ESCAPES.indexOf(escaped) >= 0) {
+            // Character class, boundary or control character
+            flush(run, runs);
+            i = skipQuantifier(regex, i + 2);
+          } else if (Character.isLetterOrDigit(escaped)) {
+            // Multi character escape (octal, hexadecimal, unicode, named group, property, ...) or unknown escape
+            return null;
+          } else {
+            i = appendLiteral(regex, i + 2, escaped, run, runs);
+          }
+          break;
+        }
+        case '[': {
+          i = skipClass(regex, i);
+          if (i < 0) {
+            return null;
+          }
+          flush(run, runs);
+          i = skipQuantifier(regex, i);
+          break;
+        }
+        case '(': {
+          i = skipGroup(regex, i);
+          if (i < 0) {
+            return null;
+          }
+          flush(run, runs);
+          i = skipQuantifier(regex, i);
+          break;
+        }
+        case '.':
+        case '^':
+        case '$':
+          flush(run, runs);
+          i = skipQuantifier(regex, i + 1);
+          break;
+        case '|':
+        case ')':
+        case '*':
+        case '+':
+        case '?':
+        case '{':
+          return null;
+        default:
+          i = appendLiteral(regex, i + 1, c, run, runs);
+          break;
+      }
+    }
+    flush(run, runs);
+    return runs;
+  }
+
+  private static boolean hasInlineFlags(String regex) {
+    int from = 0;
+    while (true) {
+      int index = regex.indexOf("(?", from);
+      if (index < 0 || index + 2 >= regex.length()) {
+        return false;
+      }
+      if ("idmsuxU-".indexOf(regex.charAt(index + 2)) >= 0) {
+        return true;
+      }
+      from = index + 2;
+    }
+  }
+
+  /**
+   * Append the literal {@code c} to the current run, taking in account the quantifier that may follow at {@code i}.
+   */
+  private static int appendLiteral(String regex, int i, char c, StringBuilder run, List<String> runs) {
+    if (i < regex.length()) {
+      switch (regex.charAt(i)) {
+        case '*':
+        case '?':
+        case '{':
+          // Optional or counted, the char cannot be relied on
+          flush(run, runs);
+          return skipQuantifier(regex, i);
+        case '+':
+          // At least once, but what follows is not contiguous anymore
+          run.append(c);
+          flush(run, runs);
+          return skipQuantifier(regex, i);
+      }
+    }
+    run.append(c);
+    return i;
+  }
+
+  private static void flush(StringBuilder run, List<String> runs) {
+    if (run.length() > 0) {
+      runs.add(run.toString());
+      run.setLength(0);
+    }
+  }
+
+  private static int skipQuantifier(String regex, int i) {
+    if (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '*' || c == '?' || c == '+') {
+        i++;
+      } else if (c == '{') {
+        int end = regex.indexOf('}', i);
+        i = end < 0 ? regex.length() : end + 1;
+      } else {
+        return i;
+      }
+      if (i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+        i++;
+      }
+    }
+    return i;
+  }
+
+  private static int skipClass(String regex, int i) {
+    int len = regex.length();
+    int j = i + 1;
+    if (j < len && regex.charAt(j) == '^') {
+      j++;
+    }
+    if (j < len && regex.charAt(j) == ']') {
+      j++;
+    }
+    int depth = 1;
+    while (j < len) {
+      char c = regex.charAt(j);
+      if (c == '\\') {
+        j += 2;
+      } else if (c == '[') {
+        depth++;
+        j++;
+      } else if (c == ']') {
+        if (--depth == 0) {
+          return j + 1;
+        }
+        j++;
+      } else {
+        j++;
+      }
+    }
+    return -1;
+  }
+
+  private static int skipGroup(String regex, int i) {
+    int len = regex.length();
+    int depth = 0;
+    int j = i;
+    while (j < len) {
+      char c = regex.charAt(j);
+      if (c == '\\') {
+        if (j + 1 < len && regex.charAt(j + 1) == 'Q') {
+          int end = regex.indexOf("\\E", j + 2);
+          if (end < 0) {
+            return -1;
+          }
+          j = end + 2;
+        } else {
+          j += 2;
+        }
+      } else if (c == '[') {
+        j = skipClass(regex, j);
+        if (j < 0) {
+          return -1;
+        }
+      } else if (c == '(') {
+        depth++;
+        j++;
+      } else if (c == ')') {
+        j++;
+        if (--depth == 0) {
+          return j;
+        }
+      } else {
+        j++;
+      }
+    }
+    return -1;
+  }
+}
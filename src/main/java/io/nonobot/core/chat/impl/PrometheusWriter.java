@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+/**
+ * Writes metric families in the Prometheus text exposition format (version 0.0.4).
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class PrometheusWriter {
+
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final StringBuilder buffer = new StringBuilder();
+
+  /**
+   * Start a metric family, its samples must follow.
+   */
+  PrometheusWriter family(String name, String type, String help) {
+    buffer.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    buffer.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    return this;
+  }
+
+  /**
+   * @param labels the label names and values, alternated
+   */
+  PrometheusWriter sample(String name, String[] labels, long value) {
+    appendName(name, labels, null);
+    buffer.append(' ').append(value).append('\n');
+    return this;
+  }
+
+  /**
+   * Write the samples of a histogram family, the latencies are exported in seconds.
+   *
+   * @param labels the label names and values, alternated
+   */
+  PrometheusWriter histogram(String name, String[] labels, LatencyHistogram histogram) {
+    long[] counts = histogram.cumulativeCounts();
+    for (int i = 0;i < counts.length;i++) {
+      String le = i < LatencyHistogram.BOUNDS.length ? Double.toString(seconds(LatencyHistogram.BOUNDS[i])) : "+Inf";
+      appendName(name + "_bucket", labels, le);
+      buffer.append(' ').append(counts[i]).append('\n');
+    }
+    appendName(name + "_sum", labels, null);
+    buffer.append(' ').append(seconds(histogram.sum())).append('\n');
+    appendName(name + "_count", labels, null);
+    buffer.append(' ').append(counts[counts.length - 1]).append('\n');
+    return this;
+  }
+
+  private static double seconds(long nanos) {
+    return nanos / 1_000_000_000d;
+  }
+
+  private void appendName(String name, String[] labels, String le) {
+    buffer.append(name);
+    if (labels.length > 0 || le != null) {
+      buffer.append('{');
+      for (int i = 0;i < labels.length;i += 2) {
+        if (i > 0) {
+          buffer.append(',');
+        }
+        buffer.append(labels[i]).append("=\"");
+        escape(labels[i + 1]);
+        buffer.append('"');
+      }
+      if (le != null) {
+        if (labels.length > 0) {
+          buffer.append(',');
+        }
+        buffer.append("le=\"").append(le).append('"');
+      }
+      buffer.append('}');
+    }
+  }
+
+  private void escape(String value) {
+    for (int i = 0;i < value.length();i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\':
+          buffer.append("\\\\");
+          break;
+        case '"':
+          buffer.append("\\\"");
+          break;
+        case '\n':
+          buffer.append("\\n");
+          break;
+        default:
+          buffer.append(c);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return buffer.toString();
+  }
+}
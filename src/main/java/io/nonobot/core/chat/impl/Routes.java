@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An immutable and versioned snapshot of the registered message handlers. Adding or removing a handler creates
+ * a new snapshot, the router publishes it atomically so a dispatch always sees a consistent set of handlers.<p>
+ *
+ * The routing tables are compiled when the snapshot is created, on the thread adding or removing the handler, so
+ * the dispatches keep using the previous snapshot and never wait for a compilation.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class Routes {
+
+  final long version;
+  final ChatRouterImpl.MessageHandlerImpl[] handlers;
+  private final LongAdder indexedCounter;
+  private final LongAdder fallbackCounter;
+  private final RoutingTable directTable;
+  private final RoutingTable ambientTable;
+
+  Routes(LongAdder indexedCounter, LongAdder fallbackCounter) {
+    this(0, new ChatRouterImpl.MessageHandlerImpl[0], indexedCounter, fallbackCounter);
+  }
+
+  private Routes(long version, ChatRouterImpl.MessageHandlerImpl[] handlers, LongAdder indexedCounter, LongAdder fallbackCounter) {
+    this.version = version;
+    this.handlers = handlers;
+    this.indexedCounter = indexedCounter;
+    this.fallbackCounter = fallbackCounter;
+    this.directTable = compile(true);
+    this.ambientTable = compile(false);
+  }
+
+  private RoutingTable compile(boolean respond) {
+    // Only the messages addressed to the bot are counted, an ambient message is usually not a command
+    return new RoutingTable(Arrays.stream(handlers).
+        filter(handler -> handler.respond == respond).
+        toArray(ChatRouterImpl.MessageHandlerImpl[]::new),
+        respond ? indexedCounter : null, respond ? fallbackCounter : null);
+  }
+
+  /**
+   * @return a new snapshot with the {@code handler} appended
+   */
+  Routes add(ChatRouterImpl.MessageHandlerImpl handler) {
+    ChatRouterImpl.MessageHandlerImpl[] copy = Arrays.copyOf(handlers, handlers.length + 1);
+    copy[handlers.length] = handler;
+    return new Routes(version + 1, copy, indexedCounter, fallbackCounter);
+  }
+
+  /**
+   * @return a new snapshot without the {@code handler} or this snapshot when it does not contain it
+   */
+  Routes remove(ChatRouterImpl.MessageHandlerImpl handler) {
+    for (int index = 0;index < handlers.length;index++) {
+      if (handlers[index] == handler) {
+        ChatRouterImpl.MessageHandlerImpl[] copy = new ChatRouterImpl.MessageHandlerImpl[handlers.length - 1];
+        System.arraycopy(handlers, 0, copy, 0, index);
+        System.arraycopy(handlers, index + 1, copy, index, copy.length - index);
+        return new Routes(version + 1, copy, indexedCounter, fallbackCounter);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * @return the routing table of the {@code respond} handlers
+   */
+  RoutingTable table(boolean respond) {
+    return respond ? directTable : ambientTable;
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A compiled view of the message handlers.<p>
+ *
+ * Handlers whose pattern starts with a command word (like {@code ^echo\s+(.+)}) are indexed by this word, a message
+ * only considers the handlers indexed by its first token.<p>
+ *
+ * For the other handlers, the literal each handler pattern requires is searched in the message content with a
+ * single automaton pass, only the handlers whose literal is found (or that have no literal) are candidates for the
+ * regex confirmation.<p>
+ *
+ * Candidates are always tried in registration order so the first match semantic is preserved. Matching a message
+ * reuses a per thread scratch space and the per thread matchers of the handlers, so a message matching no handler
+ * does not allocate.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class RoutingTable {
+
+  private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+  final ChatRouterImpl.MessageHandlerImpl[] handlers;
+  private final LongAdder indexedCounter;
+  private final LongAdder fallbackCounter;
+  private final String[] commandKeys;
+  private final int[][] commandValues;
+  private final int[] unfiltered;
+  private final AhoCorasick automaton;
+  private final int[][] literalHandlers;
+
+  /**
+   * @param handlers the handlers in registration order
+   * @param indexedCounter incremented for each message whose first token is a known command or {@code null}
+   * @param fallbackCounter incremented for each message that only considers the non indexed handlers or
+   *                        {@code null}
+   */
+  RoutingTable(ChatRouterImpl.MessageHandlerImpl[] handlers, LongAdder indexedCounter, LongAdder fallbackCounter) {
+    this.handlers = handlers;
+    this.indexedCounter = indexedCounter;
+    this.fallbackCounter = fallbackCounter;
+
+    // Index handlers by command word, otherwise group them by literal, handlers sharing the same literal
+    // share the automaton entry
+    Map<String, List<Integer>> byCommand = new HashMap<>();
+    Map<String, List<Integer>> byLiteral = new LinkedHashMap<>();
+    List<Integer> unfiltered = new ArrayList<>();
+    for (int index = 0;index < handlers.length;index++) {
+      String pattern = handlers[index].pattern.pattern();
+      String command = PatternLiterals.commandToken(pattern);
+      String literal = command == null ? PatternLiterals.requiredLiteral(pattern) : null;
+      if (command != null) {
+        byCommand.computeIfAbsent(command, c -> new ArrayList<>()).add(index);
+      } else if (literal != null) {
+        byLiteral.computeIfAbsent(literal, l -> new ArrayList<>()).add(index);
+      } else {
+        unfiltered.add(index);
+      }
+    }
+
+    if (byCommand.isEmpty()) {
+      this.commandKeys = null;
+      this.commandValues = null;
+    } else {
+      // Open addressing table probed with the first token of a message, see #command(String)
+      int capacity = Integer.highestOneBit(byCommand.size() * 4);
+      this.commandKeys = new String[capacity];
+      this.commandValues = new int[capacity][];
+      byCommand.forEach((command, indexes) -> {
+        int index = mix(command.hashCode()) & (capacity - 1);
+        while (commandKeys[index] != null) {
+          index = (index + 1) & (capacity - 1);
+        }
+        commandKeys[index] = command;
+        commandValues[index] = toArray(indexes);
+      });
+    }
+    this.unfiltered = toArray(unfiltered);
+    this.literalHandlers = new int[byLiteral.size()][];
+    String[] literals = new String[byLiteral.size()];
+    int id = 0;
+    for (Map.Entry<String, List<Integer>> entry : byLiteral.entrySet()) {
+      literals[id] = entry.getKey();
+      literalHandlers[id++] = toArray(entry.getValue());
+    }
+    this.automaton = literals.length > 0 ? new AhoCorasick(literals) : null;
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    int[] array = new int[list.size()];
+    for (int i = 0;i < array.length;i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+
+  /**
+   * Find the first handler in registration order fully matching the {@code content}, the matcher of the handler
+   * for the current thread keeps the match state until the thread matches another message. This does not allocate
+   * once the thread scratch space is large enough.
+   *
+   * @param content the message content
+   * @return the index of the handler or {@code -1}
+   */
+  int match(String content) {
+    Scratch scratch = SCRATCH.get();
+    int size = candidates(content, scratch);
+    int[] candidates = scratch.candidates;
+    for (int i = 0;i < size;i++) {
+      ChatRouterImpl.MessageHandlerImpl handler = handlers[candidates[i]];
+      if (!handler.closed && handler.matcher(content).matches()) {
+        return candidates[i];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Compute the handlers that may match the {@code content} in the {@code scratch} candidates.
+   *
+   * @param content the message content
+   * @return the number of candidates, sorted by index
+   */
+  int candidates(String content, Scratch scratch) {
+    int size = fallbackCandidates(content, scratch);
+    int[] indexed = commandKeys != null ? command(content) : null;
+    if (indexed == null) {
+      if (fallbackCounter != null) {
+        fallbackCounter.increment();
+      }
+      return size;
+    }
+    if (indexedCounter != null) {
+      indexedCounter.increment();
+    }
+    int[] candidates = scratch.ensureCandidates(size + indexed.length);
+    System.arraycopy(indexed, 0, candidates, size, indexed.length);
+    if (size > 0) {
+      Arrays.sort(candidates, 0, size + indexed.length);
+    }
+    return size + indexed.length;
+  }
+
+  /**
+   * Lookup the handlers indexed by the first token of the {@code content} without extracting the token.
+   */
+  private int[] command(String content) {
+    int len = PatternLiterals.firstTokenLength(content);
+    int hash = 0;
+    for (int i = 0;i < len;i++) {
+      hash = 31 * hash + content.charAt(i);
+    }
+    int mask = commandKeys.length - 1;
+    for (int index = mix(hash) & mask;commandKeys[index] != null;index = (index + 1) & mask) {
+      String key = commandKeys[index];
+      if (key.length() == len && content.regionMatches(0, key, 0, len)) {
+        return commandValues[index];
+      }
+    }
+    return null;
+  }
+
+  private static int mix(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private int fallbackCandidates(String content, Scratch scratch) {
+    int[] candidates = scratch.ensureCandidates(unfiltered.length);
+    System.arraycopy(unfiltered, 0, candidates, 0, unfiltered.length);
+    if (automaton == null) {
+      return unfiltered.length;
+    }
+    scratch.reset(literalHandlers);
+    automaton.scan(content, scratch);
+    if (scratch.count == 0) {
+      return unfiltered.length;
+    }
+    candidates = scratch.ensureCandidates(unfiltered.length + scratch.count);
+    boolean[] found = scratch.found;
+    int size = unfiltered.length;
+    for (int literal = 0;literal < literalHandlers.length;literal++) {
+      if (found[literal]) {
+        found[literal] = false;
+        int[] indexes = literalHandlers[literal];
+        System.arraycopy(indexes, 0, candidates, size, indexes.length);
+        size += indexes.length;
+      }
+    }
+    Arrays.sort(candidates, 0, size);
+    return size;
+  }
+
+  /**
+   * The space reused by the matches of a thread.
+   */
+  static final class Scratch implements AhoCorasick.HitHandler {
+
+    int[] candidates = new int[16];
+    boolean[] found = new boolean[16];
+    int[][] literalHandlers;
+    int count;
+
+    int[] ensureCandidates(int size) {
+      if (candidates.length < size) {
+        candidates = Arrays.copyOf(candidates, Math.max(size, candidates.length * 2));
+      }
+      return candidates;
+    }
+
+    void reset(int[][] literalHandlers) {
+      if (found.length < literalHandlers.length) {
+        found = new boolean[Math.max(literalHandlers.length, found.length * 2)];
+      }
+      this.literalHandlers = literalHandlers;
+      this.count = 0;
+    }
+
+    @Override
+    public void hit(int literal) {
+      if (!found[literal]) {
+        found[literal] = true;
+        count += literalHandlers[literal].length;
+      }
+    }
+  }
+}
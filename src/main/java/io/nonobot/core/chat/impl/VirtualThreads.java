@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import io.nonobot.core.chat.HandlerOptions;
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executes each handler invocation on its own virtual thread when the JVM provides them, otherwise on a daemon
+ * platform thread. The number of concurrent invocations is capped, the platform threads are capped to the default
+ * worker pool size since each of them is an OS thread.<p>
+ *
+ * The virtual thread executor is looked up reflectively so the bot still runs on the JVMs without them.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class VirtualThreads implements HandlerExecutor {
+
+  /**
+   * @return a new virtual thread per task executor or {@code null} when the JVM does not support them
+   */
+  static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  private final ExecutorService executor;
+  private final boolean virtual;
+  private final Semaphore permits;
+  private final int maxConcurrency;
+  private final LongAdder rejected = new LongAdder();
+
+  VirtualThreads(String name, int maxConcurrency) {
+    ExecutorService executor = newVirtualThreadExecutor();
+    this.virtual = executor != null;
+    if (executor == null) {
+      maxConcurrency = Math.min(maxConcurrency, HandlerOptions.DEFAULT_WORKER_POOL_SIZE);
+      AtomicInteger count = new AtomicInteger();
+      executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    this.executor = executor;
+    this.maxConcurrency = maxConcurrency;
+    this.permits = new Semaphore(maxConcurrency);
+  }
+
+  /**
+   * @return true when the handlers run on virtual threads
+   */
+  boolean isVirtual() {
+    return virtual;
+  }
+
+  @Override
+  public boolean execute(Runnable task) {
+    if (!permits.tryAcquire()) {
+      rejected.increment();
+      return false;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          task.run();
+        } finally {
+          permits.release();
+        }
+      });
+      return true;
+    } catch (RejectedExecutionException e) {
+      permits.release();
+      rejected.increment();
+      return false;
+    }
+  }
+
+  @Override
+  public JsonObject metrics() {
+    return new JsonObject().
+        put("virtual", virtual).
+        put("size", maxConcurrency).
+        put("active", maxConcurrency - permits.availablePermits()).
+        put("rejected", rejected.sum());
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.chat.impl;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A named pool of daemon threads executing the blocking message handlers, both the threads and the queue of
+ * waiting tasks are bounded.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class WorkerPool implements HandlerExecutor {
+
+  final String name;
+  private final ThreadPoolExecutor executor;
+  private final LongAdder rejected = new LongAdder();
+
+  WorkerPool(String name, int size, int maxQueued) {
+    AtomicInteger count = new AtomicInteger();
+    BlockingQueue<Runnable> queue = maxQueued > 0 ? new ArrayBlockingQueue<>(maxQueued) : new SynchronousQueue<>();
+    this.name = name;
+    this.executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, queue, runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  @Override
+  public boolean execute(Runnable task) {
+    try {
+      executor.execute(task);
+      return true;
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      return false;
+    }
+  }
+
+  @Override
+  public JsonObject metrics() {
+    return new JsonObject().
+        put("size", executor.getMaximumPoolSize()).
+        put("active", executor.getActiveCount()).
+        put("queued", executor.getQueue().size()).
+        put("completed", executor.getCompletedTaskCount()).
+        put("rejected", rejected.sum());
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+}
@@ -22,6 +22,7 @@ import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
 
 import java.util.List;
 
@@ -61,10 +62,37 @@ public interface BotClient {
    */
   void alias(List<String> names);
 
+  /**
+   * Claim the ownership of a chat, the messages sent by the bot to this chat are delivered to this client only
+   * instead of being broadcast to all the clients.
+   *
+   * @param chatId the chat id
+   * @return this object so it can be used fluently
+   */
+  @Fluent
+  BotClient claimChat(String chatId);
+
+  /**
+   * Claim the ownership of the chats whose id starts with the {@code prefix}, the messages sent by the bot to these
+   * chats are delivered to this client only instead of being broadcast to all the clients. When several prefixes
+   * match a chat id, the longest one wins.
+   *
+   * @param prefix the chat id prefix
+   * @return this object so it can be used fluently
+   */
+  @Fluent
+  BotClient claimChatPrefix(String prefix);
+
   /**
    * Receive a message, the message might trigger a reply from an handler, if that happens it should be fast. However
-   * if there is no handler for processing the message, the reply will be called and likely timeout. Therefore the client
-   * should not wait until the reply is called, instead if should just forward the reply content when it arrives.
+   * the handler may take time to reply or never reply, the reply handler is then failed after the timeout. Therefore
+   * the client should not wait until the reply is called, instead if should just forward the reply content when it
+   * arrives.<p>
+   *
+   * When no handler matches the message, the reply handler is failed immediately with a
+   * {@code NotHandledException}, except in a cluster when the routers are not partitioned: the routers of the other
+   * nodes may still handle the message, so the reply handler is failed after the timeout. When the bot is too busy
+   * to accept the message, the reply handler is failed immediately with a {@code BusyException}.
    *
    * @param options the receive options
    * @param message the message content to process
@@ -90,6 +118,25 @@ public interface BotClient {
   @Fluent
   BotClient closeHandler(Handler<Void> handler);
 
+  /**
+   * Returns a snapshot of the client metrics:
+   *
+   * <ul>
+   *   <li>{@code pendingReplies}: the number of messages waiting for a reply, bounded by {@code maxPendingReplies}</li>
+   *   <li>{@code received}: the number of received messages</li>
+   *   <li>{@code replies}, {@code replyTimeouts}, {@code notHandled} and {@code busy}: the number of received
+   *   messages by outcome</li>
+   *   <li>{@code rejected}: the number of messages rejected because too many replies were pending</li>
+   *   <li>{@code outboundMessages}: the number of messages sent by the bot to this client and {@code outboundRate}
+   *   their one minute rate in messages per second</li>
+   *   <li>{@code contextHops}: the number of tasks executed on the client context, {@code contextHopTime} and
+   *   {@code maxContextHopTime} the total and the maximum time in nanoseconds they waited to run</li>
+   * </ul>
+   *
+   * @return the metrics
+   */
+  JsonObject metrics();
+
   /**
    * Close the client.
    */
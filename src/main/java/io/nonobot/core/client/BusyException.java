@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.client;
+
+import io.vertx.core.VertxException;
+
+/**
+ * Signals the bot is too busy to handle a message, the message was not dispatched to the handlers.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class BusyException extends VertxException {
+
+  private static final long serialVersionUID = 1L;
+
+  public BusyException() {
+    super("The bot is too busy to handle the message");
+  }
+}
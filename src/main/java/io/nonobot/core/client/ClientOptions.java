@@ -27,13 +27,24 @@ public class ClientOptions {
 
   public static final long DEFAULT_RECONNECT_PERIOD = 3000;
   public static final String DEFAULT_NAME = "nono";
+  public static final int DEFAULT_MAX_PENDING_REPLIES = 10000;
+  public static final int DEFAULT_OUTBOUND_QUEUE_SIZE = 1000;
+  public static final int DEFAULT_MAX_OUTBOUND_SPILLED = 100000;
 
   private long reconnectPeriod;
   private String name;
+  private int maxPendingReplies;
+  private int outboundQueueSize;
+  private String outboundSpillPath;
+  private int maxOutboundSpilled;
 
   public ClientOptions() {
     reconnectPeriod = DEFAULT_RECONNECT_PERIOD;
     name = DEFAULT_NAME;
+    maxPendingReplies = DEFAULT_MAX_PENDING_REPLIES;
+    outboundQueueSize = DEFAULT_OUTBOUND_QUEUE_SIZE;
+    outboundSpillPath = null;
+    maxOutboundSpilled = DEFAULT_MAX_OUTBOUND_SPILLED;
   }
 
   public ClientOptions(JsonObject json) {
@@ -43,6 +54,10 @@ public class ClientOptions {
   public ClientOptions(ClientOptions that) {
     reconnectPeriod = that.reconnectPeriod;
     name = that.name;
+    maxPendingReplies = that.maxPendingReplies;
+    outboundQueueSize = that.outboundQueueSize;
+    outboundSpillPath = that.outboundSpillPath;
+    maxOutboundSpilled = that.maxOutboundSpilled;
   }
 
   public long getReconnectPeriod() {
@@ -62,4 +77,74 @@ public class ClientOptions {
     this.name = name;
     return this;
   }
+
+  public int getMaxPendingReplies() {
+    return maxPendingReplies;
+  }
+
+  /**
+   * Set the maximum number of received messages the client can wait a reply for, when this number is reached
+   * a received message fails immediately.
+   *
+   * @param maxPendingReplies the maximum number of pending replies
+   * @return this object so it can be used fluently
+   */
+  public ClientOptions setMaxPendingReplies(int maxPendingReplies) {
+    this.maxPendingReplies = maxPendingReplies;
+    return this;
+  }
+
+  public int getOutboundQueueSize() {
+    return outboundQueueSize;
+  }
+
+  /**
+   * Set the number of messages sent by the bot that a running adapter keeps in memory while it is disconnected,
+   * they are delivered in order once the adapter is connected again.
+   *
+   * @param outboundQueueSize the maximum number of messages queued in memory
+   * @return this object so it can be used fluently
+   */
+  public ClientOptions setOutboundQueueSize(int outboundQueueSize) {
+    if (outboundQueueSize < 0) {
+      throw new IllegalArgumentException("Invalid outbound queue size " + outboundQueueSize);
+    }
+    this.outboundQueueSize = outboundQueueSize;
+    return this;
+  }
+
+  public String getOutboundSpillPath() {
+    return outboundSpillPath;
+  }
+
+  /**
+   * Set the directory where the messages exceeding the outbound queue size are spilled, the spilled messages
+   * survive the adapter restarts. Each adapter of a bot spills to its own file of the directory. The messages are
+   * dropped instead when it is {@code null}.
+   *
+   * @param outboundSpillPath the spill directory
+   * @return this object so it can be used fluently
+   */
+  public ClientOptions setOutboundSpillPath(String outboundSpillPath) {
+    this.outboundSpillPath = outboundSpillPath;
+    return this;
+  }
+
+  public int getMaxOutboundSpilled() {
+    return maxOutboundSpilled;
+  }
+
+  /**
+   * Set the maximum number of messages kept in the spill file, the messages beyond are dropped.
+   *
+   * @param maxOutboundSpilled the maximum number of spilled messages
+   * @return this object so it can be used fluently
+   */
+  public ClientOptions setMaxOutboundSpilled(int maxOutboundSpilled) {
+    if (maxOutboundSpilled < 0) {
+      throw new IllegalArgumentException("Invalid max outbound spilled " + maxOutboundSpilled);
+    }
+    this.maxOutboundSpilled = maxOutboundSpilled;
+    return this;
+  }
 }
@@ -16,23 +16,39 @@
 
 package io.nonobot.core.client.impl;
 
+import io.nonobot.core.chat.impl.ChatRouterImpl;
 import io.nonobot.core.client.BotClient;
+import io.nonobot.core.client.BusyException;
 import io.nonobot.core.client.ClientOptions;
+import io.nonobot.core.client.NotHandledException;
 import io.nonobot.core.client.ReceiveOptions;
+import io.nonobot.core.impl.EnvelopeCodecs;
+import io.nonobot.core.impl.InboundMessage;
+import io.nonobot.core.impl.Membership;
+import io.nonobot.core.impl.OutboundMessage;
+import io.nonobot.core.impl.Replier;
 import io.nonobot.core.client.Message;
+import io.nonobot.core.timer.Timeout;
+import io.nonobot.core.timer.TimerWheel;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
 import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -44,44 +60,127 @@ public class BotClientImpl implements BotClient {
   final String name;
   final Vertx vertx;
   final Context context;
-  private volatile Pattern botPattern;
+  volatile Pattern botPattern;
   private final String inboundAddress;
   private final String outboundAddress;
+  private final String replyAddress;
+  private final String directAddress;
+  private final List<String> chatIds = new CopyOnWriteArrayList<>();
+  private final List<String> chatIdPrefixes = new CopyOnWriteArrayList<>();
+  private final MessageConsumer<String> replyConsumer;
+  private final MessageConsumer<Object> outboundConsumer;
+  private final MessageConsumer<Object> directConsumer;
+  private final MessageConsumer<Object> syncConsumer;
+  private final PendingReplies pendingReplies;
+  private final TimerWheel timerWheel;
+  private final Replier directReplier = new DirectReplier();
+  private final Membership membership;
+  private final LongAdder received = new LongAdder();
+  private final LongAdder replies = new LongAdder();
+  private final LongAdder replyTimeouts = new LongAdder();
+  private final LongAdder notHandled = new LongAdder();
+  private final LongAdder busy = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final RateMeter outbound = new RateMeter();
+  private final LongAdder hops = new LongAdder();
+  private final LongAdder hopTime = new LongAdder();
+  private final LongAccumulator maxHopTime = new LongAccumulator(Math::max, 0);
+  private final int maxPendingReplies;
   Handler<Message> messageHandler;
   Handler<Void> closeHandler;
 
   public BotClientImpl(Vertx vertx, Context context, ClientOptions options, Handler<AsyncResult<BotClient>> handler) {
+    this(vertx, context, options, true, handler);
+  }
+
+  /**
+   * @param consumeOutbound whether the client consumes the messages the bot sends to all the clients, otherwise
+   *                        the owner of the client delivers them with {@link #handleOutbound(OutboundMessage)}
+   */
+  public BotClientImpl(Vertx vertx, Context context, ClientOptions options, boolean consumeOutbound, Handler<AsyncResult<BotClient>> handler) {
 
     this.name = options.getName();
     this.inboundAddress = "bots." + name + ".inbound";
     this.outboundAddress = "bots." + name + ".outbound";
+    String id = UUID.randomUUID().toString();
+    this.replyAddress = "bots." + name + ".replies." + id;
+    this.directAddress = outboundAddress + "." + id;
+    this.maxPendingReplies = options.getMaxPendingReplies();
+    this.pendingReplies = new PendingReplies(maxPendingReplies);
+    this.timerWheel = TimerWheel.getShared(vertx);
+    this.context = context;
+    this.vertx = vertx;
+
+    // Observe the partitioned routers, the view only runs a timer once a partitioned router is announced
+    this.membership = vertx.isClustered() ? new Membership(vertx, name) : null;
+    EnvelopeCodecs.register(vertx);
 
     // Default names
     alias(Arrays.asList(name, "@" + name));
 
-    vertx.eventBus().<JsonObject>consumer(outboundAddress, msg -> {
-      String chatId = msg.body().getString("chatId");
-      String body = msg.body().getString("body");
-      handle(new Message() {
-        @Override
-        public String chatId() {
-          return chatId;
-        }
-        @Override
-        public String body() {
-          return body;
-        }
+    // Replies to all received messages are sent to a single address and correlated by id
+    replyConsumer = vertx.eventBus().consumer(replyAddress, this::handleReply);
+    List<MessageConsumer<?>> consumers = new ArrayList<>();
+    consumers.add(replyConsumer);
+    if (consumeOutbound) {
+      outboundConsumer = vertx.eventBus().consumer(outboundAddress, msg -> {
+        handleOutbound(OutboundMessage.of(msg.body()));
       });
-    }).completionHandler(ar -> {
+      consumers.add(outboundConsumer);
+    } else {
+      outboundConsumer = null;
+    }
+
+    // Messages for the chats owned by this client are sent to its own address, the ack lets the router
+    // detect when this client is gone
+    directConsumer = vertx.eventBus().consumer(directAddress, msg -> {
+      msg.reply(null);
+      handleOutbound(OutboundMessage.of(msg.body()));
+    });
+    syncConsumer = vertx.eventBus().consumer("bots." + name + ".ownership.sync", msg -> {
+      announce(chatIds, chatIdPrefixes);
+    });
+
+    consumers.add(directConsumer);
+    consumers.add(syncConsumer);
+    register(consumers.iterator(), ar -> {
       if (ar.succeeded()) {
         handler.handle(Future.succeededFuture(this));
       } else {
         handler.handle(Future.failedFuture(ar.cause()));
       }
     });
+  }
 
-    this.context = context;
-    this.vertx = vertx;
+  private static void register(Iterator<MessageConsumer<?>> consumers, Handler<AsyncResult<Void>> handler) {
+    if (consumers.hasNext()) {
+      consumers.next().completionHandler(ar -> {
+        if (ar.succeeded()) {
+          register(consumers, handler);
+        } else {
+          handler.handle(ar);
+        }
+      });
+    } else {
+      handler.handle(Future.succeededFuture());
+    }
+  }
+
+  /**
+   * Deliver a message sent by the bot to the message handler.
+   */
+  public void handleOutbound(OutboundMessage outbound) {
+    this.outbound.mark();
+    handle(new Message() {
+      @Override
+      public String chatId() {
+        return outbound.chatId;
+      }
+      @Override
+      public String body() {
+        return outbound.body;
+      }
+    });
   }
 
   public void handle(Message msg) {
@@ -90,12 +189,26 @@ public class BotClientImpl implements BotClient {
       handler = messageHandler;
     }
     if (handler != null) {
-      context.runOnContext(v -> {
+      runOnContext(v -> {
         handler.handle(msg);
       });
     }
   }
 
+  /**
+   * Run the {@code action} on the client context, recording the time it waited before running.
+   */
+  private void runOnContext(Handler<Void> action) {
+    long scheduled = System.nanoTime();
+    context.runOnContext(v -> {
+      long time = System.nanoTime() - scheduled;
+      hops.increment();
+      hopTime.add(time);
+      maxHopTime.accumulate(time);
+      action.handle(null);
+    });
+  }
+
   @Override
   public String name() {
     return name;
@@ -106,8 +219,56 @@ public class BotClientImpl implements BotClient {
     return vertx;
   }
 
+  @Override
+  public BotClient claimChat(String chatId) {
+    chatIds.add(chatId);
+    announce(Collections.singletonList(chatId), Collections.emptyList());
+    return this;
+  }
+
+  @Override
+  public BotClient claimChatPrefix(String prefix) {
+    chatIdPrefixes.add(prefix);
+    announce(Collections.emptyList(), Collections.singletonList(prefix));
+    return this;
+  }
+
+  private void announce(List<String> chatIds, List<String> chatIdPrefixes) {
+    if (chatIds.size() > 0 || chatIdPrefixes.size() > 0) {
+      vertx.eventBus().publish("bots." + name + ".ownership", new JsonObject().
+          put("address", directAddress).
+          put("chatIds", new JsonArray(new ArrayList<>(chatIds))).
+          put("chatIdPrefixes", new JsonArray(new ArrayList<>(chatIdPrefixes))));
+    }
+  }
+
   @Override
   public void close() {
+    if (chatIds.size() > 0 || chatIdPrefixes.size() > 0) {
+      vertx.eventBus().publish("bots." + name + ".ownership", new JsonObject().put("address", directAddress).put("release", true));
+    }
+    replyConsumer.unregister();
+    if (outboundConsumer != null) {
+      outboundConsumer.unregister();
+    }
+    directConsumer.unregister();
+    syncConsumer.unregister();
+    if (membership != null) {
+      membership.close();
+    }
+    // The replies will not be received anymore
+    List<PendingReplies.PendingReply> pending = pendingReplies.removeAll();
+    if (pending.size() > 0) {
+      context.runOnContext(v -> {
+        for (PendingReplies.PendingReply reply : pending) {
+          Timeout timeout = reply.timeout;
+          if (timeout != null) {
+            timeout.cancel();
+          }
+          reply.reply.fail(new VertxException("Client closed"));
+        }
+      });
+    }
     Handler<Void> handler;
     synchronized (this) {
       handler = closeHandler;
@@ -142,47 +303,153 @@ public class BotClientImpl implements BotClient {
 
   @Override
   public void receiveMessage(ReceiveOptions options, String message, Handler<AsyncResult<String>> replyHandler) {
-    String replyAddress = UUID.randomUUID().toString();
     Future<String> reply = Future.future();
     reply.setHandler(replyHandler);
-    MessageConsumer<String> consumer = vertx.eventBus().consumer(replyAddress);
-    consumer.handler(msg -> {
-      String content = msg.body();
-      if (content != null && !reply.isComplete()) {
-        if (msg.replyAddress() != null) {
-          msg.reply(null);
-        }
-        reply.complete(content);
-        consumer.unregister();
-      } else {
-        if (msg.replyAddress() != null) {
-          msg.fail(0, "Already replied");
-        }
+    PendingReplies.PendingReply pending = pendingReplies.add(reply);
+    if (pending == null) {
+      rejected.increment();
+      reply.fail(new VertxException("Too many pending replies"));
+      return;
+    }
+    received.increment();
+    pending.timeout = timerWheel.schedule(options.getTimeout(), v -> {
+      if (pendingReplies.remove(pending.correlationId) != null) {
+        replyTimeouts.increment();
+        // Fail it on the client context like the other outcomes
+        runOnContext(v2 -> reply.fail(new Exception("timeout")));
       }
     });
-    consumer.completionHandler(ar -> {
-      if (ar.succeeded()) {
-        Matcher botMatcher = botPattern.matcher(message);
-        JsonObject msg = new JsonObject().put("replyAddress", replyAddress);
-        msg.put("chatId", options.getChatId());
-        if (botMatcher.find()) {
-          msg.put("respond", true);
-          msg.put("content", botMatcher.group(1));
-        } else {
-          msg.put("respond", false);
-          msg.put("content", message);
-        }
-        vertx.eventBus().publish(inboundAddress, msg);
-        vertx.setTimer(options.getTimeout(), timerID -> {
-          if (!reply.isComplete()) {
-            consumer.unregister();
-            reply.fail(new Exception("timeout"));
-          }
-        });
+    Matcher botMatcher = botPattern.matcher(message);
+    boolean respond = botMatcher.find();
+    String content = respond ? botMatcher.group(1) : message;
+    List<ChatRouterImpl> routers = vertx.isClustered() ? Collections.emptyList() : ChatRouterImpl.localRouters(vertx, name);
+    if (routers.size() > 0) {
+      // The routers are in this Vert.x instance, skip the event bus
+      for (ChatRouterImpl router : routers) {
+        router.receive(options.getChatId(), respond, content, pending.correlationId, directReplier);
+      }
+    } else {
+      InboundMessage msg = new InboundMessage(replyAddress, pending.correlationId, options.getChatId(), respond, content);
+      String owner = membership != null ? membership.owner(options.getChatId()) : null;
+      if (owner != null) {
+        // Partitioned routers, send it to the router owning the chat
+        vertx.eventBus().send(owner, msg);
       } else {
-        replyHandler.handle(Future.failedFuture(ar.cause()));
+        vertx.eventBus().publish(inboundAddress, msg);
       }
-    });
+    }
+  }
+
+  /**
+   * @return the addresses of the partitioned routers known by this client
+   */
+  public List<String> partitionMembers() {
+    return membership != null ? membership.members() : Collections.emptyList();
+  }
+
+  private void handleReply(io.vertx.core.eventbus.Message<String> msg) {
+    String correlationId = msg.headers().get(ChatRouterImpl.CORRELATION_HEADER);
+    if (correlationId == null) {
+      return;
+    }
+    String noMatch = msg.headers().get(ChatRouterImpl.NO_MATCH_HEADER);
+    if (noMatch != null) {
+      handleNoMatch(Long.parseLong(correlationId), Integer.parseInt(noMatch));
+    } else if (msg.headers().contains(ChatRouterImpl.BUSY_HEADER)) {
+      handleBusy(Long.parseLong(correlationId));
+    } else if (handleReply(Long.parseLong(correlationId), msg.body())) {
+      if (msg.replyAddress() != null) {
+        msg.reply(null);
+      }
+    } else {
+      if (msg.replyAddress() != null) {
+        msg.fail(0, "Already replied");
+      }
+    }
+  }
+
+  /**
+   * @return true if the reply was pending
+   */
+  private boolean handleReply(long correlationId, String content) {
+    PendingReplies.PendingReply pending = content != null ? pendingReplies.remove(correlationId) : null;
+    if (pending != null) {
+      pending.timeout.cancel();
+      replies.increment();
+      pending.reply.complete(content);
+      return true;
+    }
+    return false;
+  }
+
+  private void handleNoMatch(long correlationId, int routers) {
+    PendingReplies.PendingReply pending = pendingReplies.noMatch(correlationId, routers);
+    if (pending != null) {
+      pending.timeout.cancel();
+      notHandled.increment();
+      pending.reply.fail(new NotHandledException());
+    }
+  }
+
+  private void handleBusy(long correlationId) {
+    PendingReplies.PendingReply pending = pendingReplies.remove(correlationId);
+    if (pending != null) {
+      pending.timeout.cancel();
+      busy.increment();
+      pending.reply.fail(new BusyException());
+    }
+  }
+
+  /**
+   * Receives the replies of the routers of the same Vert.x instance, the reply handlers are called on the client
+   * context like for the replies received from the event bus.
+   */
+  private class DirectReplier implements Replier {
+
+    @Override
+    public void reply(long correlationId, String content, long ackTimeout, Handler<AsyncResult<Void>> ackHandler) {
+      // Like the event bus ack, the ack is delivered on the context of the replying handler
+      Context caller = Vertx.currentContext();
+      runOnContext(v -> {
+        boolean pending = handleReply(correlationId, content);
+        if (ackHandler != null) {
+          AsyncResult<Void> ack = pending ? Future.succeededFuture() : Future.failedFuture("Already replied");
+          if (caller != null) {
+            caller.runOnContext(v2 -> ackHandler.handle(ack));
+          } else {
+            ackHandler.handle(ack);
+          }
+        }
+      });
+    }
+
+    @Override
+    public void noMatch(long correlationId, int routers) {
+      runOnContext(v -> handleNoMatch(correlationId, routers));
+    }
+
+    @Override
+    public void busy(long correlationId) {
+      runOnContext(v -> handleBusy(correlationId));
+    }
+  }
+
+  @Override
+  public JsonObject metrics() {
+    return new JsonObject().
+        put("pendingReplies", pendingReplies.size()).
+        put("maxPendingReplies", maxPendingReplies).
+        put("received", received.sum()).
+        put("replies", replies.sum()).
+        put("replyTimeouts", replyTimeouts.sum()).
+        put("notHandled", notHandled.sum()).
+        put("busy", busy.sum()).
+        put("rejected", rejected.sum()).
+        put("outboundMessages", outbound.count()).
+        put("outboundRate", outbound.rate()).
+        put("contextHops", hops.sum()).
+        put("contextHopTime", hopTime.sum()).
+        put("maxContextHopTime", maxHopTime.get());
   }
 
   @Override
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.client.impl;
+
+import io.nonobot.core.timer.Timeout;
+import io.vertx.core.Future;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The replies a client is waiting for, keyed by correlation id in an open addressing table of primitive longs.<p>
+ *
+ * The number of pending replies is bounded, a new reply cannot be added when the table is full.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class PendingReplies {
+
+  static final class PendingReply {
+
+    final long correlationId;
+    final Future<String> reply;
+    volatile Timeout timeout;
+    private int noMatches;
+    private int routers = 1;
+
+    private PendingReply(long correlationId, Future<String> reply) {
+      this.correlationId = correlationId;
+      this.reply = reply;
+    }
+  }
+
+  private final int maxSize;
+  private long nextId = 1;
+  private long[] keys;
+  private PendingReply[] values;
+  private int size;
+
+  PendingReplies(int maxSize) {
+    this.maxSize = maxSize;
+    this.keys = new long[16];
+    this.values = new PendingReply[16];
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Add a pending reply.
+   *
+   * @param reply the reply future
+   * @return the pending reply or {@code null} when the table is full
+   */
+  synchronized PendingReply add(Future<String> reply) {
+    if (size >= maxSize) {
+      return null;
+    }
+    if ((size + 1) * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+    PendingReply pending = new PendingReply(nextId++, reply);
+    int index = indexOf(pending.correlationId, keys.length);
+    while (keys[index] != 0) {
+      index = (index + 1) & (keys.length - 1);
+    }
+    keys[index] = pending.correlationId;
+    values[index] = pending;
+    size++;
+    return pending;
+  }
+
+  /**
+   * Remove a pending reply.
+   *
+   * @param correlationId the reply correlation id
+   * @return the removed reply or {@code null} if there is no such reply
+   */
+  synchronized PendingReply remove(long correlationId) {
+    int index = find(correlationId);
+    if (index < 0) {
+      return null;
+    }
+    PendingReply pending = values[index];
+    removeAt(index);
+    return pending;
+  }
+
+  /**
+   * Signal a router did not match the message, the reply is removed once all the routers have answered.
+   *
+   * @param correlationId the reply correlation id
+   * @param routers the number of routers on the node of the signaling router
+   * @return the removed reply or {@code null}
+   */
+  synchronized PendingReply noMatch(long correlationId, int routers) {
+    int index = find(correlationId);
+    if (index < 0) {
+      return null;
+    }
+    PendingReply pending = values[index];
+    pending.noMatches++;
+    pending.routers = Math.max(pending.routers, routers);
+    if (pending.noMatches < pending.routers) {
+      return null;
+    }
+    removeAt(index);
+    return pending;
+  }
+
+  /**
+   * Remove all the pending replies.
+   *
+   * @return the removed replies
+   */
+  synchronized List<PendingReply> removeAll() {
+    List<PendingReply> removed = new ArrayList<>(size);
+    for (int i = 0;i < keys.length;i++) {
+      if (keys[i] != 0) {
+        removed.add(values[i]);
+        keys[i] = 0;
+        values[i] = null;
+      }
+    }
+    size = 0;
+    return removed;
+  }
+
+  private static int indexOf(long key, int length) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & (length - 1);
+  }
+
+  private int find(long key) {
+    int index = indexOf(key, keys.length);
+    while (keys[index] != 0) {
+      if (keys[index] == key) {
+        return index;
+      }
+      index = (index + 1) & (keys.length - 1);
+    }
+    return -1;
+  }
+
+  /**
+   * Remove the entry at {@code index} and shift back the following entries of the probe sequence.
+   */
+  private void removeAt(int index) {
+    int mask = keys.length - 1;
+    keys[index] = 0;
+    values[index] = null;
+    size--;
+    int next = (index + 1) & mask;
+    while (keys[next] != 0) {
+      int ideal = indexOf(keys[next], keys.length);
+      // Move the entry back if the hole lies between its ideal slot and its current slot
+      if (((next - ideal) & mask) >= ((next - index) & mask)) {
+        keys[index] = keys[next];
+        values[index] = values[next];
+        keys[next] = 0;
+        values[next] = null;
+        index = next;
+      }
+      next = (next + 1) & mask;
+    }
+  }
+
+  private void resize(int length) {
+    long[] oldKeys = keys;
+    PendingReply[] oldValues = values;
+    keys = new long[length];
+    values = new PendingReply[length];
+    for (int i = 0;i < oldKeys.length;i++) {
+      if (oldKeys[i] != 0) {
+        int index = indexOf(oldKeys[i], length);
+        while (keys[index] != 0) {
+          index = (index + 1) & (length - 1);
+        }
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.client.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events and estimates their one minute rate with an exponentially weighted moving average, like the Unix
+ * load average. The average is updated every five seconds by the thread marking or reading the meter first after
+ * the tick, so the meter needs no timer.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class RateMeter {
+
+  private static final long TICK = TimeUnit.SECONDS.toNanos(5);
+  private static final double ALPHA = 1 - Math.exp(-5d / 60d);
+
+  private final LongAdder count = new LongAdder();
+  private final LongAdder uncounted = new LongAdder();
+  private final AtomicLong lastTick = new AtomicLong(System.nanoTime());
+  private volatile double rate;
+  private volatile boolean initialized;
+
+  void mark() {
+    tickIfNecessary();
+    count.increment();
+    uncounted.increment();
+  }
+
+  /**
+   * @return the number of marked events
+   */
+  long count() {
+    return count.sum();
+  }
+
+  /**
+   * @return the one minute average rate in events per second
+   */
+  double rate() {
+    tickIfNecessary();
+    return rate;
+  }
+
+  private void tickIfNecessary() {
+    long old = lastTick.get();
+    long now = System.nanoTime();
+    long age = now - old;
+    if (age > TICK && lastTick.compareAndSet(old, now - age % TICK)) {
+      // Only the thread that moved the tick updates the average
+      for (long ticks = age / TICK;ticks > 0;ticks--) {
+        tick();
+      }
+    }
+  }
+
+  private void tick() {
+    double instant = uncounted.sumThenReset() / (double) TimeUnit.NANOSECONDS.toSeconds(TICK);
+    if (initialized) {
+      rate += ALPHA * (instant - rate);
+    } else {
+      rate = instant;
+      initialized = true;
+    }
+  }
+}
@@ -31,7 +31,7 @@ public class TimerHandler extends BaseHandlerVerticle {
     router.respond("^timer\\s+([0-9]+)", msg -> {
       long period = Long.parseLong(msg.matchedGroup(1));
       msg.reply("Timer will fire in " + period + " ms");
-      vertx.setTimer(period, h -> {
+      bot.timerWheel().schedule(period, v -> {
         router.sendMessage(new SendOptions().setChatId(msg.chatId()), "Timer fired");
       });
     });
@@ -20,6 +20,7 @@ import io.nonobot.core.Bot;
 import io.nonobot.core.BotOptions;
 import io.nonobot.core.chat.ChatRouter;
 import io.nonobot.core.chat.impl.ChatRouterImpl;
+import io.nonobot.core.timer.TimerWheel;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
@@ -61,7 +62,7 @@ public class BotImpl implements Bot {
   static final ConcurrentMap<Key, BotImpl> bots = new ConcurrentHashMap<>();
 
   public static Bot createShared(Vertx vertx, BotOptions options, Handler<AsyncResult<Void>> completionHandler) {
-    BotImpl bot = bots.computeIfAbsent(new Key(vertx, options.getName()), key -> new BotImpl(vertx, options.getName()));
+    BotImpl bot = bots.computeIfAbsent(new Key(vertx, options.getName()), key -> new BotImpl(vertx, options));
     HttpServer server;
     if (options.getHttpServerOptions() != null) {
       server = vertx.createHttpServer(options.getHttpServerOptions());
@@ -91,6 +92,10 @@ public class BotImpl implements Bot {
         return bot.webRouter();
       }
       @Override
+      public TimerWheel timerWheel() {
+        return bot.timerWheel();
+      }
+      @Override
       public String name() {
         return bot.name();
       }
@@ -114,12 +119,18 @@ public class BotImpl implements Bot {
   private boolean closed;
   private ChatRouterImpl chatRouter;
   private Router webRouter;
+  private TimerWheel timerWheel;
 
   public BotImpl(Vertx vertx, String name) {
+    this(vertx, new BotOptions().setName(name));
+  }
+
+  public BotImpl(Vertx vertx, BotOptions options) {
     this.vertx = vertx;
-    this.name = name;
-    this.chatRouter = new ChatRouterImpl(vertx, name);
+    this.name = options.getName();
+    this.chatRouter = new ChatRouterImpl(vertx, options);
     this.webRouter = Router.router(vertx);
+    this.timerWheel = TimerWheel.getShared(vertx);
 
     webRouter.route("/*").handler(ctx -> {
       HttpServerRequest req = ctx.request();
@@ -132,6 +143,9 @@ public class BotImpl implements Bot {
           ctx.next();
       }
     });
+    webRouter.get("/metrics").handler(ctx -> {
+      ctx.response().putHeader("Content-Type", ChatRouterImpl.prometheusContentType()).end(chatRouter.prometheusMetrics());
+    });
   }
 
   @Override
@@ -149,6 +163,11 @@ public class BotImpl implements Bot {
     return vertx;
   }
 
+  @Override
+  public TimerWheel timerWheel() {
+    return timerWheel;
+  }
+
   public String name() {
     return name;
   }
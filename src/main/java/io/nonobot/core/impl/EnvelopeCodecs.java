@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.impl;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.eventbus.MessageCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The event bus codecs of the {@link InboundMessage} and {@link OutboundMessage} envelopes.<p>
+ *
+ * Envelopes are immutable, the local delivery passes the envelope as is. The clustered delivery encodes the
+ * envelope fields in a compact binary format: strings are written as their UTF-8 length followed by their bytes,
+ * a {@code -1} length stands for {@code null}.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public final class EnvelopeCodecs {
+
+  private static final Set<EventBus> registered = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+  private EnvelopeCodecs() {
+  }
+
+  /**
+   * Register the envelope codecs as default codecs of the Vert.x event bus, unless they are already registered.
+   *
+   * @param vertx the Vert.x instance
+   */
+  public static void register(Vertx vertx) {
+    EventBus eventBus = vertx.eventBus();
+    synchronized (registered) {
+      if (registered.add(eventBus)) {
+        eventBus.registerDefaultCodec(InboundMessage.class, new InboundCodec());
+        eventBus.registerDefaultCodec(OutboundMessage.class, new OutboundCodec());
+      }
+    }
+  }
+
+  public static final class InboundCodec implements MessageCodec<InboundMessage, InboundMessage> {
+
+    @Override
+    public void encodeToWire(Buffer buffer, InboundMessage msg) {
+      buffer.appendLong(msg.correlationId);
+      buffer.appendByte((byte) (msg.respond ? 1 : 0));
+      writeString(buffer, msg.replyAddress);
+      writeString(buffer, msg.chatId);
+      writeString(buffer, msg.content);
+    }
+
+    @Override
+    public InboundMessage decodeFromWire(int pos, Buffer buffer) {
+      long correlationId = buffer.getLong(pos);
+      boolean respond = buffer.getByte(pos + 8) != 0;
+      int[] cursor = { pos + 9 };
+      String replyAddress = readString(buffer, cursor);
+      String chatId = readString(buffer, cursor);
+      String content = readString(buffer, cursor);
+      return new InboundMessage(replyAddress, correlationId, chatId, respond, content);
+    }
+
+    @Override
+    public InboundMessage transform(InboundMessage msg) {
+      return msg;
+    }
+
+    @Override
+    public String name() {
+      return "nonobot.inbound";
+    }
+
+    @Override
+    public byte systemCodecID() {
+      return -1;
+    }
+  }
+
+  public static final class OutboundCodec implements MessageCodec<OutboundMessage, OutboundMessage> {
+
+    @Override
+    public void encodeToWire(Buffer buffer, OutboundMessage msg) {
+      writeString(buffer, msg.chatId);
+      writeString(buffer, msg.body);
+    }
+
+    @Override
+    public OutboundMessage decodeFromWire(int pos, Buffer buffer) {
+      int[] cursor = { pos };
+      String chatId = readString(buffer, cursor);
+      String body = readString(buffer, cursor);
+      return new OutboundMessage(chatId, body);
+    }
+
+    @Override
+    public OutboundMessage transform(OutboundMessage msg) {
+      return msg;
+    }
+
+    @Override
+    public String name() {
+      return "nonobot.outbound";
+    }
+
+    @Override
+    public byte systemCodecID() {
+      return -1;
+    }
+  }
+
+  private static void writeString(Buffer buffer, String s) {
+    if (s == null) {
+      buffer.appendInt(-1);
+    } else {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      buffer.appendInt(bytes.length);
+      buffer.appendBytes(bytes);
+    }
+  }
+
+  private static String readString(Buffer buffer, int[] cursor) {
+    int len = buffer.getInt(cursor[0]);
+    cursor[0] += 4;
+    if (len < 0) {
+      return null;
+    }
+    String s = new String(buffer.getBytes(cursor[0], cursor[0] + len), StandardCharsets.UTF_8);
+    cursor[0] += len;
+    return s;
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable consistent hash ring: each member is placed at several points of the ring, a key belongs to the
+ * member of the first point following the key hash. Adding or removing a member only moves the keys of the ring
+ * segments it gains or loses.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public final class HashRing {
+
+  public static final int DEFAULT_VIRTUAL_NODES = 64;
+
+  private final long[] points;
+  private final String[] members;
+
+  public HashRing(Collection<String> members) {
+    this(members, DEFAULT_VIRTUAL_NODES);
+  }
+
+  public HashRing(Collection<String> members, int virtualNodes) {
+    long[][] entries = new long[members.size() * virtualNodes][];
+    String[] sorted = members.toArray(new String[members.size()]);
+    Arrays.sort(sorted);
+    int size = 0;
+    for (int index = 0;index < sorted.length;index++) {
+      for (int node = 0;node < virtualNodes;node++) {
+        entries[size++] = new long[]{hash(sorted[index] + "#" + node), index};
+      }
+    }
+    Arrays.sort(entries, (e1, e2) -> Long.compare(e1[0], e2[0]));
+    this.points = new long[size];
+    this.members = new String[size];
+    for (int i = 0;i < size;i++) {
+      points[i] = entries[i][0];
+      this.members[i] = sorted[(int) entries[i][1]];
+    }
+  }
+
+  /**
+   * @return true when the ring has no member
+   */
+  public boolean isEmpty() {
+    return points.length == 0;
+  }
+
+  /**
+   * @return the member owning the {@code key} or {@code null} when the ring is empty
+   */
+  public String owner(String key) {
+    if (points.length == 0) {
+      return null;
+    }
+    int index = Arrays.binarySearch(points, hash(key != null ? key : ""));
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return members[index == points.length ? 0 : index];
+  }
+
+  /**
+   * 64 bits FNV-1a hash of the string chars followed by a final avalanche.
+   */
+  static long hash(String s) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0;i < s.length();i++) {
+      h ^= s.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
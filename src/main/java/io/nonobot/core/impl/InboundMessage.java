@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.impl;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The envelope of a message received by a client and sent to the chat routers.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public final class InboundMessage {
+
+  /**
+   * Convert an inbound event bus message body to an envelope, a {@code JsonObject} body is accepted for
+   * compatibility with the json envelopes.
+   *
+   * @param body the message body
+   * @return the envelope
+   */
+  public static InboundMessage of(Object body) {
+    if (body instanceof InboundMessage) {
+      return (InboundMessage) body;
+    }
+    JsonObject json = (JsonObject) body;
+    return new InboundMessage(
+        json.getString("replyAddress"),
+        json.getLong("correlationId", 0L),
+        json.getString("chatId"),
+        json.getBoolean("respond", false),
+        json.getString("content"));
+  }
+
+  public final String replyAddress;
+  public final long correlationId;
+  public final String chatId;
+  public final boolean respond;
+  public final String content;
+
+  public InboundMessage(String replyAddress, long correlationId, String chatId, boolean respond, String content) {
+    this.replyAddress = replyAddress;
+    this.correlationId = correlationId;
+    this.chatId = chatId;
+    this.respond = respond;
+    this.content = content;
+  }
+
+  public JsonObject toJson() {
+    return new JsonObject().
+        put("replyAddress", replyAddress).
+        put("correlationId", correlationId).
+        put("chatId", chatId).
+        put("respond", respond).
+        put("content", content);
+  }
+}
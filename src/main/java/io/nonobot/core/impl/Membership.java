@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.impl;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The view of the partitioned routers of a bot. Routers announce their address with a heartbeat published on
+ * {@code bots.<name>.members}, a member missing {@link #MISSED_HEARTBEATS} heartbeats is removed, a closing router
+ * announces it leaves. The members are placed on a {@link HashRing} that assigns the chat ids to the routers.<p>
+ *
+ * A new view asks the members to announce themselves immediately on {@code bots.<name>.members.sync}. A view that only
+ * observes the members runs its sweep timer only while there are members.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class Membership {
+
+  public static final long DEFAULT_SWEEP_PERIOD = 1000;
+  public static final int MISSED_HEARTBEATS = 3;
+
+  private final Vertx vertx;
+  private final String address;
+  private final String localAddress;
+  private final long heartbeatPeriod;
+  private final Map<String, Long> deadlines = new HashMap<>();
+  private final MessageConsumer<JsonObject> heartbeatConsumer;
+  private final MessageConsumer<Object> syncConsumer;
+  private long timerId = -1;
+  private boolean closed;
+  private volatile HashRing ring = new HashRing(new ArrayList<>());
+
+  /**
+   * Create a view that only observes the members.
+   *
+   * @param vertx the Vert.x instance
+   * @param name the bot name
+   */
+  public Membership(Vertx vertx, String name) {
+    this(vertx, name, null, DEFAULT_SWEEP_PERIOD);
+  }
+
+  /**
+   * Create a view that also announces the member at {@code localAddress} every {@code heartbeatPeriod} ms.
+   *
+   * @param vertx the Vert.x instance
+   * @param name the bot name
+   * @param localAddress the address of the local member or {@code null}
+   * @param heartbeatPeriod the heartbeat period in ms
+   */
+  public Membership(Vertx vertx, String name, String localAddress, long heartbeatPeriod) {
+    this.vertx = vertx;
+    this.address = "bots." + name + ".members";
+    this.localAddress = localAddress;
+    this.heartbeatPeriod = heartbeatPeriod;
+    this.heartbeatConsumer = vertx.eventBus().consumer(address, msg -> handleHeartbeat(msg.body()));
+    this.syncConsumer = localAddress != null ? vertx.eventBus().consumer(address + ".sync", msg -> heartbeat()) : null;
+    if (localAddress != null) {
+      this.timerId = vertx.setPeriodic(heartbeatPeriod, id -> {
+        heartbeat();
+        sweep();
+      });
+    }
+    heartbeatConsumer.completionHandler(ar -> {
+      if (ar.succeeded()) {
+        vertx.eventBus().publish(address + ".sync", null);
+        heartbeat();
+      }
+    });
+  }
+
+  private void heartbeat() {
+    if (localAddress != null) {
+      vertx.eventBus().publish(address, new JsonObject().put("address", localAddress).put("period", heartbeatPeriod));
+    }
+  }
+
+  private void handleHeartbeat(JsonObject heartbeat) {
+    String member = heartbeat.getString("address");
+    synchronized (this) {
+      if (heartbeat.getBoolean("leave", false)) {
+        if (deadlines.remove(member) != null) {
+          update();
+        }
+      } else {
+        long deadline = System.currentTimeMillis() + MISSED_HEARTBEATS * heartbeat.getLong("period");
+        if (deadlines.put(member, deadline) == null) {
+          update();
+        }
+      }
+    }
+  }
+
+  private synchronized void sweep() {
+    long now = System.currentTimeMillis();
+    if (deadlines.values().removeIf(deadline -> deadline - now < 0)) {
+      update();
+    }
+  }
+
+  private void update() {
+    ring = new HashRing(deadlines.keySet());
+    if (localAddress == null && !closed) {
+      if (deadlines.isEmpty()) {
+        if (timerId != -1) {
+          vertx.cancelTimer(timerId);
+          timerId = -1;
+        }
+      } else if (timerId == -1) {
+        timerId = vertx.setPeriodic(heartbeatPeriod, id -> sweep());
+      }
+    }
+  }
+
+  /**
+   * @return the address of the member owning the {@code chatId} or {@code null} when there is no member
+   */
+  public String owner(String chatId) {
+    return ring.owner(chatId);
+  }
+
+  /**
+   * @return true when there is no member
+   */
+  public boolean isEmpty() {
+    return ring.isEmpty();
+  }
+
+  /**
+   * @return the addresses of the current members
+   */
+  public synchronized List<String> members() {
+    return new ArrayList<>(deadlines.keySet());
+  }
+
+  /**
+   * Close the view, the local member announces it leaves.
+   */
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      if (timerId != -1) {
+        vertx.cancelTimer(timerId);
+        timerId = -1;
+      }
+    }
+    heartbeatConsumer.unregister();
+    if (syncConsumer != null) {
+      syncConsumer.unregister();
+    }
+    if (localAddress != null) {
+      vertx.eventBus().publish(address, new JsonObject().put("address", localAddress).put("leave", true));
+    }
+  }
+}
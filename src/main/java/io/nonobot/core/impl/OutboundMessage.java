@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.impl;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The envelope of a message sent by a chat router to the clients.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public final class OutboundMessage {
+
+  /**
+   * Convert an outbound event bus message body to an envelope, a {@code JsonObject} body is accepted for
+   * compatibility with the json envelopes.
+   *
+   * @param body the message body
+   * @return the envelope
+   */
+  public static OutboundMessage of(Object body) {
+    if (body instanceof OutboundMessage) {
+      return (OutboundMessage) body;
+    }
+    JsonObject json = (JsonObject) body;
+    return new OutboundMessage(json.getString("chatId"), json.getString("body"));
+  }
+
+  public final String chatId;
+  public final String body;
+
+  public OutboundMessage(String chatId, String body) {
+    this.chatId = chatId;
+    this.body = body;
+  }
+
+  public JsonObject toJson() {
+    return new JsonObject().put("chatId", chatId).put("body", body);
+  }
+}
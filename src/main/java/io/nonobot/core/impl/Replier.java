@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+/**
+ * Delivers the outcome of an inbound message dispatch to the client that received the message.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public interface Replier {
+
+  /**
+   * Reply to the message.
+   *
+   * @param correlationId the message correlation id
+   * @param content the reply content
+   * @param ackTimeout the ack timeout
+   * @param ackHandler the handler notified when the client acknowledged the reply, may be {@code null}
+   */
+  void reply(long correlationId, String content, long ackTimeout, Handler<AsyncResult<Void>> ackHandler);
+
+  /**
+   * Signal no handler matched the message.
+   *
+   * @param correlationId the message correlation id
+   * @param routers the number of routers for the bot on the router node
+   */
+  void noMatch(long correlationId, int routers);
+
+  /**
+   * Signal the message was shed because the router is too busy.
+   *
+   * @param correlationId the message correlation id
+   */
+  void busy(long correlationId);
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.journal;
+
+import io.nonobot.core.journal.impl.JournalImpl;
+import io.vertx.core.json.JsonObject;
+
+import java.util.function.Consumer;
+
+/**
+ * An append only journal of the chat router traffic stored in memory mapped segment files.<p>
+ *
+ * Appending an entry never blocks: the entry is queued and a writer thread writes the queued entries in batches,
+ * each batch is committed at once (group commit). The readers only see the committed entries, each entry is
+ * identified by its position in the journal.<p>
+ *
+ * A journal directory can be opened by a single journal at a time, see {@link #openReadOnly(String)} for reading
+ * a journal directory that is open.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public interface Journal {
+
+  /**
+   * Open the journal, the existing segments of the journal directory are recovered.
+   *
+   * @param options the journal options
+   * @return the journal
+   */
+  static Journal open(JournalOptions options) {
+    return new JournalImpl(options);
+  }
+
+  /**
+   * Open a journal directory for reading only: the committed segments are mapped read only, the directory is
+   * neither locked nor modified and appending to the journal drops the entries. This is meant for reading a
+   * journal captured by another process, the entries appended after the journal is opened are not visible.
+   *
+   * @param path the journal directory
+   * @return the journal
+   */
+  static Journal openReadOnly(String path) {
+    return new JournalImpl(path);
+  }
+
+  /**
+   * Append an entry to the journal.
+   *
+   * @param type the entry type
+   * @param chatId the chat id
+   * @param correlationId the correlation id
+   * @param respond whether the message is addressed to the bot
+   * @param content the message content
+   * @return false when the entry is dropped because the journal is closed, the writer failed or is too far behind
+   */
+  boolean append(EntryType type, String chatId, long correlationId, boolean respond, String content);
+
+  /**
+   * Wait until the entries appended before this call are committed, this must not be called from an event loop.
+   * Once the journal is closed, this waits until the writer has released the journal directory.
+   *
+   * @return the committed position
+   */
+  long flush();
+
+  /**
+   * @return the position of the first retained entry
+   */
+  long firstPosition();
+
+  /**
+   * @return the position following the last committed entry
+   */
+  long position();
+
+  /**
+   * @param timestamp the timestamp in milliseconds since the epoch
+   * @return the position of the first committed entry appended at or after the {@code timestamp}, or
+   *         {@link #position()} when there is none
+   */
+  long positionOf(long timestamp);
+
+  /**
+   * Create a reader of the committed entries starting at {@code position}, a position before the first retained
+   * entry starts at the first retained entry.
+   *
+   * @param position the position of the first entry to read
+   * @return the reader
+   */
+  JournalReader reader(long position);
+
+  /**
+   * Scan the committed entries between two positions.
+   *
+   * @param from the position of the first entry
+   * @param to the position where the scan stops, exclusive
+   * @param consumer the entry consumer
+   */
+  default void scan(long from, long to, Consumer<JournalEntry> consumer) {
+    try (JournalReader reader = reader(from)) {
+      JournalEntry entry;
+      while ((entry = reader.next()) != null && entry.position() < to) {
+        consumer.accept(entry);
+      }
+    }
+  }
+
+  /**
+   * @return the journal metrics: the number of {@code appended}, {@code dropped} and {@code written} entries, the
+   *         number of committed {@code batches}, the number of written {@code bytes}, the number of retained
+   *         {@code segments}, the {@code firstPosition}, the {@code position}, the number of segments the
+   *         retention failed to delete ({@code deleteFailures}) and the {@code failure} of the writer or
+   *         {@code null}
+   */
+  JsonObject metrics();
+
+  /**
+   * Close the journal, the entries queued are committed by the writer before it releases the journal directory.
+   * This does not wait for the writer, see {@link #flush()}.
+   */
+  void close();
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.journal;
+
+/**
+ * An entry of the journal: an envelope of the chat router traffic.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public final class JournalEntry {
+
+  private final long position;
+  private final long timestamp;
+  private final EntryType type;
+  private final String chatId;
+  private final long correlationId;
+  private final boolean respond;
+  private final String content;
+
+  public JournalEntry(long position, long timestamp, EntryType type, String chatId, long correlationId, boolean respond, String content) {
+    this.position = position;
+    this.timestamp = timestamp;
+    this.type = type;
+    this.chatId = chatId;
+    this.correlationId = correlationId;
+    this.respond = respond;
+    this.content = content;
+  }
+
+  /**
+   * @return the position of the entry in the journal or {@code -1} for an entry not yet written
+   */
+  public long position() {
+    return position;
+  }
+
+  /**
+   * @return the time the entry was appended in milliseconds since the epoch
+   */
+  public long timestamp() {
+    return timestamp;
+  }
+
+  public EntryType type() {
+    return type;
+  }
+
+  /**
+   * @return the chat id, it can be {@code null}
+   */
+  public String chatId() {
+    return chatId;
+  }
+
+  /**
+   * @return the correlation id of the received message and of its reply, {@code 0} for an outbound message
+   */
+  public long correlationId() {
+    return correlationId;
+  }
+
+  /**
+   * @return whether the received message is addressed to the bot
+   */
+  public boolean respond() {
+    return respond;
+  }
+
+  /**
+   * @return the message content
+   */
+  public String content() {
+    return content;
+  }
+
+  @Override
+  public String toString() {
+    return "JournalEntry[position=" + position + ",timestamp=" + timestamp + ",type=" + type + ",chatId=" + chatId +
+        ",correlationId=" + correlationId + ",respond=" + respond + ",content=" + content + "]";
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.journal;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The options of the message journal.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@DataObject
+public class JournalOptions {
+
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  public static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+  public static final int DEFAULT_MAX_QUEUED = 65536;
+  public static final boolean DEFAULT_SYNC = true;
+  public static final long DEFAULT_RETENTION_TIME = 7 * 24 * 60 * 60 * 1000L;
+  public static final long DEFAULT_RETENTION_PERIOD = 60 * 1000L;
+
+  private String path;
+  private int segmentSize;
+  private int maxBatchSize;
+  private int maxQueued;
+  private boolean sync;
+  private long retentionTime;
+  private long retentionPeriod;
+
+  public JournalOptions() {
+    path = null;
+    segmentSize = DEFAULT_SEGMENT_SIZE;
+    maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    maxQueued = DEFAULT_MAX_QUEUED;
+    sync = DEFAULT_SYNC;
+    retentionTime = DEFAULT_RETENTION_TIME;
+    retentionPeriod = DEFAULT_RETENTION_PERIOD;
+  }
+
+  public JournalOptions(JsonObject json) {
+    path = json.getString("path");
+    segmentSize = json.getInteger("segmentSize", DEFAULT_SEGMENT_SIZE);
+    maxBatchSize = json.getInteger("maxBatchSize", DEFAULT_MAX_BATCH_SIZE);
+    maxQueued = json.getInteger("maxQueued", DEFAULT_MAX_QUEUED);
+    sync = json.getBoolean("sync", DEFAULT_SYNC);
+    retentionTime = json.getLong("retentionTime", DEFAULT_RETENTION_TIME);
+    retentionPeriod = json.getLong("retentionPeriod", DEFAULT_RETENTION_PERIOD);
+  }
+
+  public JournalOptions(JournalOptions that) {
+    path = that.path;
+    segmentSize = that.segmentSize;
+    maxBatchSize = that.maxBatchSize;
+    maxQueued = that.maxQueued;
+    sync = that.sync;
+    retentionTime = that.retentionTime;
+    retentionPeriod = that.retentionPeriod;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * @param path the directory of the journal segment files, it is created when it does not exist
+   * @return this object so it can be used fluently
+   */
+  public JournalOptions setPath(String path) {
+    this.path = path;
+    return this;
+  }
+
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+
+  /**
+   * Set the size of a segment file, a new segment is started when an entry does not fit in the current one. An
+   * entry larger than a segment cannot be journaled.
+   *
+   * @param segmentSize the segment size in bytes
+   * @return this object so it can be used fluently
+   */
+  public JournalOptions setSegmentSize(int segmentSize) {
+    if (segmentSize < 4096) {
+      throw new IllegalArgumentException("Invalid segment size " + segmentSize);
+    }
+    this.segmentSize = segmentSize;
+    return this;
+  }
+
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /**
+   * @param maxBatchSize the maximum number of entries written and committed together
+   * @return this object so it can be used fluently
+   */
+  public JournalOptions setMaxBatchSize(int maxBatchSize) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("Invalid max batch size " + maxBatchSize);
+    }
+    this.maxBatchSize = maxBatchSize;
+    return this;
+  }
+
+  public int getMaxQueued() {
+    return maxQueued;
+  }
+
+  /**
+   * Set the maximum number of entries waiting for the journal writer, the entries appended beyond this limit are
+   * dropped rather than blocking the event loop.
+   *
+   * @param maxQueued the maximum number of queued entries
+   * @return this object so it can be used fluently
+   */
+  public JournalOptions setMaxQueued(int maxQueued) {
+    if (maxQueued < 1) {
+      throw new IllegalArgumentException("Invalid max queued " + maxQueued);
+    }
+    this.maxQueued = maxQueued;
+    return this;
+  }
+
+  public boolean isSync() {
+    return sync;
+  }
+
+  /**
+   * @param sync whether each batch is forced to the storage device before being visible to the readers
+   * @return this object so it can be used fluently
+   */
+  public JournalOptions setSync(boolean sync) {
+    this.sync = sync;
+    return this;
+  }
+
+  public long getRetentionTime() {
+    return retentionTime;
+  }
+
+  /**
+   * Set how long the entries are retained, a segment is deleted once all its entries are older. A zero retention
+   * time keeps the segments forever.
+   *
+   * @param retentionTime the retention time in milliseconds
+   * @return this object so it can be used fluently
+   */
+  public JournalOptions setRetentionTime(long retentionTime) {
+    if (retentionTime < 0) {
+      throw new IllegalArgumentException("Invalid retention time " + retentionTime);
+    }
+    this.retentionTime = retentionTime;
+    return this;
+  }
+
+  public long getRetentionPeriod() {
+    return retentionPeriod;
+  }
+
+  /**
+   * @param retentionPeriod the period in milliseconds of the retention checks
+   * @return this object so it can be used fluently
+   */
+  public JournalOptions setRetentionPeriod(long retentionPeriod) {
+    if (retentionPeriod < 1) {
+      throw new IllegalArgumentException("Invalid retention period " + retentionPeriod);
+    }
+    this.retentionPeriod = retentionPeriod;
+    return this;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.journal;
+
+/**
+ * Reads the committed entries of a journal in order.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public interface JournalReader extends AutoCloseable {
+
+  /**
+   * Read the next entry, a reader at the end of the journal can read the entries committed later.
+   *
+   * @return the next entry or {@code null} when there is no committed entry to read
+   */
+  JournalEntry next();
+
+  /**
+   * @return the position of the next entry to read
+   */
+  long position();
+
+  @Override
+  void close();
+
+}
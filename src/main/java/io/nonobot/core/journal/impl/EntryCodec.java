@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.journal.impl;
+
+import io.nonobot.core.journal.EntryType;
+import io.nonobot.core.journal.JournalEntry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Encodes the journal entries in a segment buffer.<p>
+ *
+ * An entry is a record made of its payload length, the CRC32 of its payload and its payload: the timestamp, the
+ * type ordinal, the respond flag, the correlation id, the chat id and the content. Strings are written as their
+ * UTF-8 length, or {@code -1} for {@code null}, followed by their bytes. The length is written last, so a record
+ * with a zero length is the end of the written data.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class EntryCodec {
+
+  static final int RECORD_HEADER = 8;
+  private static final int FIXED_PAYLOAD = 8 + 1 + 1 + 8 + 4 + 4;
+  private static final EntryType[] TYPES = EntryType.values();
+
+  private EntryCodec() {
+  }
+
+  static byte[] bytes(String s) {
+    return s != null ? s.getBytes(StandardCharsets.UTF_8) : null;
+  }
+
+  /**
+   * @return the size of the record of an entry with the encoded {@code chatId} and {@code content}
+   */
+  static int size(byte[] chatId, byte[] content) {
+    return RECORD_HEADER + FIXED_PAYLOAD + (chatId != null ? chatId.length : 0) + (content != null ? content.length : 0);
+  }
+
+  /**
+   * Write the record of an entry at {@code offset}, the buffer must have room for {@link #size(byte[], byte[])}
+   * bytes.
+   */
+  static void write(ByteBuffer buffer, int offset, JournalEntry entry, byte[] chatId, byte[] content, CRC32 crc) {
+    ByteBuffer payload = buffer.duplicate();
+    payload.position(offset + RECORD_HEADER);
+    payload.putLong(entry.timestamp());
+    payload.put((byte) entry.type().ordinal());
+    payload.put((byte) (entry.respond() ? 1 : 0));
+    payload.putLong(entry.correlationId());
+    putBytes(payload, chatId);
+    putBytes(payload, content);
+    int length = payload.position() - offset - RECORD_HEADER;
+    payload.flip();
+    payload.position(offset + RECORD_HEADER);
+    crc.reset();
+    crc.update(payload);
+    buffer.putInt(offset + 4, (int) crc.getValue());
+    buffer.putInt(offset, length);
+  }
+
+  private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+    if (bytes != null) {
+      buffer.putInt(bytes.length);
+      buffer.put(bytes);
+    } else {
+      buffer.putInt(-1);
+    }
+  }
+
+  /**
+   * @return the size of the valid record at {@code offset} or {@code 0} when there is none
+   */
+  static int recordSize(ByteBuffer buffer, int offset, CRC32 crc) {
+    if (offset + RECORD_HEADER > buffer.capacity()) {
+      return 0;
+    }
+    int length = buffer.getInt(offset);
+    if (length < FIXED_PAYLOAD || length > buffer.capacity() - offset - RECORD_HEADER) {
+      return 0;
+    }
+    ByteBuffer payload = buffer.duplicate();
+    payload.limit(offset + RECORD_HEADER + length);
+    payload.position(offset + RECORD_HEADER);
+    crc.reset();
+    crc.update(payload);
+    if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+      return 0;
+    }
+    return RECORD_HEADER + length;
+  }
+
+  /**
+   * Read the valid record at {@code offset}, see {@link #recordSize(ByteBuffer, int, CRC32)}.
+   */
+  static JournalEntry read(ByteBuffer buffer, int offset, long position) {
+    ByteBuffer payload = buffer.duplicate();
+    payload.position(offset + RECORD_HEADER);
+    long timestamp = payload.getLong();
+    EntryType type = TYPES[payload.get()];
+    boolean respond = payload.get() != 0;
+    long correlationId = payload.getLong();
+    String chatId = getString(payload);
+    String content = getString(payload);
+    return new JournalEntry(position, timestamp, type, chatId, correlationId, respond, content);
+  }
+
+  /**
+   * @return the timestamp of the valid record at {@code offset}
+   */
+  static long timestamp(ByteBuffer buffer, int offset) {
+    return buffer.getLong(offset + RECORD_HEADER);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
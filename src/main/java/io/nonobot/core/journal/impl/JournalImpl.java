@@ -0,0 +1,441 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.journal.impl;
+
+import io.nonobot.core.journal.EntryType;
+import io.nonobot.core.journal.Journal;
+import io.nonobot.core.journal.JournalEntry;
+import io.nonobot.core.journal.JournalOptions;
+import io.nonobot.core.journal.JournalReader;
+import io.vertx.core.VertxException;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * The journal implementation: the appended entries are queued in a bounded queue drained by a single writer thread.
+ * The writer encodes a batch of entries in the mapped buffer of the current segment, forces the buffer when the
+ * journal is synchronous and then publishes the new committed position to the readers.<p>
+ *
+ * The writer also deletes on a schedule the segments whose entries are all older than the retention time.<p>
+ *
+ * When the writer fails, the failure is recorded: the queued entries are dropped, the later appends are rejected
+ * and the failure is reported by the metrics.<p>
+ *
+ * A read only journal has no writer: it maps the segments found when it is opened and never locks nor modifies
+ * the journal directory.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class JournalImpl implements Journal {
+
+  private static final JournalEntry CLOSE = new JournalEntry(-1, 0, EntryType.INBOUND, null, 0, false, null);
+
+  private final Path dir;
+  private final int segmentSize;
+  private final int maxBatchSize;
+  private final boolean sync;
+  private final long retentionTime;
+  private final long retentionPeriod;
+  private final ArrayBlockingQueue<JournalEntry> queue;
+  private final FileChannel lockChannel;
+  private final FileLock lock;
+  private final Thread writer;
+  private final AtomicLong appended = new AtomicLong();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder deleteFailures = new LongAdder();
+  private final CRC32 crc = new CRC32();
+  volatile Segment[] segments;
+  volatile long committed;
+  private volatile long batches;
+  private volatile long bytes;
+  private volatile boolean closed;
+  private volatile Throwable failure;
+  private long written;
+  private boolean terminated;
+
+  // Writer state
+  private Segment current;
+  private MappedByteBuffer buffer;
+  private int offset;
+
+  public JournalImpl(JournalOptions options) {
+    if (options.getPath() == null) {
+      throw new IllegalArgumentException("No journal path");
+    }
+    this.dir = Paths.get(options.getPath());
+    this.segmentSize = options.getSegmentSize();
+    this.maxBatchSize = options.getMaxBatchSize();
+    this.sync = options.isSync();
+    this.retentionTime = options.getRetentionTime();
+    this.retentionPeriod = options.getRetentionPeriod();
+    this.queue = new ArrayBlockingQueue<>(options.getMaxQueued());
+    try {
+      Files.createDirectories(dir);
+      lockChannel = FileChannel.open(dir.resolve("journal.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      FileLock lock;
+      try {
+        lock = lockChannel.tryLock();
+      } catch (OverlappingFileLockException e) {
+        lock = null;
+      }
+      if (lock == null) {
+        lockChannel.close();
+        throw new VertxException("Journal " + dir + " is already open");
+      }
+      this.lock = lock;
+      recover();
+    } catch (IOException e) {
+      throw new VertxException(e);
+    }
+    writer = new Thread(this::run, "nonobot-journal-" + dir.getFileName());
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Open a read only journal.
+   *
+   * @param path the journal directory
+   */
+  public JournalImpl(String path) {
+    if (path == null) {
+      throw new IllegalArgumentException("No journal path");
+    }
+    this.dir = Paths.get(path);
+    this.segmentSize = 0;
+    this.maxBatchSize = 0;
+    this.sync = false;
+    this.retentionTime = 0;
+    this.retentionPeriod = 0;
+    this.queue = null;
+    this.lockChannel = null;
+    this.lock = null;
+    this.writer = null;
+    if (!Files.isDirectory(dir)) {
+      throw new VertxException("Journal " + dir + " does not exist");
+    }
+    try {
+      List<Segment> list = segments();
+      if (list.isEmpty()) {
+        segments = new Segment[] { new Segment(Segment.path(dir, 0), 0, 0) };
+      } else {
+        Segment last = list.get(list.size() - 1);
+        committed = last.base + end(last.map(false)) - Segment.HEADER;
+        segments = list.toArray(new Segment[list.size()]);
+      }
+    } catch (IOException e) {
+      throw new VertxException(e);
+    }
+    closed = true;
+    terminated = true;
+  }
+
+  /**
+   * Load the segments of the journal directory, the end of the last segment is the first record that is not valid.
+   */
+  private void recover() throws IOException {
+    List<Segment> list = segments();
+    if (list.isEmpty()) {
+      list.add(Segment.create(dir, 0, segmentSize));
+    }
+    current = list.get(list.size() - 1);
+    buffer = current.map(true);
+    offset = end(buffer);
+    // Clear what a torn write may have left
+    for (int i = offset;i < Math.min(offset + EntryCodec.RECORD_HEADER, buffer.capacity());i++) {
+      buffer.put(i, (byte) 0);
+    }
+    committed = current.base + offset - Segment.HEADER;
+    segments = list.toArray(new Segment[list.size()]);
+  }
+
+  /**
+   * @return the segments of the journal directory sorted by base with their first timestamp
+   */
+  private List<Segment> segments() throws IOException {
+    List<Segment> list = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + Segment.SUFFIX)) {
+      for (Path path : stream) {
+        String name = path.getFileName().toString();
+        long base = Long.parseLong(name.substring(0, name.length() - Segment.SUFFIX.length()));
+        list.add(new Segment(path, base, (int) Files.size(path)));
+      }
+    }
+    list.sort((s1, s2) -> Long.compare(s1.base, s2.base));
+    for (Segment segment : list) {
+      MappedByteBuffer buffer = segment.map(false);
+      if (EntryCodec.recordSize(buffer, Segment.HEADER, crc) > 0) {
+        segment.firstTimestamp = EntryCodec.timestamp(buffer, Segment.HEADER);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * @return the offset of the first record of a segment buffer that is not valid
+   */
+  private int end(MappedByteBuffer buffer) {
+    int offset = Segment.HEADER;
+    int size;
+    while ((size = EntryCodec.recordSize(buffer, offset, crc)) > 0) {
+      offset += size;
+    }
+    return offset;
+  }
+
+  @Override
+  public boolean append(EntryType type, String chatId, long correlationId, boolean respond, String content) {
+    if (!closed && failure == null && queue.offer(new JournalEntry(-1, System.currentTimeMillis(), type, chatId, correlationId, respond, content))) {
+      appended.incrementAndGet();
+      return true;
+    }
+    dropped.increment();
+    return false;
+  }
+
+  @Override
+  public long flush() {
+    long target = appended.get();
+    synchronized (this) {
+      while ((written < target || closed) && !terminated) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new VertxException(e);
+        }
+      }
+    }
+    return committed;
+  }
+
+  @Override
+  public long firstPosition() {
+    return segments[0].base;
+  }
+
+  @Override
+  public long position() {
+    return committed;
+  }
+
+  @Override
+  public long positionOf(long timestamp) {
+    Segment[] segments = this.segments;
+    long position = segments[0].base;
+    for (Segment segment : segments) {
+      long first = segment.firstTimestamp;
+      if (first >= 0 && first <= timestamp) {
+        position = segment.base;
+      }
+    }
+    try (JournalReader reader = reader(position)) {
+      JournalEntry entry;
+      while ((entry = reader.next()) != null) {
+        if (entry.timestamp() >= timestamp) {
+          return entry.position();
+        }
+      }
+      return reader.position();
+    }
+  }
+
+  @Override
+  public JournalReader reader(long position) {
+    return new JournalReaderImpl(this, position);
+  }
+
+  @Override
+  public JsonObject metrics() {
+    Segment[] segments = this.segments;
+    long written;
+    synchronized (this) {
+      written = this.written;
+    }
+    return new JsonObject().
+        put("appended", appended.get()).
+        put("dropped", dropped.sum()).
+        put("written", written).
+        put("batches", batches).
+        put("bytes", bytes).
+        put("segments", segments.length).
+        put("firstPosition", segments[0].base).
+        put("position", committed).
+        put("deleteFailures", deleteFailures.sum()).
+        put("failure", failure != null ? failure.toString() : null);
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      // When the queue is full the writer is busy and will notice it is closed after the batch
+      queue.offer(CLOSE);
+    }
+  }
+
+  private void run() {
+    List<JournalEntry> batch = new ArrayList<>(maxBatchSize);
+    long nextRetention = System.currentTimeMillis() + retentionPeriod;
+    try {
+      while (true) {
+        JournalEntry entry;
+        try {
+          entry = queue.poll(Math.max(1, nextRetention - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          break;
+        }
+        if (entry != null) {
+          batch.add(entry);
+          queue.drainTo(batch, maxBatchSize - 1);
+          write(batch);
+          batch.clear();
+        }
+        if (closed && queue.isEmpty()) {
+          break;
+        }
+        if (System.currentTimeMillis() >= nextRetention) {
+          retain();
+          nextRetention = System.currentTimeMillis() + retentionPeriod;
+        }
+      }
+    } catch (Throwable t) {
+      failure = t;
+      // The entries of the failed batch and the queued entries are not written
+      queue.drainTo(batch);
+      dropped.add(batch.stream().filter(entry -> entry != CLOSE).count());
+    } finally {
+      try {
+        lock.release();
+        lockChannel.close();
+      } catch (IOException ignore) {
+      }
+      synchronized (this) {
+        terminated = true;
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Write and commit a batch of entries.
+   */
+  private void write(List<JournalEntry> batch) throws IOException {
+    long count = 0;
+    long size = 0;
+    for (JournalEntry entry : batch) {
+      if (entry == CLOSE) {
+        continue;
+      }
+      count++;
+      byte[] chatId = EntryCodec.bytes(entry.chatId());
+      byte[] content = EntryCodec.bytes(entry.content());
+      int recordSize = EntryCodec.size(chatId, content);
+      if (recordSize > segmentSize - Segment.HEADER) {
+        dropped.increment();
+        continue;
+      }
+      if (offset + recordSize > buffer.capacity()) {
+        roll();
+      }
+      EntryCodec.write(buffer, offset, entry, chatId, content, crc);
+      if (current.firstTimestamp < 0) {
+        current.firstTimestamp = entry.timestamp();
+      }
+      offset += recordSize;
+      size += recordSize;
+    }
+    if (size > 0) {
+      if (sync) {
+        buffer.force();
+      }
+      committed = current.base + offset - Segment.HEADER;
+      bytes += size;
+      batches++;
+    }
+    synchronized (this) {
+      written += count;
+      notifyAll();
+    }
+  }
+
+  /**
+   * Seal the current segment and start a new one at the current position.
+   */
+  private void roll() throws IOException {
+    if (sync) {
+      buffer.force();
+    }
+    Segment next = Segment.create(dir, current.base + offset - Segment.HEADER, segmentSize);
+    MappedByteBuffer nextBuffer = next.map(true);
+    Segment[] copy = Arrays.copyOf(segments, segments.length + 1);
+    copy[segments.length] = next;
+    current = next;
+    buffer = nextBuffer;
+    offset = Segment.HEADER;
+    segments = copy;
+  }
+
+  /**
+   * Delete the sealed segments whose entries are all older than the retention time: the entries of a segment are
+   * older than the first entry of the next segment.
+   */
+  private void retain() {
+    if (retentionTime == 0) {
+      return;
+    }
+    long limit = System.currentTimeMillis() - retentionTime;
+    Segment[] segments = this.segments;
+    int expired = 0;
+    while (expired < segments.length - 1) {
+      long first = segments[expired + 1].firstTimestamp;
+      if (first < 0 || first > limit) {
+        break;
+      }
+      expired++;
+    }
+    if (expired > 0) {
+      this.segments = Arrays.copyOfRange(segments, expired, segments.length);
+      for (int i = 0;i < expired;i++) {
+        try {
+          Files.deleteIfExists(segments[i].path);
+        } catch (IOException e) {
+          // The segment is recovered when the journal is opened again
+          deleteFailures.increment();
+        }
+      }
+    }
+  }
+}
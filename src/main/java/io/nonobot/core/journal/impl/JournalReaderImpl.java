@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.journal.impl;
+
+import io.nonobot.core.journal.JournalEntry;
+import io.nonobot.core.journal.JournalReader;
+import io.vertx.core.VertxException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the committed entries through a read only mapping of the segment being read.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class JournalReaderImpl implements JournalReader {
+
+  private final JournalImpl journal;
+  private final CRC32 crc = new CRC32();
+  private long position;
+  private Segment segment;
+  private MappedByteBuffer buffer;
+
+  JournalReaderImpl(JournalImpl journal, long position) {
+    this.journal = journal;
+    this.position = position;
+  }
+
+  @Override
+  public JournalEntry next() {
+    while (true) {
+      // Read the committed position first, the entries before it are fully written
+      long committed = journal.committed;
+      Segment[] segments = journal.segments;
+      if (position < segments[0].base) {
+        // Deleted by the retention
+        position = segments[0].base;
+      }
+      if (position >= committed) {
+        return null;
+      }
+      int index = segments.length - 1;
+      while (segments[index].base > position) {
+        index--;
+      }
+      long end = index + 1 < segments.length ? segments[index + 1].base : committed;
+      if (position >= end) {
+        position = end;
+        continue;
+      }
+      if (segment != segments[index]) {
+        try {
+          buffer = segments[index].map(false);
+        } catch (IOException e) {
+          if (segments != journal.segments) {
+            // Deleted meanwhile
+            continue;
+          }
+          throw new VertxException(e);
+        }
+        segment = segments[index];
+      }
+      int offset = (int) (Segment.HEADER + position - segment.base);
+      int size = EntryCodec.recordSize(buffer, offset, crc);
+      if (size == 0) {
+        // Corrupted, skip the remaining entries of the segment
+        position = end;
+        continue;
+      }
+      JournalEntry entry = EntryCodec.read(buffer, offset, position);
+      position += size;
+      return entry;
+    }
+  }
+
+  @Override
+  public long position() {
+    return position;
+  }
+
+  @Override
+  public void close() {
+    segment = null;
+    buffer = null;
+  }
+}
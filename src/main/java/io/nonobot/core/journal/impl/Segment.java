@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.journal.impl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A segment file of the journal: a header followed by the entries whose positions start at the segment
+ * {@code base}. The segment file has a fixed size, the unused space is zero filled.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+final class Segment {
+
+  static final int MAGIC = 0x4E4F4A31;
+  static final int HEADER = 12;
+  static final String SUFFIX = ".segment";
+
+  static Path path(Path dir, long base) {
+    return dir.resolve(String.format("%020d", base) + SUFFIX);
+  }
+
+  /**
+   * Create a new segment file.
+   */
+  static Segment create(Path dir, long base, int size) throws IOException {
+    Segment segment = new Segment(path(dir, base), base, size);
+    try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buffer.putInt(0, MAGIC);
+      buffer.putLong(4, base);
+      buffer.force();
+    }
+    return segment;
+  }
+
+  final Path path;
+  final long base;
+  final int size;
+  volatile long firstTimestamp = -1;
+
+  Segment(Path path, long base, int size) {
+    this.path = path;
+    this.base = base;
+    this.size = size;
+  }
+
+  /**
+   * Map the segment file, the mapping remains valid after the file is deleted.
+   */
+  MappedByteBuffer map(boolean write) throws IOException {
+    if (write) {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      }
+    } else {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+    }
+  }
+}
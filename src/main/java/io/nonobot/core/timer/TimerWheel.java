@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.timer;
+
+import io.nonobot.core.timer.impl.TimerWheelImpl;
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+/**
+ * A hierarchical timing wheel scheduling timeouts with a tick granularity. Scheduling and cancelling a timeout
+ * are constant time operations and a pending timeout uses a small amount of memory, so the wheel can hold a large
+ * number of timeouts that are usually cancelled before they expire.<p>
+ *
+ * The wheel ticks on its own thread while it has pending timeouts. Like a Vert.x timer, an expired timeout handler
+ * is called on the context that scheduled the timeout.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@VertxGen
+public interface TimerWheel {
+
+  /**
+   * Create a new timer wheel with a tick duration of 10 ms.
+   *
+   * @param vertx the Vert.x instance
+   * @return the timer wheel
+   */
+  static TimerWheel create(Vertx vertx) {
+    return new TimerWheelImpl(vertx, TimerWheelImpl.DEFAULT_TICK_DURATION);
+  }
+
+  /**
+   * Create a new timer wheel.
+   *
+   * @param vertx the Vert.x instance
+   * @param tickDuration the tick duration in ms
+   * @return the timer wheel
+   */
+  static TimerWheel create(Vertx vertx, long tickDuration) {
+    return new TimerWheelImpl(vertx, tickDuration);
+  }
+
+  /**
+   * Gets the timer wheel shared by the bots and clients of the Vert.x instance.
+   *
+   * @param vertx the Vert.x instance
+   * @return the timer wheel
+   */
+  static TimerWheel getShared(Vertx vertx) {
+    return TimerWheelImpl.getShared(vertx);
+  }
+
+  /**
+   * Schedule a timeout, the {@code handler} is called after the {@code delay} rounded up to the next tick.
+   *
+   * @param delay the delay in ms
+   * @param handler the handler to call when the timeout expires
+   * @return the timeout
+   */
+  Timeout schedule(long delay, Handler<Void> handler);
+
+  /**
+   * @return the number of pending timeouts
+   */
+  int size();
+
+  /**
+   * Close the wheel, the pending timeouts are discarded. Closing the {@link #getShared(Vertx) shared} wheel has no
+   * effect, it lives as long as the Vert.x instance.
+   */
+  void close();
+
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.core.timer.impl;
+
+import io.nonobot.core.timer.Timeout;
+import io.nonobot.core.timer.TimerWheel;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hierarchical hashed timing wheel: {@link #LEVELS} wheels of {@link #WHEEL_SIZE} slots, each slot of a wheel
+ * spanning a full revolution of the wheel below. A timeout is linked in the slot of the lowest wheel covering its
+ * deadline and moves down the wheels when the wheel below reaches the end of a revolution.<p>
+ *
+ * The wheel ticks on its own scheduler thread rather than with a Vert.x periodic timer: a periodic timer belongs to
+ * the context creating it and would be cancelled when the verticle of this context is undeployed.<p>
+ *
+ * The shared wheel of a Vert.x instance deploys a verticle whose undeployment, when the Vert.x instance is closed,
+ * forgets the wheel and shuts its scheduler down.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class TimerWheelImpl implements TimerWheel {
+
+  public static final long DEFAULT_TICK_DURATION = 10;
+
+  private static final int WHEEL_BITS = 6;
+  private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+  private static final int LEVELS = 5;
+
+  static final ConcurrentMap<Vertx, TimerWheelImpl> wheels = new ConcurrentHashMap<>();
+
+  public static TimerWheel getShared(Vertx vertx) {
+    return wheels.computeIfAbsent(vertx, v -> {
+      TimerWheelImpl wheel = new TimerWheelImpl(v, DEFAULT_TICK_DURATION, true);
+      v.deployVerticle(new SharedWheelVerticle(wheel), ar -> {
+        if (ar.failed()) {
+          // Vert.x is closed
+          wheel.release();
+        }
+      });
+      return wheel;
+    });
+  }
+
+  private final Vertx vertx;
+  private final long tickDuration;
+  private final boolean shared;
+  private final long origin;
+  private final TimeoutImpl[][] slots;
+  private final ScheduledThreadPoolExecutor scheduler;
+  private Context defaultContext;
+  private long currentTick;
+  private int size;
+  private ScheduledFuture<?> ticker;
+  private boolean closed;
+
+  public TimerWheelImpl(Vertx vertx, long tickDuration) {
+    this(vertx, tickDuration, false);
+  }
+
+  private TimerWheelImpl(Vertx vertx, long tickDuration, boolean shared) {
+    if (tickDuration < 1) {
+      throw new IllegalArgumentException("Invalid tick duration " + tickDuration);
+    }
+    this.vertx = vertx;
+    this.tickDuration = tickDuration;
+    this.shared = shared;
+    this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "nonobot-timer-wheel");
+      thread.setDaemon(true);
+      return thread;
+    });
+    // The thread of an idle wheel terminates
+    scheduler.setKeepAliveTime(1, TimeUnit.SECONDS);
+    scheduler.allowCoreThreadTimeOut(true);
+    scheduler.setRemoveOnCancelPolicy(true);
+    this.origin = System.currentTimeMillis();
+    this.slots = new TimeoutImpl[LEVELS][WHEEL_SIZE];
+    for (TimeoutImpl[] wheel : slots) {
+      for (int i = 0;i < WHEEL_SIZE;i++) {
+        TimeoutImpl head = new TimeoutImpl(null, null);
+        head.prev = head.next = head;
+        wheel[i] = head;
+      }
+    }
+  }
+
+  @Override
+  public Timeout schedule(long delay, Handler<Void> handler) {
+    TimeoutImpl timeout = new TimeoutImpl(handler, Vertx.currentContext());
+    synchronized (this) {
+      if (closed) {
+        throw new IllegalStateException("Closed");
+      }
+      long elapsed = System.currentTimeMillis() - origin;
+      if (size == 0) {
+        // The wheel was idle, fast forward
+        currentTick = Math.max(currentTick, elapsed / tickDuration);
+      }
+      long deadline = (elapsed + Math.max(0, delay) + tickDuration - 1) / tickDuration;
+      timeout.deadline = Math.max(deadline, currentTick + 1);
+      insert(timeout);
+      size++;
+      if (ticker == null) {
+        ticker = scheduler.scheduleAtFixedRate(this::tick, tickDuration, tickDuration, TimeUnit.MILLISECONDS);
+      }
+    }
+    return timeout;
+  }
+
+  @Override
+  public synchronized int size() {
+    return size;
+  }
+
+  @Override
+  public void close() {
+    if (shared) {
+      // Owned by the bots and clients of the Vert.x instance
+      return;
+    }
+    shutdown();
+  }
+
+  /**
+   * Forget the shared wheel and shut it down.
+   */
+  private void release() {
+    wheels.remove(vertx, this);
+    shutdown();
+  }
+
+  private void shutdown() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (ticker != null) {
+        ticker.cancel(false);
+        ticker = null;
+      }
+      for (TimeoutImpl[] wheel : slots) {
+        for (TimeoutImpl head : wheel) {
+          while (head.next != head) {
+            unlink(head.next);
+          }
+        }
+      }
+      size = 0;
+    }
+    scheduler.shutdown();
+  }
+
+  /**
+   * Advance the wheel, called on the scheduler thread.
+   */
+  private void tick() {
+    List<TimeoutImpl> expired = Collections.emptyList();
+    synchronized (this) {
+      if (ticker == null) {
+        return;
+      }
+      long target = (System.currentTimeMillis() - origin) / tickDuration;
+      while (currentTick < target && size > 0) {
+        currentTick++;
+        cascade();
+        TimeoutImpl head = slots[0][(int) currentTick & WHEEL_MASK];
+        while (head.next != head) {
+          TimeoutImpl timeout = head.next;
+          unlink(timeout);
+          size--;
+          if (expired.isEmpty()) {
+            expired = new ArrayList<>();
+          }
+          expired.add(timeout);
+        }
+      }
+      if (size == 0) {
+        currentTick = Math.max(currentTick, target);
+        ticker.cancel(false);
+        ticker = null;
+      }
+    }
+    for (TimeoutImpl timeout : expired) {
+      // Like a Vert.x timer, the handler is called on the context that scheduled it and its failures are
+      // reported by this context
+      Context context = timeout.context != null ? timeout.context : defaultContext();
+      try {
+        context.runOnContext(v -> timeout.handler.handle(null));
+      } catch (RejectedExecutionException ignore) {
+        // Vert.x is closed
+      }
+    }
+  }
+
+  /**
+   * @return the context of the handlers scheduled outside of a context
+   */
+  private Context defaultContext() {
+    if (defaultContext == null) {
+      // Called from the scheduler thread, Vert.x creates a context that does not belong to a deployment
+      defaultContext = vertx.getOrCreateContext();
+    }
+    return defaultContext;
+  }
+
+  /**
+   * Move down the timeouts of the upper wheels that reached the end of a revolution of the wheel below, starting
+   * with the highest wheel.
+   */
+  private void cascade() {
+    int level = 0;
+    while (level < LEVELS - 1 && (currentTick & ((1L << (WHEEL_BITS * (level + 1))) - 1)) == 0) {
+      level++;
+    }
+    for (;level > 0;level--) {
+      TimeoutImpl head = slots[level][(int) (currentTick >> (WHEEL_BITS * level)) & WHEEL_MASK];
+      while (head.next != head) {
+        TimeoutImpl timeout = head.next;
+        unlink(timeout);
+        insert(timeout);
+      }
+    }
+  }
+
+  private void insert(TimeoutImpl timeout) {
+    long diff = timeout.deadline - currentTick;
+    int level = 0;
+    while (level < LEVELS - 1 && diff >= (1L << (WHEEL_BITS * (level + 1)))) {
+      level++;
+    }
+    int slot;
+    if (diff >= (1L << (WHEEL_BITS * LEVELS))) {
+      // Beyond the wheels, park it in the last slot to be visited of the highest wheel
+      slot = (int) ((currentTick >> (WHEEL_BITS * level)) - 1) & WHEEL_MASK;
+    } else {
+      slot = (int) (timeout.deadline >> (WHEEL_BITS * level)) & WHEEL_MASK;
+    }
+    TimeoutImpl head = slots[level][slot];
+    timeout.prev = head.prev;
+    timeout.next = head;
+    head.prev.next = timeout;
+    head.prev = timeout;
+  }
+
+  private static void unlink(TimeoutImpl timeout) {
+    timeout.prev.next = timeout.next;
+    timeout.next.prev = timeout.prev;
+    timeout.prev = null;
+    timeout.next = null;
+  }
+
+  /**
+   * The verticle undeployed when the Vert.x instance of the shared wheel is closed.
+   */
+  private static class SharedWheelVerticle extends AbstractVerticle {
+
+    private final TimerWheelImpl wheel;
+
+    SharedWheelVerticle(TimerWheelImpl wheel) {
+      this.wheel = wheel;
+    }
+
+    @Override
+    public void stop() {
+      wheel.release();
+    }
+  }
+
+  private class TimeoutImpl implements Timeout {
+
+    final Handler<Void> handler;
+    final Context context;
+    long deadline;
+    TimeoutImpl prev;
+    TimeoutImpl next;
+
+    TimeoutImpl(Handler<Void> handler, Context context) {
+      this.handler = handler;
+      this.context = context;
+    }
+
+    @Override
+    public boolean cancel() {
+      synchronized (TimerWheelImpl.this) {
+        if (prev == null) {
+          return false;
+        }
+        unlink(this);
+        size--;
+        return true;
+      }
+    }
+  }
+}
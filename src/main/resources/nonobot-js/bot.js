@@ -19,6 +19,7 @@ var utils = require('vertx-js/util/utils');
 var ChatRouter = require('nonobot-js/chat_router');
 var Vertx = require('vertx-js/vertx');
 var Router = require('vertx-web-js/router');
+var TimerWheel = require('nonobot-js/timer_wheel');
 
 var io = Packages.io;
 var JsonObject = io.vertx.core.json.JsonObject;
@@ -74,6 +75,8 @@ var Bot = function(j_val) {
   
    The main usage of this router is to provide a web server shared between the handlers, whose purpose is usually to provide
    web service for pushing data to the botin the web hook style.<p>
+  
+   The router serves the chat router and handler metrics in the Prometheus text format on <code>/metrics</code>.
 
    @public
 
@@ -89,6 +92,24 @@ var Bot = function(j_val) {
     } else throw new TypeError('function invoked with invalid arguments');
   };
 
+  /**
+   The timer wheel handlers should use for scheduling their timeouts, it is shared with the other bots and clients
+   of the Vert.x instance.
+
+   @public
+
+   @return {TimerWheel} the timer wheel
+   */
+  this.timerWheel = function() {
+    var __args = arguments;
+    if (__args.length === 0) {
+      if (that.cachedtimerWheel == null) {
+        that.cachedtimerWheel = utils.convReturnVertxGen(j_bot["timerWheel()"](), TimerWheel);
+      }
+      return that.cachedtimerWheel;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
   /**
    @return the bot name
 
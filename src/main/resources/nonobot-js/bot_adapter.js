@@ -38,7 +38,10 @@ var BotAdapter = function(j_val) {
 
   /**
    Run the bot adapter, until it is closed: the adapter performs a connection request. If the connection request
-   fails or if the connection is closed, a new connection request is performed after the reconnect period.
+   fails or if the connection is closed, a new connection request is performed after the reconnect period.<p>
+  
+   The messages the bot sends while the adapter is disconnected are queued, they are delivered in order to the
+   client once a connection request completes.
 
    @public
    @param options {Object} the client options to use 
@@ -78,6 +81,34 @@ var BotAdapter = function(j_val) {
     } else throw new TypeError('function invoked with invalid arguments');
   };
 
+  /**
+   Returns a snapshot of the adapter metrics:
+  
+   <ul>
+     <li><code>running</code> and <code>connected</code>: the adapter state</li>
+     <li><code>connectAttempts</code>, <code>connections</code> and <code>connectFailures</code>: the number of connection
+     requests by outcome</li>
+     <li><code>reconnects</code>: the number of scheduled reconnections</li>
+     <li><code>lastConnectTime</code> and <code>totalConnectTime</code>: the duration in milliseconds of the last and of all
+     the successful connection requests</li>
+     <li><code>disconnectedTime</code>: the time in milliseconds the running adapter spent disconnected</li>
+     <li><code>outboundQueued</code>: the number of messages sent by the bot waiting for a connection,
+     <code>outboundSpilled</code>, <code>outboundDropped</code> and <code>outboundDrained</code> the number of these messages
+     spilled to disk, dropped and delivered after a reconnection</li>
+     <li><code>client</code>: the metrics of the current client, see </li>
+   </ul>
+
+   @public
+
+   @return {Object} the metrics
+   */
+  this.metrics = function() {
+    var __args = arguments;
+    if (__args.length === 0) {
+      return utils.convReturnJson(j_botAdapter["metrics()"]());
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
   /**
    Set the connection request handler. The request handler is called when the adapter needs to connect to the adapted
    service. The handler can be called many times (reconnect) but manages a single connection per adapter.<p>
@@ -77,10 +77,49 @@ var BotClient = function(j_val) {
     } else throw new TypeError('function invoked with invalid arguments');
   };
 
+  /**
+   Claim the ownership of a chat, the messages sent by the bot to this chat are delivered to this client only
+   instead of being broadcast to all the clients.
+
+   @public
+   @param chatId {string} the chat id 
+   @return {BotClient} this object so it can be used fluently
+   */
+  this.claimChat = function(chatId) {
+    var __args = arguments;
+    if (__args.length === 1 && typeof __args[0] === 'string') {
+      j_botClient["claimChat(java.lang.String)"](chatId);
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
+  /**
+   Claim the ownership of the chats whose id starts with the <code>prefix</code>, the messages sent by the bot to these
+   chats are delivered to this client only instead of being broadcast to all the clients. When several prefixes
+   match a chat id, the longest one wins.
+
+   @public
+   @param prefix {string} the chat id prefix 
+   @return {BotClient} this object so it can be used fluently
+   */
+  this.claimChatPrefix = function(prefix) {
+    var __args = arguments;
+    if (__args.length === 1 && typeof __args[0] === 'string') {
+      j_botClient["claimChatPrefix(java.lang.String)"](prefix);
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
   /**
    Receive a message, the message might trigger a reply from an handler, if that happens it should be fast. However
-   if there is no handler for processing the message, the reply will be called and likely timeout. Therefore the client
-   should not wait until the reply is called, instead if should just forward the reply content when it arrives.
+   the handler may take time to reply or never reply, the reply handler is then failed after the timeout. Therefore
+   the client should not wait until the reply is called, instead if should just forward the reply content when it
+   arrives.<p>
+  
+   When no handler matches the message, the reply handler is failed immediately with a
+   <code>NotHandledException</code>, except in a cluster when the routers are not partitioned: the routers of the other
+   nodes may still handle the message, so the reply handler is failed after the timeout. When the bot is too busy
+   to accept the message, the reply handler is failed immediately with a <code>BusyException</code>.
 
    @public
    @param options {Object} the receive options 
@@ -132,6 +171,32 @@ var BotClient = function(j_val) {
     } else throw new TypeError('function invoked with invalid arguments');
   };
 
+  /**
+   Returns a snapshot of the client metrics:
+  
+   <ul>
+     <li><code>pendingReplies</code>: the number of messages waiting for a reply, bounded by <code>maxPendingReplies</code></li>
+     <li><code>received</code>: the number of received messages</li>
+     <li><code>replies</code>, <code>replyTimeouts</code>, <code>notHandled</code> and <code>busy</code>: the number of received
+     messages by outcome</li>
+     <li><code>rejected</code>: the number of messages rejected because too many replies were pending</li>
+     <li><code>outboundMessages</code>: the number of messages sent by the bot to this client and <code>outboundRate</code>
+     their one minute rate in messages per second</li>
+     <li><code>contextHops</code>: the number of tasks executed on the client context, <code>contextHopTime</code> and
+     <code>maxContextHopTime</code> the total and the maximum time in nanoseconds they waited to run</li>
+   </ul>
+
+   @public
+
+   @return {Object} the metrics
+   */
+  this.metrics = function() {
+    var __args = arguments;
+    if (__args.length === 0) {
+      return utils.convReturnJson(j_botClient["metrics()"]());
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
   /**
    Close the client.
 
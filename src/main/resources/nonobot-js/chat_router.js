@@ -22,6 +22,7 @@ var ChatHandler = require('nonobot-js/chat_handler');
 var io = Packages.io;
 var JsonObject = io.vertx.core.json.JsonObject;
 var JChatRouter = io.nonobot.core.chat.ChatRouter;
+var HandlerOptions = io.nonobot.core.chat.HandlerOptions;
 var SendOptions = io.nonobot.core.chat.SendOptions;
 
 /**
@@ -35,36 +36,45 @@ var ChatRouter = function(j_val) {
   var that = this;
 
   /**
-   Add a message handler triggered when the <code>pattern</code> is fully matched, the pattern is a <code>java.util.regex</code>.
+   Like {@link ChatRouter#when} with handler options.
 
    @public
    @param pattern {string} the matching pattern 
+   @param options {Object} the handler options 
    @param handler {function} the message handler 
    @return {ChatHandler} the message handler object
    */
-  this.when = function(pattern, handler) {
+  this.when = function() {
     var __args = arguments;
     if (__args.length === 2 && typeof __args[0] === 'string' && typeof __args[1] === 'function') {
-      return utils.convReturnVertxGen(j_chatRouter["when(java.lang.String,io.vertx.core.Handler)"](pattern, function(jVal) {
-      handler(utils.convReturnVertxGen(jVal, Message));
+      return utils.convReturnVertxGen(j_chatRouter["when(java.lang.String,io.vertx.core.Handler)"](__args[0], function(jVal) {
+      __args[1](utils.convReturnVertxGen(jVal, Message));
+    }), ChatHandler);
+    }  else if (__args.length === 3 && typeof __args[0] === 'string' && (typeof __args[1] === 'object' && __args[1] != null) && typeof __args[2] === 'function') {
+      return utils.convReturnVertxGen(j_chatRouter["when(java.lang.String,io.nonobot.core.chat.HandlerOptions,io.vertx.core.Handler)"](__args[0], __args[1] != null ? new HandlerOptions(new JsonObject(JSON.stringify(__args[1]))) : null, function(jVal) {
+      __args[2](utils.convReturnVertxGen(jVal, Message));
     }), ChatHandler);
     } else throw new TypeError('function invoked with invalid arguments');
   };
 
   /**
-   Add a message handler triggered when the <code>pattern</code> prepended with the bot name is fully matched,
-   the pattern is a <code>java.util.regex</code>.
+   Like {@link ChatRouter#respond} with handler options.
 
    @public
    @param pattern {string} the matching pattern 
+   @param options {Object} the handler options 
    @param handler {function} the message handler 
    @return {ChatHandler} the message handler object
    */
-  this.respond = function(pattern, handler) {
+  this.respond = function() {
     var __args = arguments;
     if (__args.length === 2 && typeof __args[0] === 'string' && typeof __args[1] === 'function') {
-      return utils.convReturnVertxGen(j_chatRouter["respond(java.lang.String,io.vertx.core.Handler)"](pattern, function(jVal) {
-      handler(utils.convReturnVertxGen(jVal, Message));
+      return utils.convReturnVertxGen(j_chatRouter["respond(java.lang.String,io.vertx.core.Handler)"](__args[0], function(jVal) {
+      __args[1](utils.convReturnVertxGen(jVal, Message));
+    }), ChatHandler);
+    }  else if (__args.length === 3 && typeof __args[0] === 'string' && (typeof __args[1] === 'object' && __args[1] != null) && typeof __args[2] === 'function') {
+      return utils.convReturnVertxGen(j_chatRouter["respond(java.lang.String,io.nonobot.core.chat.HandlerOptions,io.vertx.core.Handler)"](__args[0], __args[1] != null ? new HandlerOptions(new JsonObject(JSON.stringify(__args[1]))) : null, function(jVal) {
+      __args[2](utils.convReturnVertxGen(jVal, Message));
     }), ChatHandler);
     } else throw new TypeError('function invoked with invalid arguments');
   };
@@ -105,6 +105,33 @@ var Message = function(j_val) {
     } else throw new TypeError('function invoked with invalid arguments');
   };
 
+  /**
+   Signal the handler is done with the message, an asynchronous handler must reply, complete or fail each message
+   it handles. This has no effect for the other handlers.
+
+   @public
+
+   */
+  this.complete = function() {
+    var __args = arguments;
+    if (__args.length === 0) {
+      j_message["complete()"]();
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
+  /**
+   Signal the handler failed to handle the message, see {@link Message#complete}.
+
+   @public
+   @param cause {todo} the failure cause 
+   */
+  this.fail = function(cause) {
+    var __args = arguments;
+    if (__args.length === 1 && typeof __args[0] === 'object') {
+      j_message["fail(java.lang.Throwable)"](utils.convParamThrowable(cause));
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
   // A reference to the underlying Java delegate
   // NOTE! This is an internal API and must not be used in user code.
   // If you rely on this property your code is likely to break if we change it / remove it without warning.
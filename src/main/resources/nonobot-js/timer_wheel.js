@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+/** @module nonobot-js/timer_wheel */
+var utils = require('vertx-js/util/utils');
+var Timeout = require('nonobot-js/timeout');
+var Vertx = require('vertx-js/vertx');
+
+var io = Packages.io;
+var JsonObject = io.vertx.core.json.JsonObject;
+var JTimerWheel = io.nonobot.core.timer.TimerWheel;
+
+/**
+ A hierarchical timing wheel scheduling timeouts with a tick granularity. Scheduling and cancelling a timeout
+ are constant time operations and a pending timeout uses a small amount of memory, so the wheel can hold a large
+ number of timeouts that are usually cancelled before they expire.<p>
+
+ The wheel ticks on its own thread while it has pending timeouts. Like a Vert.x timer, an expired timeout handler
+ is called on the context that scheduled the timeout.
+
+ @class
+*/
+var TimerWheel = function(j_val) {
+
+  var j_timerWheel = j_val;
+  var that = this;
+
+  /**
+   Schedule a timeout, the <code>handler</code> is called after the <code>delay</code> rounded up to the next tick.
+
+   @public
+   @param delay {number} the delay in ms 
+   @param handler {function} the handler to call when the timeout expires 
+   @return {Timeout} the timeout
+   */
+  this.schedule = function(delay, handler) {
+    var __args = arguments;
+    if (__args.length === 2 && typeof __args[0] ==='number' && typeof __args[1] === 'function') {
+      return utils.convReturnVertxGen(j_timerWheel["schedule(long,io.vertx.core.Handler)"](delay, handler), Timeout);
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
+  /**
+   @return the number of pending timeouts
+
+   @public
+
+   @return {number}
+   */
+  this.size = function() {
+    var __args = arguments;
+    if (__args.length === 0) {
+      return j_timerWheel["size()"]();
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
+  /**
+   Close the wheel, the pending timeouts are discarded. Closing the [#getShared(Vertx) shared] {@link TimerWheel} wheel has no
+   effect, it lives as long as the Vert.x instance.
+
+   @public
+
+   */
+  this.close = function() {
+    var __args = arguments;
+    if (__args.length === 0) {
+      j_timerWheel["close()"]();
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
+  // A reference to the underlying Java delegate
+  // NOTE! This is an internal API and must not be used in user code.
+  // If you rely on this property your code is likely to break if we change it / remove it without warning.
+  this._jdel = j_timerWheel;
+};
+
+/**
+ Create a new timer wheel.
+
+ @memberof module:nonobot-js/timer_wheel
+ @param vertx {Vertx} the Vert.x instance 
+ @param tickDuration {number} the tick duration in ms 
+ @return {TimerWheel} the timer wheel
+ */
+TimerWheel.create = function() {
+  var __args = arguments;
+  if (__args.length === 1 && typeof __args[0] === 'object' && __args[0]._jdel) {
+    return utils.convReturnVertxGen(JTimerWheel["create(io.vertx.core.Vertx)"](__args[0]._jdel), TimerWheel);
+  }else if (__args.length === 2 && typeof __args[0] === 'object' && __args[0]._jdel && typeof __args[1] ==='number') {
+    return utils.convReturnVertxGen(JTimerWheel["create(io.vertx.core.Vertx,long)"](__args[0]._jdel, __args[1]), TimerWheel);
+  } else throw new TypeError('function invoked with invalid arguments');
+};
+
+/**
+ Gets the timer wheel shared by the bots and clients of the Vert.x instance.
+
+ @memberof module:nonobot-js/timer_wheel
+ @param vertx {Vertx} the Vert.x instance 
+ @return {TimerWheel} the timer wheel
+ */
+TimerWheel.getShared = function(vertx) {
+  var __args = arguments;
+  if (__args.length === 1 && typeof __args[0] === 'object' && __args[0]._jdel) {
+    return utils.convReturnVertxGen(JTimerWheel["getShared(io.vertx.core.Vertx)"](vertx._jdel), TimerWheel);
+  } else throw new TypeError('function invoked with invalid arguments');
+};
+
+// We export the Constructor function
+module.exports = TimerWheel;
\ No newline at end of file
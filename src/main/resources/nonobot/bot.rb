@@ -1,6 +1,7 @@
 require 'nonobot/chat_router'
 require 'vertx/vertx'
 require 'vertx-web/router'
+require 'nonobot/timer_wheel'
 require 'vertx/util/utils.rb'
 # Generated from io.nonobot.core.Bot
 module Nonobot
@@ -77,6 +78,8 @@ module Nonobot
     # 
     #  The main usage of this router is to provide a web server shared between the handlers, whose purpose is usually to provide
     #  web service for pushing data to the botin the web hook style.<p>
+    # 
+    #  The router serves the chat router and handler metrics in the Prometheus text format on <code>/metrics</code>.
     # @return [::VertxWeb::Router] the web router
     def web_router
       if !block_given?
@@ -87,6 +90,18 @@ module Nonobot
       end
       raise ArgumentError, "Invalid arguments when calling web_router()"
     end
+    #  The timer wheel handlers should use for scheduling their timeouts, it is shared with the other bots and clients
+    #  of the Vert.x instance.
+    # @return [::Nonobot::TimerWheel] the timer wheel
+    def timer_wheel
+      if !block_given?
+        if @cached_timer_wheel != nil
+          return @cached_timer_wheel
+        end
+        return @cached_timer_wheel = ::Vertx::Util::Utils.safe_create(@j_del.java_method(:timerWheel, []).call(),::Nonobot::TimerWheel)
+      end
+      raise ArgumentError, "Invalid arguments when calling timer_wheel()"
+    end
     #  @return the bot name
     # @return [String]
     def name
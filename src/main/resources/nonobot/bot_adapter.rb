@@ -27,7 +27,10 @@ module Nonobot
       raise ArgumentError, "Invalid arguments when calling create(vertx)"
     end
     #  Run the bot adapter, until it is closed: the adapter performs a connection request. If the connection request
-    #  fails or if the connection is closed, a new connection request is performed after the reconnect period.
+    #  fails or if the connection is closed, a new connection request is performed after the reconnect period.<p>
+    # 
+    #  The messages the bot sends while the adapter is disconnected are queued, they are delivered in order to the
+    #  client once a connection request completes.
     # @param [Hash] options the client options to use
     # @return [void]
     def run(options=nil)
@@ -52,6 +55,28 @@ module Nonobot
       end
       raise ArgumentError, "Invalid arguments when calling connected?()"
     end
+    #  Returns a snapshot of the adapter metrics:
+    # 
+    #  <ul>
+    #    <li><code>running</code> and <code>connected</code>: the adapter state</li>
+    #    <li><code>connectAttempts</code>, <code>connections</code> and <code>connectFailures</code>: the number of connection
+    #    requests by outcome</li>
+    #    <li><code>reconnects</code>: the number of scheduled reconnections</li>
+    #    <li><code>lastConnectTime</code> and <code>totalConnectTime</code>: the duration in milliseconds of the last and of all
+    #    the successful connection requests</li>
+    #    <li><code>disconnectedTime</code>: the time in milliseconds the running adapter spent disconnected</li>
+    #    <li><code>outboundQueued</code>: the number of messages sent by the bot waiting for a connection,
+    #    <code>outboundSpilled</code>, <code>outboundDropped</code> and <code>outboundDrained</code> the number of these messages
+    #    spilled to disk, dropped and delivered after a reconnection</li>
+    #    <li><code>client</code>: the metrics of the current client, see </li>
+    #  </ul>
+    # @return [Hash{String => Object}] the metrics
+    def metrics
+      if !block_given?
+        return @j_del.java_method(:metrics, []).call() != nil ? JSON.parse(@j_del.java_method(:metrics, []).call().encode) : nil
+      end
+      raise ArgumentError, "Invalid arguments when calling metrics()"
+    end
     #  Set the connection request handler. The request handler is called when the adapter needs to connect to the adapted
     #  service. The handler can be called many times (reconnect) but manages a single connection per adapter.<p>
     # 
@@ -56,9 +56,38 @@ module Nonobot
       end
       raise ArgumentError, "Invalid arguments when calling alias(param_1)"
     end
+    #  Claim the ownership of a chat, the messages sent by the bot to this chat are delivered to this client only
+    #  instead of being broadcast to all the clients.
+    # @param [String] chatId the chat id
+    # @return [self]
+    def claim_chat(chatId=nil)
+      if chatId.class == String && !block_given?
+        @j_del.java_method(:claimChat, [Java::java.lang.String.java_class]).call(chatId)
+        return self
+      end
+      raise ArgumentError, "Invalid arguments when calling claim_chat(chatId)"
+    end
+    #  Claim the ownership of the chats whose id starts with the <code>prefix</code>, the messages sent by the bot to these
+    #  chats are delivered to this client only instead of being broadcast to all the clients. When several prefixes
+    #  match a chat id, the longest one wins.
+    # @param [String] prefix the chat id prefix
+    # @return [self]
+    def claim_chat_prefix(prefix=nil)
+      if prefix.class == String && !block_given?
+        @j_del.java_method(:claimChatPrefix, [Java::java.lang.String.java_class]).call(prefix)
+        return self
+      end
+      raise ArgumentError, "Invalid arguments when calling claim_chat_prefix(prefix)"
+    end
     #  Receive a message, the message might trigger a reply from an handler, if that happens it should be fast. However
-    #  if there is no handler for processing the message, the reply will be called and likely timeout. Therefore the client
-    #  should not wait until the reply is called, instead if should just forward the reply content when it arrives.
+    #  the handler may take time to reply or never reply, the reply handler is then failed after the timeout. Therefore
+    #  the client should not wait until the reply is called, instead if should just forward the reply content when it
+    #  arrives.<p>
+    # 
+    #  When no handler matches the message, the reply handler is failed immediately with a
+    #  <code>NotHandledException</code>, except in a cluster when the routers are not partitioned: the routers of the other
+    #  nodes may still handle the message, so the reply handler is failed after the timeout. When the bot is too busy
+    #  to accept the message, the reply handler is failed immediately with a <code>BusyException</code>.
     # @param [Hash] options the receive options
     # @param [String] message the message content to process
     # @yield the handle to be notified with the message reply
@@ -89,6 +118,26 @@ module Nonobot
       end
       raise ArgumentError, "Invalid arguments when calling close_handler()"
     end
+    #  Returns a snapshot of the client metrics:
+    # 
+    #  <ul>
+    #    <li><code>pendingReplies</code>: the number of messages waiting for a reply, bounded by <code>maxPendingReplies</code></li>
+    #    <li><code>received</code>: the number of received messages</li>
+    #    <li><code>replies</code>, <code>replyTimeouts</code>, <code>notHandled</code> and <code>busy</code>: the number of received
+    #    messages by outcome</li>
+    #    <li><code>rejected</code>: the number of messages rejected because too many replies were pending</li>
+    #    <li><code>outboundMessages</code>: the number of messages sent by the bot to this client and <code>outboundRate</code>
+    #    their one minute rate in messages per second</li>
+    #    <li><code>contextHops</code>: the number of tasks executed on the client context, <code>contextHopTime</code> and
+    #    <code>maxContextHopTime</code> the total and the maximum time in nanoseconds they waited to run</li>
+    #  </ul>
+    # @return [Hash{String => Object}] the metrics
+    def metrics
+      if !block_given?
+        return @j_del.java_method(:metrics, []).call() != nil ? JSON.parse(@j_del.java_method(:metrics, []).call().encode) : nil
+      end
+      raise ArgumentError, "Invalid arguments when calling metrics()"
+    end
     #  Close the client.
     # @return [void]
     def close
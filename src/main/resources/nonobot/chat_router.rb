@@ -15,26 +15,31 @@ module Nonobot
     def j_del
       @j_del
     end
-    #  Add a message handler triggered when the <code>pattern</code> is fully matched, the pattern is a <code>java.util.regex</code>.
+    #  Like {::Nonobot::ChatRouter#when} with handler options.
     # @param [String] pattern the matching pattern
+    # @param [Hash] options the handler options
     # @yield the message handler
     # @return [::Nonobot::ChatHandler] the message handler object
-    def when(pattern=nil)
-      if pattern.class == String && block_given?
+    def when(pattern=nil,options=nil)
+      if pattern.class == String && block_given? && options == nil
         return ::Vertx::Util::Utils.safe_create(@j_del.java_method(:when, [Java::java.lang.String.java_class,Java::IoVertxCore::Handler.java_class]).call(pattern,(Proc.new { |event| yield(::Vertx::Util::Utils.safe_create(event,::Nonobot::Message)) })),::Nonobot::ChatHandler)
+      elsif pattern.class == String && options.class == Hash && block_given?
+        return ::Vertx::Util::Utils.safe_create(@j_del.java_method(:when, [Java::java.lang.String.java_class,Java::IoNonobotCoreChat::HandlerOptions.java_class,Java::IoVertxCore::Handler.java_class]).call(pattern,Java::IoNonobotCoreChat::HandlerOptions.new(::Vertx::Util::Utils.to_json_object(options)),(Proc.new { |event| yield(::Vertx::Util::Utils.safe_create(event,::Nonobot::Message)) })),::Nonobot::ChatHandler)
       end
-      raise ArgumentError, "Invalid arguments when calling when(pattern)"
+      raise ArgumentError, "Invalid arguments when calling when(pattern,options)"
     end
-    #  Add a message handler triggered when the <code>pattern</code> prepended with the bot name is fully matched,
-    #  the pattern is a <code>java.util.regex</code>.
+    #  Like {::Nonobot::ChatRouter#respond} with handler options.
     # @param [String] pattern the matching pattern
+    # @param [Hash] options the handler options
     # @yield the message handler
     # @return [::Nonobot::ChatHandler] the message handler object
-    def respond(pattern=nil)
-      if pattern.class == String && block_given?
+    def respond(pattern=nil,options=nil)
+      if pattern.class == String && block_given? && options == nil
         return ::Vertx::Util::Utils.safe_create(@j_del.java_method(:respond, [Java::java.lang.String.java_class,Java::IoVertxCore::Handler.java_class]).call(pattern,(Proc.new { |event| yield(::Vertx::Util::Utils.safe_create(event,::Nonobot::Message)) })),::Nonobot::ChatHandler)
+      elsif pattern.class == String && options.class == Hash && block_given?
+        return ::Vertx::Util::Utils.safe_create(@j_del.java_method(:respond, [Java::java.lang.String.java_class,Java::IoNonobotCoreChat::HandlerOptions.java_class,Java::IoVertxCore::Handler.java_class]).call(pattern,Java::IoNonobotCoreChat::HandlerOptions.new(::Vertx::Util::Utils.to_json_object(options)),(Proc.new { |event| yield(::Vertx::Util::Utils.safe_create(event,::Nonobot::Message)) })),::Nonobot::ChatHandler)
       end
-      raise ArgumentError, "Invalid arguments when calling respond(pattern)"
+      raise ArgumentError, "Invalid arguments when calling respond(pattern,options)"
     end
     #  Send a message to a target.
     # @param [Hash] options the options
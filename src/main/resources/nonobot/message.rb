@@ -54,5 +54,23 @@ module Nonobot
       end
       raise ArgumentError, "Invalid arguments when calling reply(msg,ackTimeout)"
     end
+    #  Signal the handler is done with the message, an asynchronous handler must reply, complete or fail each message
+    #  it handles. This has no effect for the other handlers.
+    # @return [void]
+    def complete
+      if !block_given?
+        return @j_del.java_method(:complete, []).call()
+      end
+      raise ArgumentError, "Invalid arguments when calling complete()"
+    end
+    #  Signal the handler failed to handle the message, see {::Nonobot::Message#complete}.
+    # @param [Exception] cause the failure cause
+    # @return [void]
+    def fail(cause=nil)
+      if cause.is_a?(Exception) && !block_given?
+        return @j_del.java_method(:fail, [Java::JavaLang::Throwable.java_class]).call(::Vertx::Util::Utils.to_throwable(cause))
+      end
+      raise ArgumentError, "Invalid arguments when calling fail(cause)"
+    end
   end
 end
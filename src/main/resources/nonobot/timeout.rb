@@ -0,0 +1,25 @@
+require 'vertx/util/utils.rb'
+# Generated from io.nonobot.core.timer.Timeout
+module Nonobot
+  #  A timeout scheduled on a {::Nonobot::TimerWheel}.
+  class Timeout
+    # @private
+    # @param j_del [::Nonobot::Timeout] the java delegate
+    def initialize(j_del)
+      @j_del = j_del
+    end
+    # @private
+    # @return [::Nonobot::Timeout] the underlying java delegate
+    def j_del
+      @j_del
+    end
+    #  Cancel the timeout.
+    # @return [true,false] true if the timeout was cancelled, false if it already expired or was already cancelled
+    def cancel?
+      if !block_given?
+        return @j_del.java_method(:cancel, []).call()
+      end
+      raise ArgumentError, "Invalid arguments when calling cancel?()"
+    end
+  end
+end
@@ -0,0 +1,72 @@
+require 'nonobot/timeout'
+require 'vertx/vertx'
+require 'vertx/util/utils.rb'
+# Generated from io.nonobot.core.timer.TimerWheel
+module Nonobot
+  #  A hierarchical timing wheel scheduling timeouts with a tick granularity. Scheduling and cancelling a timeout
+  #  are constant time operations and a pending timeout uses a small amount of memory, so the wheel can hold a large
+  #  number of timeouts that are usually cancelled before they expire.<p>
+  # 
+  #  The wheel ticks on its own thread while it has pending timeouts. Like a Vert.x timer, an expired timeout handler
+  #  is called on the context that scheduled the timeout.
+  class TimerWheel
+    # @private
+    # @param j_del [::Nonobot::TimerWheel] the java delegate
+    def initialize(j_del)
+      @j_del = j_del
+    end
+    # @private
+    # @return [::Nonobot::TimerWheel] the underlying java delegate
+    def j_del
+      @j_del
+    end
+    #  Create a new timer wheel.
+    # @param [::Vertx::Vertx] vertx the Vert.x instance
+    # @param [Fixnum] tickDuration the tick duration in ms
+    # @return [::Nonobot::TimerWheel] the timer wheel
+    def self.create(vertx=nil,tickDuration=nil)
+      if vertx.class.method_defined?(:j_del) && !block_given? && tickDuration == nil
+        return ::Vertx::Util::Utils.safe_create(Java::IoNonobotCoreTimer::TimerWheel.java_method(:create, [Java::IoVertxCore::Vertx.java_class]).call(vertx.j_del),::Nonobot::TimerWheel)
+      elsif vertx.class.method_defined?(:j_del) && tickDuration.class == Fixnum && !block_given?
+        return ::Vertx::Util::Utils.safe_create(Java::IoNonobotCoreTimer::TimerWheel.java_method(:create, [Java::IoVertxCore::Vertx.java_class,Java::long.java_class]).call(vertx.j_del,tickDuration),::Nonobot::TimerWheel)
+      end
+      raise ArgumentError, "Invalid arguments when calling create(vertx,tickDuration)"
+    end
+    #  Gets the timer wheel shared by the bots and clients of the Vert.x instance.
+    # @param [::Vertx::Vertx] vertx the Vert.x instance
+    # @return [::Nonobot::TimerWheel] the timer wheel
+    def self.get_shared(vertx=nil)
+      if vertx.class.method_defined?(:j_del) && !block_given?
+        return ::Vertx::Util::Utils.safe_create(Java::IoNonobotCoreTimer::TimerWheel.java_method(:getShared, [Java::IoVertxCore::Vertx.java_class]).call(vertx.j_del),::Nonobot::TimerWheel)
+      end
+      raise ArgumentError, "Invalid arguments when calling get_shared(vertx)"
+    end
+    #  Schedule a timeout, the <code>handler</code> is called after the <code>delay</code> rounded up to the next tick.
+    # @param [Fixnum] delay the delay in ms
+    # @yield the handler to call when the timeout expires
+    # @return [::Nonobot::Timeout] the timeout
+    def schedule(delay=nil)
+      if delay.class == Fixnum && block_given?
+        return ::Vertx::Util::Utils.safe_create(@j_del.java_method(:schedule, [Java::long.java_class,Java::IoVertxCore::Handler.java_class]).call(delay,Proc.new { yield }),::Nonobot::Timeout)
+      end
+      raise ArgumentError, "Invalid arguments when calling schedule(delay)"
+    end
+    #  @return the number of pending timeouts
+    # @return [Fixnum]
+    def size
+      if !block_given?
+        return @j_del.java_method(:size, []).call()
+      end
+      raise ArgumentError, "Invalid arguments when calling size()"
+    end
+    #  Close the wheel, the pending timeouts are discarded. Closing the {::Nonobot::TimerWheel#getShared(Vertx) shared} wheel has no
+    #  effect, it lives as long as the Vert.x instance.
+    # @return [void]
+    def close
+      if !block_given?
+        return @j_del.java_method(:close, []).call()
+      end
+      raise ArgumentError, "Invalid arguments when calling close()"
+    end
+  end
+end
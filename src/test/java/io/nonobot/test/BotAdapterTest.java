@@ -19,12 +19,19 @@ package io.nonobot.test;
 import io.nonobot.core.adapter.BotAdapter;
 import io.nonobot.core.client.BotClient;
 import io.nonobot.core.client.ClientOptions;
+import io.nonobot.core.client.ReceiveOptions;
 import io.vertx.core.Context;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -32,6 +39,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class BotAdapterTest extends BaseTest {
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @Test
   public void testReconnectOnClientClose(TestContext context) throws Exception {
     Async async = context.async();
@@ -125,4 +135,187 @@ public class BotAdapterTest extends BaseTest {
     }
     adapter.close();
   }
+
+  @Test
+  public void testMetrics(TestContext context) throws Exception {
+    Async async = context.async();
+    Async failedClosed = context.async();
+    AtomicInteger count = new AtomicInteger();
+    BotAdapter adapter = BotAdapter.create(vertx);
+    adapter.requestHandler(conn -> {
+      if (count.getAndIncrement() == 0) {
+        // The client of the failed connection request is closed
+        conn.client().closeHandler(v -> failedClosed.complete());
+        conn.fail("Could not connect");
+        return;
+      }
+      BotClient client = conn.client();
+      client.messageHandler(msg -> {
+        JsonObject metrics = adapter.metrics();
+        context.assertTrue(metrics.getBoolean("connected"));
+        context.assertEquals(2L, metrics.getLong("connectAttempts"));
+        context.assertEquals(1L, metrics.getLong("connections"));
+        context.assertEquals(1L, metrics.getLong("connectFailures"));
+        context.assertEquals(1L, metrics.getLong("reconnects"));
+        context.assertTrue(metrics.getLong("disconnectedTime") >= 100);
+        JsonObject clientMetrics = metrics.getJsonObject("client");
+        context.assertEquals(1L, clientMetrics.getLong("outboundMessages"));
+        context.assertTrue(clientMetrics.getLong("contextHops") >= 1);
+        // No router for this bot, the message times out
+        client.receiveMessage(new ReceiveOptions().setTimeout(100), "hello", context.asyncAssertFailure(err -> {
+          JsonObject after = client.metrics();
+          context.assertEquals(1L, after.getLong("received"));
+          context.assertEquals(1L, after.getLong("replyTimeouts"));
+          context.assertEquals(0, after.getInteger("pendingReplies"));
+          async.complete();
+        }));
+      });
+      conn.complete();
+      vertx.runOnContext(v -> {
+        vertx.eventBus().send("bots.nono.outbound", new JsonObject().put("chatId", "the_chat_id").put("body", "the_body"));
+      });
+    });
+    adapter.run(new ClientOptions().setReconnectPeriod(100));
+  }
+
+  @Test
+  public void testOutboundQueue(TestContext context) throws Exception {
+    Async async = context.async();
+    AtomicInteger count = new AtomicInteger();
+    List<String> received = new ArrayList<>();
+    BotAdapter adapter = BotAdapter.create(vertx);
+    adapter.requestHandler(conn -> {
+      if (count.getAndIncrement() == 0) {
+        // The bot sends messages while the adapter is not connected
+        vertx.setTimer(50, id -> {
+          for (int i = 0;i < 5;i++) {
+            vertx.eventBus().publish("bots.nono.outbound", new JsonObject().put("chatId", "the_chat_id").put("body", "msg-" + i));
+          }
+          vertx.setTimer(50, id2 -> {
+            conn.fail("Could not connect");
+          });
+        });
+        return;
+      }
+      conn.client().messageHandler(msg -> {
+        received.add(msg.body());
+        if (received.size() == 5) {
+          context.assertEquals(Arrays.asList("msg-0", "msg-1", "msg-2", "msg-3", "msg-4"), received);
+          JsonObject metrics = adapter.metrics();
+          context.assertEquals(0, metrics.getInteger("outboundQueued"));
+          context.assertEquals(5L, metrics.getLong("outboundDrained"));
+          async.complete();
+        }
+      });
+      conn.complete();
+    });
+    adapter.run(new ClientOptions().setReconnectPeriod(100));
+  }
+
+  @Test
+  public void testOutboundSpill(TestContext context) throws Exception {
+    Async async = context.async();
+    AtomicInteger count = new AtomicInteger();
+    List<String> received = new ArrayList<>();
+    BotAdapter adapter = BotAdapter.create(vertx);
+    adapter.requestHandler(conn -> {
+      if (count.getAndIncrement() == 0) {
+        vertx.setTimer(50, id -> {
+          for (int i = 0;i < 10;i++) {
+            vertx.eventBus().publish("bots.nono.outbound", new JsonObject().put("chatId", "the_chat_id").put("body", "msg-" + i));
+          }
+          vertx.setTimer(50, id2 -> {
+            JsonObject metrics = adapter.metrics();
+            context.assertEquals(7, metrics.getInteger("outboundQueued"));
+            context.assertEquals(5L, metrics.getLong("outboundSpilled"));
+            context.assertEquals(3L, metrics.getLong("outboundDropped"));
+            conn.fail("Could not connect");
+          });
+        });
+        return;
+      }
+      conn.client().messageHandler(msg -> {
+        received.add(msg.body());
+        if (received.size() == 7) {
+          context.assertEquals(Arrays.asList("msg-0", "msg-1", "msg-2", "msg-3", "msg-4", "msg-5", "msg-6"), received);
+          vertx.setTimer(50, id -> {
+            context.assertEquals(7, received.size());
+            context.assertEquals(0, adapter.metrics().getInteger("outboundQueued"));
+            async.complete();
+          });
+        }
+      });
+      conn.complete();
+    });
+    adapter.run(new ClientOptions().
+        setReconnectPeriod(100).
+        setOutboundQueueSize(2).
+        setOutboundSpillPath(folder.getRoot().getAbsolutePath()).
+        setMaxOutboundSpilled(5));
+  }
+
+  @Test
+  public void testOutboundSpillRefill(TestContext context) throws Exception {
+    Async async = context.async();
+    AtomicInteger count = new AtomicInteger();
+    List<String> received = new ArrayList<>();
+    BotAdapter adapter = BotAdapter.create(vertx);
+    adapter.requestHandler(conn -> {
+      if (count.getAndIncrement() == 0) {
+        vertx.setTimer(50, id -> {
+          for (int i = 0;i < 500;i++) {
+            vertx.eventBus().publish("bots.nono.outbound", new JsonObject().put("chatId", "the_chat_id").put("body", "msg-" + i));
+          }
+          vertx.setTimer(50, id2 -> conn.fail("Could not connect"));
+        });
+        return;
+      }
+      conn.client().messageHandler(msg -> {
+        received.add(msg.body());
+        if (received.size() == 500) {
+          for (int i = 0;i < 500;i++) {
+            context.assertEquals("msg-" + i, received.get(i));
+          }
+          JsonObject metrics = adapter.metrics();
+          context.assertEquals(496L, metrics.getLong("outboundSpilled"));
+          context.assertEquals(0L, metrics.getLong("outboundDropped"));
+          async.complete();
+        }
+      });
+      conn.complete();
+    });
+    adapter.run(new ClientOptions().
+        setReconnectPeriod(100).
+        setOutboundQueueSize(4).
+        setOutboundSpillPath(folder.getRoot().getAbsolutePath()).
+        setMaxOutboundSpilled(1000));
+  }
+
+  @Test
+  public void testOutboundSpillPerAdapter(TestContext context) throws Exception {
+    ClientOptions options = new ClientOptions().
+        setReconnectPeriod(100).
+        setOutboundQueueSize(2).
+        setOutboundSpillPath(folder.getRoot().getAbsolutePath());
+    List<BotAdapter> adapters = new ArrayList<>();
+    for (int i = 0;i < 2;i++) {
+      BotAdapter adapter = BotAdapter.create(vertx);
+      adapter.requestHandler(conn -> conn.fail("Could not connect"));
+      adapter.run(options);
+      adapters.add(adapter);
+    }
+    for (int i = 0;i < 10;i++) {
+      vertx.eventBus().publish("bots.nono.outbound", new JsonObject().put("chatId", "the_chat_id").put("body", "msg-" + i));
+    }
+    Async async = context.async();
+    vertx.setTimer(100, id -> {
+      for (BotAdapter adapter : adapters) {
+        context.assertEquals(8L, adapter.metrics().getLong("outboundSpilled"));
+        adapter.close();
+      }
+      context.assertEquals(new HashSet<>(Arrays.asList("nono-outbound.spill", "nono-outbound-1.spill")),
+          new HashSet<>(Arrays.asList(folder.getRoot().list())));
+      async.complete();
+    });
+  }
 }
@@ -17,17 +17,28 @@
 package io.nonobot.test;
 
 import io.nonobot.core.Bot;
+import io.nonobot.core.BotOptions;
 import io.nonobot.core.client.BotClient;
+import io.nonobot.core.client.ClientOptions;
+import io.nonobot.core.client.NotHandledException;
 import io.nonobot.core.client.ReceiveOptions;
+import io.nonobot.core.chat.ChatHandler;
 import io.nonobot.core.chat.ChatRouter;
 import io.nonobot.core.chat.SendOptions;
 import io.nonobot.core.chat.impl.ChatRouterImpl;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -128,6 +139,107 @@ public class ChatRouterTest extends BaseTest {
     }));
   }
 
+  @Test
+  public void testReplyTimeout(TestContext context) {
+    Async failureLatch = context.async();
+    router.when("foobar", msg -> {
+    });
+    long now = System.currentTimeMillis();
+    BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions().setTimeout(300), "foobar", ar -> {
+        context.assertTrue(ar.failed());
+        context.assertFalse(ar.cause() instanceof NotHandledException);
+        context.assertTrue(System.currentTimeMillis() - now >= 300);
+        failureLatch.complete();
+      });
+    }));
+  }
+
+  @Test
+  public void testReplyTimeoutContext(TestContext context) {
+    Async failureLatch = context.async();
+    router.when("foobar", msg -> {
+    });
+    Context clientContext = vertx.getOrCreateContext();
+    Context other = vertx.getOrCreateContext();
+    clientContext.runOnContext(v1 -> {
+      BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+        other.runOnContext(v2 -> {
+          client.receiveMessage(new ReceiveOptions().setTimeout(100), "foobar", context.asyncAssertFailure(err -> {
+            context.assertEquals(clientContext, Vertx.currentContext());
+            failureLatch.complete();
+          }));
+        });
+      }));
+    });
+  }
+
+  @Test
+  public void testCloseWithPendingReplies(TestContext context) {
+    Async failureLatch = context.async();
+    AtomicReference<BotClient> ref = new AtomicReference<>();
+    router.when("foobar", msg -> {
+      ref.get().close();
+    });
+    BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+      ref.set(client);
+      client.receiveMessage(new ReceiveOptions().setTimeout(10000), "foobar", context.asyncAssertFailure(err -> {
+        context.assertEquals("Client closed", err.getMessage());
+        failureLatch.complete();
+      }));
+    }));
+  }
+
+  @Test
+  public void testMaxPendingReplies(TestContext context) {
+    Async doneLatch = context.async(2);
+    router.when("foobar", msg -> {
+      vertx.setTimer(100, id -> msg.reply("the_reply"));
+    });
+    BotClient.client(vertx, new ClientOptions().setMaxPendingReplies(1), context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions(), "foobar", context.asyncAssertSuccess(reply -> {
+        context.assertEquals("the_reply", reply);
+        doneLatch.countDown();
+      }));
+      client.receiveMessage(new ReceiveOptions(), "foobar", context.asyncAssertFailure(err -> {
+        doneLatch.countDown();
+      }));
+    }));
+  }
+
+  @Test
+  public void testNoMatch(TestContext context) {
+    Async failureLatch = context.async();
+    router.when("foobar", msg -> {
+      context.fail();
+    });
+    long now = System.currentTimeMillis();
+    BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions().setTimeout(10000), "echo hello world", ar -> {
+        context.assertTrue(ar.failed());
+        context.assertTrue(ar.cause() instanceof NotHandledException);
+        context.assertTrue(System.currentTimeMillis() - now < 5000);
+        failureLatch.complete();
+      });
+    }));
+  }
+
+  @Test
+  public void testNoMatchWithOtherRouter(TestContext context) {
+    Async doneLatch = context.async();
+    new ChatRouterImpl(vertx, "nono").when("foobar", msg -> {
+      vertx.setTimer(50, id -> {
+        msg.reply("the_reply");
+      });
+    });
+    BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions(), "foobar", context.asyncAssertSuccess(reply -> {
+        context.assertEquals("the_reply", reply);
+        doneLatch.complete();
+      }));
+    }));
+  }
+
   @Test
   public void testHandlerOrder(TestContext context) {
     Async doneLatch = context.async();
@@ -145,6 +257,177 @@ public class ChatRouterTest extends BaseTest {
     }));
   }
 
+  @Test
+  public void testHandlerOrderWithLiterals(TestContext context) {
+    Async doneLatch = context.async(2);
+    router.when("[a-z]+ \\d+", msg -> {
+      context.assertEquals("abc 123", msg.body());
+      doneLatch.countDown();
+    });
+    router.when("hello (.+)", msg -> {
+      context.assertEquals("hello world", msg.body());
+      doneLatch.countDown();
+    });
+    router.when(".*world", msg -> {
+      context.fail();
+    });
+    BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions(), "hello world", ar -> {});
+      client.receiveMessage(new ReceiveOptions(), "abc 123", ar -> {});
+    }));
+  }
+
+  @Test
+  public void testHandlerWithEscapes(TestContext context) {
+    String[][] cases = {
+        { "\\x40bob (.+)", "@bob hello" },
+        { "caf\\u00e9 ok", "caf\u00e9 ok" },
+        { "\\0101bc", "Abc" },
+        { "a\\cJb", "a\nb" },
+        { "(?<w>x)\\k<w>yz", "xxyz" },
+        { "\\p{Lu}bd", "Abd" },
+        { "(a)\\1bc", "aabc" },
+    };
+    Async doneLatch = context.async(cases.length);
+    for (String[] c : cases) {
+      router.when(c[0], msg -> {
+        context.assertEquals(c[1], msg.body());
+        doneLatch.countDown();
+      });
+    }
+    BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+      for (String[] c : cases) {
+        client.receiveMessage(new ReceiveOptions(), c[1], ar -> {});
+      }
+    }));
+  }
+
+  @Test
+  public void testManyHandlers(TestContext context) {
+    Async doneLatch = context.async();
+    for (int i = 0;i < 500;i++) {
+      int index = i;
+      router.when("^cmd" + i + "\\s+(.+)", msg -> {
+        context.assertEquals(250, index);
+        context.assertEquals("the_arg", msg.matchedGroup(1));
+        doneLatch.complete();
+      });
+    }
+    BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions(), "cmd250 the_arg", ar -> {});
+    }));
+  }
+
+  @Test
+  public void testCommandIndex(TestContext context) {
+    Async doneLatch = context.async(2);
+    ChatRouterImpl impl = (ChatRouterImpl) router;
+    router.respond("^ping", msg -> {
+      context.assertEquals(1L, impl.indexedDispatches());
+      context.assertEquals(0L, impl.fallbackDispatches());
+      msg.reply("pong");
+      doneLatch.countDown();
+    });
+    router.respond("^help(\\s.+)?", msg -> {
+      context.fail();
+    });
+    router.respond("(.*)ping", msg -> {
+      context.assertEquals("do ping", msg.body());
+      context.assertEquals(1L, impl.fallbackDispatches());
+      doneLatch.countDown();
+    });
+    BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions(), "nono ping", ar -> {
+        client.receiveMessage(new ReceiveOptions(), "nono do ping", ar2 -> {});
+      });
+    }));
+  }
+
+  @Test
+  public void testAmbientDispatchNotCounted(TestContext context) {
+    Async doneLatch = context.async();
+    ChatRouterImpl impl = (ChatRouterImpl) router;
+    router.when("^ping", msg -> {
+      context.assertEquals(0L, impl.indexedDispatches());
+      context.assertEquals(0L, impl.fallbackDispatches());
+      doneLatch.complete();
+    });
+    BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions(), "ping", ar -> {});
+    }));
+  }
+
+  @Test
+  public void testCloseHandler(TestContext context) {
+    Async doneLatch = context.async();
+    ChatHandler first = router.when("foobar", msg -> {
+      context.fail();
+    });
+    router.when("foobar", msg -> {
+      msg.reply("2");
+    });
+    first.close();
+    first.close();
+    context.assertEquals(3L, ((ChatRouterImpl) router).routesVersion());
+    BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions(), "foobar", ar -> {
+        context.assertEquals("2", ar.result());
+        doneLatch.complete();
+      });
+    }));
+  }
+
+  @Test
+  public void testShardedDispatch(TestContext context) {
+    int chats = 8;
+    int messages = 20;
+    Async doneLatch = context.async(chats * messages);
+    Map<String, Thread> threads = new ConcurrentHashMap<>();
+    Map<String, Integer> sequences = new ConcurrentHashMap<>();
+    ChatRouter sharded = new ChatRouterImpl(vertx, new BotOptions().setName("sharded").setDispatchShards(4));
+    sharded.when("([0-9]+)", msg -> {
+      Thread current = Thread.currentThread();
+      context.assertEquals(current, threads.computeIfAbsent(msg.chatId(), id -> current));
+      int seq = Integer.parseInt(msg.matchedGroup(1));
+      context.assertEquals(seq, sequences.getOrDefault(msg.chatId(), 0));
+      sequences.put(msg.chatId(), seq + 1);
+      doneLatch.countDown();
+    });
+    BotClient.client(vertx, new ClientOptions().setName("sharded"), context.asyncAssertSuccess(client -> {
+      for (int seq = 0;seq < messages;seq++) {
+        for (int chat = 0;chat < chats;chat++) {
+          client.receiveMessage(new ReceiveOptions().setChatId("chat" + chat).setTimeout(100), "" + seq, ar -> {});
+        }
+      }
+    }));
+  }
+
+  @Test
+  public void testCloseShards(TestContext context) {
+    Async async = context.async();
+    ChatRouter sharded = new ChatRouterImpl(vertx, new BotOptions().setName("sharded").setDispatchShards(4));
+    vertx.setPeriodic(10, id -> {
+      if (shardDeployments() == 4) {
+        vertx.cancelTimer(id);
+        sharded.close();
+        vertx.setPeriodic(10, id2 -> {
+          if (shardDeployments() == 0) {
+            vertx.cancelTimer(id2);
+            async.complete();
+          }
+        });
+      }
+    });
+  }
+
+  private long shardDeployments() {
+    // The shared timer wheel is deployed too
+    return vertx.deploymentIDs().stream().
+        map(((VertxInternal) vertx)::getDeployment).
+        filter(deployment -> deployment != null && deployment.verticleIdentifier().contains("ShardVerticle")).
+        count();
+  }
+
   @Test
   public void testConcurrentReplies(TestContext context) {
     Async doneLatch = context.async(2);
@@ -210,7 +493,124 @@ public class ChatRouterTest extends BaseTest {
         context.assertEquals("the_message", msg.body());
         doneLatch.complete();
       });
+      router.sendMessage(new SendOptions().setChatId("the_chat_id"), "the_message");
+    }));
+  }
+
+  @Test
+  public void testJsonInbound(TestContext context) {
+    Async doneLatch = context.async();
+    router.respond("^ping", msg -> msg.reply("pong"));
+    vertx.eventBus().<String>consumer("the_reply_address", msg -> {
+      context.assertEquals("pong", msg.body());
+      context.assertEquals("3", msg.headers().get(ChatRouterImpl.CORRELATION_HEADER));
+      doneLatch.complete();
+    }).completionHandler(context.asyncAssertSuccess(v -> {
+      vertx.eventBus().publish("bots.nono.inbound", new JsonObject().
+          put("replyAddress", "the_reply_address").
+          put("correlationId", 3L).
+          put("chatId", "the_chat_id").
+          put("respond", true).
+          put("content", "ping"));
+    }));
+  }
+
+  @Test
+  public void testSendMessageToOwner(TestContext context) {
+    Async doneLatch = context.async();
+    BotClient.client(vertx, context.asyncAssertSuccess(other -> {
+      other.messageHandler(msg -> context.fail());
+      BotClient.client(vertx, context.asyncAssertSuccess(owner -> {
+        owner.messageHandler(msg -> {
+          context.assertEquals("the_chat_id", msg.chatId());
+          context.assertEquals("the_message", msg.body());
+          doneLatch.complete();
+        });
+        owner.claimChat("the_chat_id");
+        whenOwned("the_chat_id", () -> {
+          router.sendMessage(new SendOptions().setChatId("the_chat_id"), "the_message");
+        });
+      }));
+    }));
+  }
+
+  @Test
+  public void testSendMessageToPrefixOwner(TestContext context) {
+    Async doneLatch = context.async(2);
+    BotClient.client(vertx, context.asyncAssertSuccess(client1 -> {
+      client1.messageHandler(msg -> {
+        context.assertEquals("slack:C024BE91L", msg.chatId());
+        doneLatch.countDown();
+      });
+      client1.claimChatPrefix("slack:");
+      BotClient.client(vertx, context.asyncAssertSuccess(client2 -> {
+        client2.messageHandler(msg -> {
+          context.assertEquals("slack:D0123", msg.chatId());
+          doneLatch.countDown();
+        });
+        client2.claimChatPrefix("slack:D");
+        whenOwned("slack:D0123", () -> {
+          router.sendMessage(new SendOptions().setChatId("slack:C024BE91L"), "the_message");
+          router.sendMessage(new SendOptions().setChatId("slack:D0123"), "the_message");
+        });
+      }));
     }));
-    router.sendMessage(new SendOptions().setChatId("the_chat_id"), "the_message");
+  }
+
+  @Test
+  public void testSendMessageAfterOwnerClosed(TestContext context) {
+    Async doneLatch = context.async();
+    BotClient.client(vertx, context.asyncAssertSuccess(owner -> {
+      owner.claimChat("the_chat_id");
+      whenOwned("the_chat_id", () -> {
+        owner.close();
+        BotClient.client(vertx, context.asyncAssertSuccess(other -> {
+          other.messageHandler(msg -> {
+            context.assertEquals("the_chat_id", msg.chatId());
+            doneLatch.complete();
+          });
+          router.sendMessage(new SendOptions().setChatId("the_chat_id"), "the_message");
+        }));
+      });
+    }));
+  }
+
+  @Test
+  public void testDirectDispatch(TestContext context) {
+    Async doneLatch = context.async();
+    router.respond("^ping", msg -> msg.reply("pong"));
+    vertx.eventBus().consumer("bots.nono.inbound", msg -> context.fail("Should not use the event bus"));
+    BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions(), "nono ping", context.asyncAssertSuccess(reply -> {
+        context.assertEquals("pong", reply);
+        doneLatch.complete();
+      }));
+    }));
+  }
+
+  @Test
+  public void testDirectDispatchAck(TestContext context) {
+    Async doneLatch = context.async(2);
+    router.respond("^ping", msg -> {
+      Context handlerContext = Vertx.currentContext();
+      msg.reply("pong", context.asyncAssertSuccess(v -> {
+        context.assertEquals(handlerContext, Vertx.currentContext());
+        doneLatch.countDown();
+      }));
+    });
+    BotClient.client(vertx, context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions(), "nono ping", context.asyncAssertSuccess(reply -> {
+        doneLatch.countDown();
+      }));
+    }));
+  }
+
+  private void whenOwned(String chatId, Runnable action) {
+    vertx.setPeriodic(1, id -> {
+      if (((ChatRouterImpl) router).chatOwner(chatId) != null) {
+        vertx.cancelTimer(id);
+        action.run();
+      }
+    });
   }
 }
@@ -0,0 +1,414 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.test;
+
+import io.nonobot.core.BotOptions;
+import io.nonobot.core.SheddingPolicy;
+import io.nonobot.core.chat.ChatHandler;
+import io.nonobot.core.chat.ExecutionMode;
+import io.nonobot.core.chat.HandlerOptions;
+import io.nonobot.core.chat.Message;
+import io.nonobot.core.chat.impl.ChatRouterImpl;
+import io.nonobot.core.client.BotClient;
+import io.nonobot.core.client.BusyException;
+import io.nonobot.core.client.ClientOptions;
+import io.nonobot.core.client.NotHandledException;
+import io.nonobot.core.client.ReceiveOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class DispatchTest extends BaseTest {
+
+  private ChatRouterImpl router;
+  private BotClient client;
+  private CountDownLatch unblock;
+  private List<String> dispatched;
+
+  /**
+   * Create a router whose {@code block} handlers block the dispatch until {@link #unblock} is counted down and
+   * wait until such handler is blocking.
+   */
+  private void blockRouter(TestContext context, BotOptions options) {
+    router = new ChatRouterImpl(vertx, options.setName("dispatch"));
+    unblock = new CountDownLatch(1);
+    dispatched = Collections.synchronizedList(new ArrayList<>());
+    Async blocked = context.async();
+    router.respond("^block", msg -> {
+      blocked.complete();
+      try {
+        unblock.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException ignore) {
+      }
+      msg.reply("unblocked");
+    });
+    router.when("^ambient.*", msg -> {
+      dispatched.add(msg.body());
+      msg.reply("ambient");
+    });
+    router.respond("^direct.*", msg -> {
+      dispatched.add(msg.body());
+      msg.reply("direct");
+    });
+    connect(context);
+    client.receiveMessage(new ReceiveOptions(), "dispatch block", context.asyncAssertSuccess());
+    blocked.awaitSuccess(10000);
+  }
+
+  private void connect(TestContext context) {
+    AtomicReference<BotClient> ref = new AtomicReference<>();
+    Async connected = context.async();
+    BotClient.client(vertx, new ClientOptions().setName("dispatch"), context.asyncAssertSuccess(c -> {
+      ref.set(c);
+      connected.complete();
+    }));
+    connected.awaitSuccess(10000);
+    client = ref.get();
+  }
+
+  @Test
+  public void testShedFail(TestContext context) {
+    blockRouter(context, new BotOptions().setMaxQueued(2).setSheddingPolicy(SheddingPolicy.FAIL));
+    Async async = context.async(2);
+    client.receiveMessage(new ReceiveOptions(), "dispatch direct", context.asyncAssertSuccess(reply -> async.countDown()));
+    client.receiveMessage(new ReceiveOptions(), "dispatch direct", context.asyncAssertSuccess(reply -> async.countDown()));
+    Async shed = context.async();
+    client.receiveMessage(new ReceiveOptions(), "dispatch direct", context.asyncAssertFailure(err -> {
+      context.assertTrue(err instanceof BusyException);
+      shed.complete();
+    }));
+    shed.awaitSuccess(10000);
+    context.assertEquals(2, router.queuedMessages());
+    context.assertEquals(1, router.inFlightMessages());
+    context.assertEquals(1L, router.shedMessages());
+    unblock.countDown();
+  }
+
+  @Test
+  public void testShedDropAmbient(TestContext context) {
+    blockRouter(context, new BotOptions().setMaxQueued(2).setSheddingPolicy(SheddingPolicy.DROP_AMBIENT));
+    Async async = context.async(3);
+    client.receiveMessage(new ReceiveOptions(), "ambient 1", context.asyncAssertSuccess(reply -> async.countDown()));
+    client.receiveMessage(new ReceiveOptions(), "ambient 2", context.asyncAssertFailure(err -> {
+      // Evicted by the direct message
+      context.assertTrue(err instanceof NotHandledException);
+      async.countDown();
+    }));
+    client.receiveMessage(new ReceiveOptions(), "dispatch direct", context.asyncAssertSuccess(reply -> {
+      context.assertEquals("direct", reply);
+      async.countDown();
+    }));
+    Async shed = context.async();
+    client.receiveMessage(new ReceiveOptions(), "ambient 3", context.asyncAssertFailure(err -> {
+      context.assertTrue(err instanceof NotHandledException);
+      shed.complete();
+    }));
+    shed.awaitSuccess(10000);
+    context.assertEquals(2L, router.shedMessages());
+    unblock.countDown();
+  }
+
+  @Test
+  public void testShedReplyBusy(TestContext context) {
+    blockRouter(context, new BotOptions().setMaxQueued(1).setSheddingPolicy(SheddingPolicy.REPLY_BUSY));
+    client.receiveMessage(new ReceiveOptions(), "dispatch direct", context.asyncAssertSuccess(reply -> {
+      context.assertEquals("direct", reply);
+    }));
+    Async shed = context.async();
+    client.receiveMessage(new ReceiveOptions(), "dispatch direct", context.asyncAssertSuccess(reply -> {
+      context.assertEquals(ChatRouterImpl.BUSY_REPLY, reply);
+      shed.complete();
+    }));
+    shed.awaitSuccess(10000);
+    unblock.countDown();
+  }
+
+  @Test
+  public void testMaxInFlight(TestContext context) {
+    blockRouter(context, new BotOptions().setDispatchShards(4).setMaxInFlight(1));
+    Async async = context.async(8);
+    for (int i = 0;i < 8;i++) {
+      client.receiveMessage(new ReceiveOptions().setChatId("chat-" + i), "dispatch direct", context.asyncAssertSuccess(reply -> {
+        async.countDown();
+      }));
+    }
+    // The other shards wait for the blocked invocation, the blocked event loop may be the one of a timer
+    waitUntil(() -> router.queuedMessages() == 8);
+    context.assertEquals(1, router.inFlightMessages());
+    unblock.countDown();
+  }
+
+  @Test
+  public void testStrictPriority(TestContext context) {
+    testLanes(context, 0, Arrays.asList("direct 1", "direct 2", "direct 3", "ambient 1", "ambient 2", "ambient 3"));
+  }
+
+  @Test
+  public void testWeightedPriority(TestContext context) {
+    testLanes(context, 2, Arrays.asList("direct 1", "direct 2", "ambient 1", "direct 3", "ambient 2", "ambient 3"));
+  }
+
+  private void testLanes(TestContext context, int weight, List<String> expected) {
+    blockRouter(context, new BotOptions().setDirectLaneWeight(weight));
+    Async async = context.async(6);
+    for (int i = 1;i <= 3;i++) {
+      client.receiveMessage(new ReceiveOptions(), "ambient " + i, context.asyncAssertSuccess(reply -> async.countDown()));
+    }
+    for (int i = 1;i <= 3;i++) {
+      client.receiveMessage(new ReceiveOptions(), "dispatch direct " + i, context.asyncAssertSuccess(reply -> async.countDown()));
+    }
+    context.assertEquals(3, router.directQueuedMessages());
+    context.assertEquals(3, router.ambientQueuedMessages());
+    unblock.countDown();
+    async.awaitSuccess(10000);
+    context.assertEquals(expected, dispatched);
+  }
+
+  @Test
+  public void testFairChats(TestContext context) {
+    blockRouter(context, new BotOptions());
+    Async async = context.async(6);
+    for (int i = 1;i <= 4;i++) {
+      client.receiveMessage(new ReceiveOptions().setChatId("flood"), "ambient flood " + i, context.asyncAssertSuccess(reply -> async.countDown()));
+    }
+    for (int i = 1;i <= 2;i++) {
+      client.receiveMessage(new ReceiveOptions().setChatId("quiet"), "ambient quiet " + i, context.asyncAssertSuccess(reply -> async.countDown()));
+    }
+    context.assertEquals(2, router.queuedChats());
+    unblock.countDown();
+    async.awaitSuccess(10000);
+    context.assertEquals(Arrays.asList("ambient flood 1", "ambient quiet 1", "ambient flood 2", "ambient quiet 2", "ambient flood 3", "ambient flood 4"), dispatched);
+    context.assertEquals(0, router.queuedChats());
+  }
+
+  @Test
+  public void testMaxQueuedPerChat(TestContext context) {
+    blockRouter(context, new BotOptions().setMaxQueuedPerChat(2).setSheddingPolicy(SheddingPolicy.FAIL));
+    Async async = context.async(3);
+    client.receiveMessage(new ReceiveOptions().setChatId("flood"), "dispatch direct 1", context.asyncAssertSuccess(reply -> async.countDown()));
+    client.receiveMessage(new ReceiveOptions().setChatId("flood"), "dispatch direct 2", context.asyncAssertSuccess(reply -> async.countDown()));
+    Async shed = context.async();
+    client.receiveMessage(new ReceiveOptions().setChatId("flood"), "dispatch direct 3", context.asyncAssertFailure(err -> {
+      context.assertTrue(err instanceof BusyException);
+      shed.complete();
+    }));
+    client.receiveMessage(new ReceiveOptions().setChatId("quiet"), "dispatch direct 4", context.asyncAssertSuccess(reply -> async.countDown()));
+    shed.awaitSuccess(10000);
+    context.assertEquals(3, router.queuedMessages());
+    context.assertEquals(1L, router.shedMessages());
+    unblock.countDown();
+    async.awaitSuccess(10000);
+    context.assertEquals(Arrays.asList("direct 1", "direct 4", "direct 2"), dispatched);
+  }
+
+  @Test
+  public void testWorkerHandler(TestContext context) {
+    router = new ChatRouterImpl(vertx, new BotOptions().setName("dispatch"));
+    unblock = new CountDownLatch(1);
+    Async blocked = context.async();
+    router.respond("^slow", new HandlerOptions().
+        setExecutionMode(ExecutionMode.WORKER).
+        setWorkerPoolName("slow").
+        setWorkerPoolSize(1).
+        setWorkerPoolMaxQueued(0), msg -> {
+      blocked.complete();
+      try {
+        unblock.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException ignore) {
+      }
+      msg.reply(Thread.currentThread().getName());
+    });
+    router.respond("^fast", msg -> msg.reply("fast"));
+    connect(context);
+    Async done = context.async();
+    client.receiveMessage(new ReceiveOptions(), "dispatch slow", context.asyncAssertSuccess(reply -> {
+      context.assertEquals("slow-0", reply);
+      done.complete();
+    }));
+    blocked.awaitSuccess(10000);
+
+    // The event loop is not blocked by the worker handler
+    Async fast = context.async();
+    client.receiveMessage(new ReceiveOptions(), "dispatch fast", context.asyncAssertSuccess(reply -> {
+      context.assertEquals("fast", reply);
+      fast.complete();
+    }));
+    fast.awaitSuccess(10000);
+
+    // The pool is saturated
+    Async shed = context.async();
+    client.receiveMessage(new ReceiveOptions(), "dispatch slow", context.asyncAssertFailure(err -> {
+      context.assertTrue(err instanceof BusyException);
+      shed.complete();
+    }));
+    shed.awaitSuccess(10000);
+    JsonObject metrics = router.workerPoolMetrics("slow");
+    context.assertEquals(1, metrics.getInteger("size"));
+    context.assertEquals(1, metrics.getInteger("active"));
+    context.assertEquals(1L, metrics.getLong("rejected"));
+    context.assertNull(router.workerPoolMetrics("unknown"));
+    unblock.countDown();
+    done.awaitSuccess(10000);
+  }
+
+  @Test
+  public void testWorkerHandlerFailure(TestContext context) {
+    router = new ChatRouterImpl(vertx, new BotOptions().setName("dispatch"));
+    ChatHandler handler = router.respond("^fail", new HandlerOptions().setExecutionMode(ExecutionMode.WORKER), msg -> {
+      throw new RuntimeException("the_failure");
+    });
+    connect(context);
+    client.receiveMessage(new ReceiveOptions().setTimeout(100), "dispatch fail", ar -> {});
+    waitUntil(() -> router.handlerMetrics(handler).getLong("failed") == 1L);
+    context.assertEquals(0, router.handlerMetrics(handler).getInteger("inFlight"));
+    context.assertEquals(0, router.inFlightMessages());
+  }
+
+  @Test
+  public void testVirtualThreadHandler(TestContext context) {
+    router = new ChatRouterImpl(vertx, new BotOptions().setName("dispatch").setMaxVirtualThreads(50));
+    // Without virtual threads, the platform threads are capped to a worker pool size
+    int size = router.virtualThreadMetrics().getInteger("size");
+    context.assertEquals(router.virtualThreadMetrics().getBoolean("virtual") ? 50 : HandlerOptions.DEFAULT_WORKER_POOL_SIZE, size);
+    unblock = new CountDownLatch(1);
+    CountDownLatch blocked = new CountDownLatch(size);
+    router.respond("^sleep", new HandlerOptions().setExecutionMode(ExecutionMode.VIRTUAL_THREAD), msg -> {
+      blocked.countDown();
+      try {
+        unblock.await(10, TimeUnit.SECONDS);
+        Thread.sleep(10);
+      } catch (InterruptedException ignore) {
+      }
+      msg.replyAndAwait("slept", 10000);
+    });
+    router.respond("^loop", msg -> {
+      try {
+        msg.replyAndAwait("blocked", 10000);
+      } catch (IllegalStateException expected) {
+        msg.reply("not blocked");
+      }
+    });
+    connect(context);
+    Async done = context.async(size);
+    for (int i = 0;i < size;i++) {
+      client.receiveMessage(new ReceiveOptions(), "dispatch sleep", context.asyncAssertSuccess(reply -> {
+        context.assertEquals("slept", reply);
+        done.countDown();
+      }));
+    }
+    try {
+      context.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      context.fail(e);
+    }
+    context.assertEquals(size, router.virtualThreadMetrics().getInteger("active"));
+
+    // The cap is reached
+    Async shed = context.async();
+    client.receiveMessage(new ReceiveOptions(), "dispatch sleep", context.asyncAssertFailure(err -> {
+      context.assertTrue(err instanceof BusyException);
+      shed.complete();
+    }));
+    shed.awaitSuccess(10000);
+
+    // Blocking is not allowed on the event loop
+    Async loop = context.async();
+    client.receiveMessage(new ReceiveOptions(), "dispatch loop", context.asyncAssertSuccess(reply -> {
+      context.assertEquals("not blocked", reply);
+      loop.complete();
+    }));
+    loop.awaitSuccess(10000);
+    unblock.countDown();
+    done.awaitSuccess(10000);
+    context.assertEquals(1L, router.virtualThreadMetrics().getLong("rejected"));
+  }
+
+  @Test
+  public void testAsyncHandlerBulkhead(TestContext context) {
+    router = new ChatRouterImpl(vertx, new BotOptions().setName("dispatch"));
+    List<Message> pending = Collections.synchronizedList(new ArrayList<>());
+    ChatHandler handler = router.respond("^api.*", new HandlerOptions().setAsync(true).setMaxInFlight(2).setMaxQueued(1), pending::add);
+    connect(context);
+    Async replies = context.async(3);
+    for (int i = 1;i <= 3;i++) {
+      client.receiveMessage(new ReceiveOptions(), "dispatch api " + i, context.asyncAssertSuccess(reply -> replies.countDown()));
+    }
+    Async shed = context.async();
+    client.receiveMessage(new ReceiveOptions(), "dispatch api 4", context.asyncAssertFailure(err -> {
+      context.assertTrue(err instanceof BusyException);
+      shed.complete();
+    }));
+    shed.awaitSuccess(10000);
+    JsonObject metrics = router.handlerMetrics(handler);
+    context.assertEquals(2, pending.size());
+    context.assertEquals(2, metrics.getInteger("inFlight"));
+    context.assertEquals(1, metrics.getInteger("queued"));
+    context.assertEquals(1L, metrics.getLong("rejected"));
+    // The queued invocation is in flight for the router
+    context.assertEquals(3, router.inFlightMessages());
+
+    // Replying is done with the invocation and starts the queued one
+    pending.get(0).reply("done 1");
+    waitUntil(() -> pending.size() == 3);
+    pending.get(1).reply("done 2");
+    pending.get(2).reply("done 3");
+    replies.awaitSuccess(10000);
+    waitUntil(() -> router.handlerMetrics(handler).getLong("completed") == 3L);
+    metrics = router.handlerMetrics(handler);
+    context.assertEquals(0, metrics.getInteger("inFlight"));
+    context.assertEquals(3L, metrics.getLong("invocations"));
+    context.assertEquals(0, router.inFlightMessages());
+  }
+
+  @Test
+  public void testAsyncHandlerTimeout(TestContext context) {
+    router = new ChatRouterImpl(vertx, new BotOptions().setName("dispatch"));
+    ChatHandler handler = router.respond("^forget", new HandlerOptions().setAsync(true).setAsyncTimeout(100), msg -> {});
+    connect(context);
+    client.receiveMessage(new ReceiveOptions().setTimeout(5000), "dispatch forget", context.asyncAssertFailure());
+    waitUntil(() -> router.handlerMetrics(handler).getLong("failed") == 1L);
+    context.assertEquals(0, router.handlerMetrics(handler).getInteger("inFlight"));
+    context.assertEquals(0, router.inFlightMessages());
+  }
+
+  private void waitUntil(BooleanSupplier condition) {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        throw new AssertionError("Timeout");
+      }
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+}
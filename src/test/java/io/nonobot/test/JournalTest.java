@@ -0,0 +1,301 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.test;
+
+import io.nonobot.core.BotOptions;
+import io.nonobot.core.chat.SendOptions;
+import io.nonobot.core.chat.impl.ChatRouterImpl;
+import io.nonobot.core.client.BotClient;
+import io.nonobot.core.client.ClientOptions;
+import io.nonobot.core.client.ReceiveOptions;
+import io.nonobot.core.journal.EntryType;
+import io.nonobot.core.journal.Journal;
+import io.nonobot.core.journal.JournalEntry;
+import io.nonobot.core.journal.JournalOptions;
+import io.nonobot.core.journal.JournalReader;
+import io.vertx.core.VertxException;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class JournalTest extends BaseTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private JournalOptions options() {
+    return new JournalOptions().setPath(folder.getRoot().getAbsolutePath());
+  }
+
+  private static List<JournalEntry> readAll(Journal journal, long position) {
+    List<JournalEntry> entries = new ArrayList<>();
+    try (JournalReader reader = journal.reader(position)) {
+      JournalEntry entry;
+      while ((entry = reader.next()) != null) {
+        entries.add(entry);
+      }
+    }
+    return entries;
+  }
+
+  @Test
+  public void testAppendAndRead(TestContext context) {
+    Journal journal = Journal.open(options());
+    try {
+      context.assertTrue(journal.append(EntryType.INBOUND, "the_chat", 1, true, "echo hello"));
+      context.assertTrue(journal.append(EntryType.REPLY, "the_chat", 1, true, "hello"));
+      context.assertTrue(journal.append(EntryType.OUTBOUND, null, 0, false, "héllo"));
+      long position = journal.flush();
+      context.assertEquals(position, journal.position());
+      List<JournalEntry> entries = readAll(journal, 0);
+      context.assertEquals(3, entries.size());
+      JournalEntry inbound = entries.get(0);
+      context.assertEquals(0L, inbound.position());
+      context.assertEquals(EntryType.INBOUND, inbound.type());
+      context.assertEquals("the_chat", inbound.chatId());
+      context.assertEquals(1L, inbound.correlationId());
+      context.assertTrue(inbound.respond());
+      context.assertEquals("echo hello", inbound.content());
+      context.assertEquals(EntryType.REPLY, entries.get(1).type());
+      context.assertEquals("hello", entries.get(1).content());
+      context.assertEquals(null, entries.get(2).chatId());
+      context.assertEquals("héllo", entries.get(2).content());
+      context.assertTrue(entries.get(0).position() < entries.get(1).position());
+
+      // A reader at the end reads the entries committed later
+      JournalReader reader = journal.reader(position);
+      context.assertNull(reader.next());
+      journal.append(EntryType.INBOUND, "the_chat", 2, false, "later");
+      journal.flush();
+      JournalEntry later = reader.next();
+      context.assertEquals(position, later.position());
+      context.assertEquals("later", later.content());
+      reader.close();
+    } finally {
+      journal.close();
+      journal.flush();
+    }
+  }
+
+  @Test
+  public void testRollSegments(TestContext context) {
+    Journal journal = Journal.open(options().setSegmentSize(4096));
+    try {
+      for (int i = 0;i < 500;i++) {
+        journal.append(EntryType.INBOUND, "chat-" + i, i, false, "message number " + i);
+      }
+      journal.flush();
+      context.assertTrue(journal.metrics().getInteger("segments") > 1);
+      List<JournalEntry> entries = readAll(journal, 0);
+      context.assertEquals(500, entries.size());
+      for (int i = 0;i < 500;i++) {
+        context.assertEquals("message number " + i, entries.get(i).content());
+      }
+      // Scan a range
+      List<JournalEntry> range = new ArrayList<>();
+      journal.scan(entries.get(100).position(), entries.get(200).position(), range::add);
+      context.assertEquals(100, range.size());
+      context.assertEquals(100L, range.get(0).correlationId());
+    } finally {
+      journal.close();
+      journal.flush();
+    }
+  }
+
+  @Test
+  public void testRecover(TestContext context) {
+    Journal journal = Journal.open(options().setSegmentSize(4096));
+    for (int i = 0;i < 100;i++) {
+      journal.append(EntryType.INBOUND, "the_chat", i, false, "message " + i);
+    }
+    long position = journal.flush();
+    journal.close();
+    journal.flush();
+    journal = Journal.open(options().setSegmentSize(4096));
+    try {
+      context.assertEquals(position, journal.position());
+      journal.append(EntryType.INBOUND, "the_chat", 100, false, "message 100");
+      journal.flush();
+      List<JournalEntry> entries = readAll(journal, 0);
+      context.assertEquals(101, entries.size());
+      context.assertEquals(position, entries.get(100).position());
+      context.assertEquals("message 100", entries.get(100).content());
+    } finally {
+      journal.close();
+      journal.flush();
+    }
+  }
+
+  @Test
+  public void testAlreadyOpen(TestContext context) {
+    Journal journal = Journal.open(options());
+    try {
+      Journal.open(options());
+      context.fail();
+    } catch (VertxException expected) {
+    } finally {
+      journal.close();
+      journal.flush();
+    }
+  }
+
+  @Test
+  public void testReadOnly(TestContext context) throws Exception {
+    Journal journal = Journal.open(options().setSegmentSize(4096));
+    try {
+      for (int i = 0;i < 200;i++) {
+        journal.append(EntryType.INBOUND, "the_chat", i, false, "message " + i);
+      }
+      long position = journal.flush();
+      Set<String> files = new HashSet<>(Arrays.asList(folder.getRoot().list()));
+      // The journal directory is open
+      Journal readOnly = Journal.openReadOnly(folder.getRoot().getAbsolutePath());
+      context.assertEquals(position, readOnly.position());
+      context.assertEquals(journal.metrics().getInteger("segments"), readOnly.metrics().getInteger("segments"));
+      List<JournalEntry> entries = readAll(readOnly, 0);
+      context.assertEquals(200, entries.size());
+      context.assertEquals("message 199", entries.get(199).content());
+      context.assertFalse(readOnly.append(EntryType.INBOUND, "the_chat", 200, false, "message 200"));
+      context.assertEquals(position, readOnly.flush());
+      readOnly.close();
+      context.assertEquals(files, new HashSet<>(Arrays.asList(folder.getRoot().list())));
+    } finally {
+      journal.close();
+      journal.flush();
+    }
+  }
+
+  @Test
+  public void testWriterFailure(TestContext context) throws Exception {
+    Journal journal = Journal.open(options().setSegmentSize(4096));
+    try {
+      journal.append(EntryType.INBOUND, "the_chat", 0, false, "message");
+      long recordSize = journal.flush();
+      // Occupy the file of the next segment so rolling fails
+      long next = (4096 - 12) / recordSize * recordSize;
+      Files.createFile(folder.getRoot().toPath().resolve(String.format("%020d", next) + ".segment"));
+      for (int i = 1;i <= next / recordSize;i++) {
+        context.assertTrue(journal.append(EntryType.INBOUND, "the_chat", i, false, "message"));
+      }
+      journal.flush();
+      context.assertTrue(journal.position() < next);
+      JsonObject metrics = journal.metrics();
+      context.assertNotNull(metrics.getString("failure"));
+      // The batch including the entry that did not fit is dropped
+      context.assertTrue(metrics.getLong("dropped") > 0);
+      context.assertEquals(metrics.getLong("appended"), metrics.getLong("written") + metrics.getLong("dropped"));
+      context.assertFalse(journal.append(EntryType.INBOUND, "the_chat", 0, false, "message"));
+    } finally {
+      journal.close();
+      journal.flush();
+    }
+  }
+
+  @Test
+  public void testRetention(TestContext context) throws Exception {
+    Journal journal = Journal.open(options().setSegmentSize(4096).setRetentionTime(1).setRetentionPeriod(10));
+    try {
+      for (int i = 0;i < 200;i++) {
+        journal.append(EntryType.INBOUND, "the_chat", i, false, "message " + i);
+      }
+      journal.flush();
+      Thread.sleep(5);
+      // The last segment is never deleted
+      journal.append(EntryType.INBOUND, "the_chat", 200, false, "message 200");
+      long position = journal.flush();
+      long deadline = System.currentTimeMillis() + 10000;
+      while (journal.metrics().getInteger("segments") > 1) {
+        context.assertTrue(System.currentTimeMillis() < deadline);
+        Thread.sleep(10);
+      }
+      context.assertTrue(journal.firstPosition() > 0);
+      List<JournalEntry> entries = readAll(journal, 0);
+      context.assertTrue(entries.size() > 0);
+      context.assertEquals(journal.firstPosition(), entries.get(0).position());
+      context.assertEquals("message 200", entries.get(entries.size() - 1).content());
+      context.assertEquals(position, journal.position());
+    } finally {
+      journal.close();
+      journal.flush();
+    }
+  }
+
+  @Test
+  public void testPositionOf(TestContext context) throws Exception {
+    Journal journal = Journal.open(options().setSegmentSize(4096));
+    try {
+      for (int i = 0;i < 100;i++) {
+        journal.append(EntryType.INBOUND, "the_chat", i, false, "before " + i);
+      }
+      journal.flush();
+      Thread.sleep(5);
+      long timestamp = System.currentTimeMillis();
+      journal.append(EntryType.INBOUND, "the_chat", 100, false, "after");
+      long end = journal.flush();
+      long position = journal.positionOf(timestamp);
+      try (JournalReader reader = journal.reader(position)) {
+        context.assertEquals("after", reader.next().content());
+      }
+      context.assertEquals(end, journal.positionOf(System.currentTimeMillis() + 1000));
+    } finally {
+      journal.close();
+      journal.flush();
+    }
+  }
+
+  @Test
+  public void testRouterJournal(TestContext context) {
+    ChatRouterImpl router = new ChatRouterImpl(vertx, new BotOptions().setName("journaled").setJournalOptions(options()));
+    router.respond("^echo\\s+(.+)", msg -> msg.reply(msg.matchedGroup(1)));
+    Async async = context.async();
+    BotClient.client(vertx, new ClientOptions().setName("journaled"), context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions().setChatId("the_chat"), "journaled echo hello", context.asyncAssertSuccess(reply -> {
+        router.sendMessage(new SendOptions().setChatId("the_chat"), "bye");
+        async.complete();
+      }));
+    }));
+    async.awaitSuccess(10000);
+    Journal journal = router.journal();
+    journal.flush();
+    List<JournalEntry> entries = readAll(journal, 0);
+    context.assertEquals(3, entries.size());
+    context.assertEquals(EntryType.INBOUND, entries.get(0).type());
+    context.assertEquals("echo hello", entries.get(0).content());
+    context.assertEquals(EntryType.REPLY, entries.get(1).type());
+    context.assertEquals("hello", entries.get(1).content());
+    context.assertEquals(entries.get(0).correlationId(), entries.get(1).correlationId());
+    context.assertEquals(EntryType.OUTBOUND, entries.get(2).type());
+    context.assertEquals("bye", entries.get(2).content());
+    context.assertEquals(1, router.handlers().size());
+    context.assertEquals(1L, router.handlerMetrics(router.handlers().get(0)).getJsonObject("replyLatency").getLong("count"));
+    router.close();
+    journal.flush();
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.test;
+
+import io.nonobot.core.BotOptions;
+import io.nonobot.core.chat.impl.ChatRouterImpl;
+import io.nonobot.core.client.BotClient;
+import io.nonobot.core.client.ClientOptions;
+import io.nonobot.core.client.NotHandledException;
+import io.nonobot.core.client.ReceiveOptions;
+import io.nonobot.core.client.impl.BotClientImpl;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.test.fakecluster.FakeClusterManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class PartitionedRouterTest {
+
+  private static final int NODES = 3;
+  private static final int CHATS = 60;
+
+  private Vertx[] nodes;
+  private ChatRouterImpl[] routers;
+  private Map<String, String> handledBy;
+  private AtomicInteger handled;
+
+  @Before
+  public void before(TestContext context) {
+    nodes = new Vertx[NODES + 1];
+    routers = new ChatRouterImpl[NODES];
+    handledBy = new ConcurrentHashMap<>();
+    handled = new AtomicInteger();
+    for (int i = 0;i < nodes.length;i++) {
+      int index = i;
+      Async async = context.async();
+      Vertx.clusteredVertx(new VertxOptions().setClusterManager(new FakeClusterManager()).setClusterHost("localhost"), context.asyncAssertSuccess(vertx -> {
+        nodes[index] = vertx;
+        async.complete();
+      }));
+      async.awaitSuccess(20000);
+    }
+    for (int i = 0;i < NODES;i++) {
+      String node = "node-" + i;
+      routers[i] = new ChatRouterImpl(nodes[i], new BotOptions().setPartitioned(true).setHeartbeatPeriod(100));
+      routers[i].respond("^ping", msg -> {
+        handled.incrementAndGet();
+        handledBy.put(msg.chatId(), node);
+        msg.reply(node);
+      });
+    }
+    awaitMembers(context, NODES);
+  }
+
+  @After
+  public void after(TestContext context) {
+    for (Vertx node : nodes) {
+      node.close(context.asyncAssertSuccess());
+    }
+    FakeClusterManager.reset();
+  }
+
+  private void awaitMembers(TestContext context, int expected) {
+    Async async = context.async();
+    nodes[0].setPeriodic(10, id -> {
+      for (ChatRouterImpl router : routers) {
+        if (router != null && router.partitionMembers().size() != expected) {
+          return;
+        }
+      }
+      nodes[0].cancelTimer(id);
+      async.complete();
+    });
+    async.awaitSuccess(20000);
+  }
+
+  private void awaitClientMembers(TestContext context, BotClientImpl client, int expected) {
+    Async async = context.async();
+    nodes[0].setPeriodic(10, id -> {
+      if (client.partitionMembers().size() == expected) {
+        nodes[0].cancelTimer(id);
+        async.complete();
+      }
+    });
+    async.awaitSuccess(20000);
+  }
+
+  private void pingAll(TestContext context, BotClient client) {
+    Async async = context.async(CHATS);
+    for (int i = 0;i < CHATS;i++) {
+      String chatId = "chat-" + i;
+      client.receiveMessage(new ReceiveOptions().setChatId(chatId), "nono ping", context.asyncAssertSuccess(reply -> {
+        context.assertEquals(handledBy.get(chatId), reply);
+        async.countDown();
+      }));
+    }
+    async.awaitSuccess(20000);
+  }
+
+  private BotClient client(TestContext context) {
+    AtomicReference<BotClient> client = new AtomicReference<>();
+    Async async = context.async();
+    BotClient.client(nodes[NODES], context.asyncAssertSuccess(c -> {
+      client.set(c);
+      async.complete();
+    }));
+    async.awaitSuccess(20000);
+    return client.get();
+  }
+
+  @Test
+  public void testPartitioned(TestContext context) {
+    BotClient client = client(context);
+    pingAll(context, client);
+    // Each message is handled once, by the router owning the chat
+    context.assertEquals(CHATS, handled.get());
+    context.assertTrue(handledBy.values().stream().distinct().count() > 1);
+  }
+
+  @Test
+  public void testRebalance(TestContext context) {
+    BotClient client = client(context);
+    pingAll(context, client);
+    routers[NODES - 1].close();
+    routers[NODES - 1] = null;
+    awaitMembers(context, NODES - 1);
+    awaitClientMembers(context, (BotClientImpl) client, NODES - 1);
+    handled.set(0);
+    handledBy.clear();
+    pingAll(context, client);
+    context.assertEquals(CHATS, handled.get());
+    context.assertFalse(handledBy.containsValue("node-" + (NODES - 1)));
+  }
+
+  @Test
+  public void testNoMatchOnOtherNode(TestContext context) {
+    // Routers that are not partitioned, only the router of the second node handles the message
+    ChatRouterImpl first = new ChatRouterImpl(nodes[0], new BotOptions().setName("cross"));
+    first.respond("^other", msg -> msg.reply("other"));
+    ChatRouterImpl second = new ChatRouterImpl(nodes[1], new BotOptions().setName("cross"));
+    second.respond("^ping", msg -> msg.reply("pong"));
+    Async async = context.async();
+    BotClient.client(nodes[NODES], new ClientOptions().setName("cross"), context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions().setTimeout(5000), "cross ping", context.asyncAssertSuccess(reply -> {
+        context.assertEquals("pong", reply);
+        // The client cannot know how many routers may handle it, the message times out
+        client.receiveMessage(new ReceiveOptions().setTimeout(200), "cross unknown", context.asyncAssertFailure(err -> {
+          context.assertFalse(err instanceof NotHandledException);
+          async.complete();
+        }));
+      }));
+    }));
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015 Julien Viet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nonobot.test;
+
+import io.nonobot.core.timer.Timeout;
+import io.nonobot.core.timer.TimerWheel;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class TimerWheelTest extends BaseTest {
+
+  @Test
+  public void testSchedule(TestContext context) {
+    TimerWheel wheel = TimerWheel.create(vertx);
+    Async async = context.async();
+    long now = System.currentTimeMillis();
+    wheel.schedule(100, v -> {
+      context.assertTrue(System.currentTimeMillis() - now >= 100);
+      context.assertEquals(0, wheel.size());
+      async.complete();
+    });
+    context.assertEquals(1, wheel.size());
+  }
+
+  @Test
+  public void testOrder(TestContext context) {
+    TimerWheel wheel = TimerWheel.create(vertx, 1);
+    Async async = context.async();
+    AtomicInteger count = new AtomicInteger();
+    // Delays spanning several wheels
+    long[] delays = { 5, 70, 300, 4200 };
+    for (int i = delays.length - 1;i >= 0;i--) {
+      int expected = i;
+      wheel.schedule(delays[i], v -> {
+        context.assertEquals(expected, count.getAndIncrement());
+        if (expected == delays.length - 1) {
+          async.complete();
+        }
+      });
+    }
+  }
+
+  @Test
+  public void testCancel(TestContext context) {
+    TimerWheel wheel = TimerWheel.create(vertx);
+    Async async = context.async();
+    Timeout timeout = wheel.schedule(50, v -> context.fail());
+    context.assertTrue(timeout.cancel());
+    context.assertFalse(timeout.cancel());
+    context.assertEquals(0, wheel.size());
+    wheel.schedule(100, v -> async.complete());
+  }
+
+  @Test
+  public void testManyTimeouts(TestContext context) {
+    TimerWheel wheel = TimerWheel.create(vertx);
+    Async async = context.async();
+    AtomicInteger fired = new AtomicInteger();
+    Timeout[] timeouts = new Timeout[100000];
+    for (int i = 0;i < timeouts.length;i++) {
+      timeouts[i] = wheel.schedule(500 + i % 200, v -> {
+        if (fired.incrementAndGet() == timeouts.length / 2) {
+          async.complete();
+        }
+      });
+    }
+    for (int i = 0;i < timeouts.length;i += 2) {
+      context.assertTrue(timeouts[i].cancel());
+    }
+    context.assertEquals(timeouts.length / 2, wheel.size());
+  }
+
+  @Test
+  public void testClose(TestContext context) {
+    TimerWheel wheel = TimerWheel.create(vertx);
+    wheel.schedule(10, v -> context.fail());
+    wheel.close();
+    context.assertEquals(0, wheel.size());
+    Async async = context.async();
+    vertx.setTimer(50, id -> async.complete());
+  }
+
+  @Test
+  public void testHandlerContext(TestContext context) {
+    TimerWheel wheel = TimerWheel.create(vertx);
+    Async async = context.async();
+    Context scheduling = vertx.getOrCreateContext();
+    scheduling.runOnContext(v -> {
+      wheel.schedule(10, v2 -> {
+        context.assertEquals(scheduling, Vertx.currentContext());
+        async.complete();
+      });
+    });
+  }
+
+  @Test
+  public void testUndeployScheduler(TestContext context) {
+    TimerWheel wheel = TimerWheel.getShared(vertx);
+    Async async = context.async();
+    // The first timeout is scheduled by a verticle that is undeployed
+    vertx.deployVerticle(new AbstractVerticle() {
+      @Override
+      public void start() {
+        wheel.schedule(1000, v -> {});
+      }
+    }, context.asyncAssertSuccess(id -> {
+      vertx.undeploy(id, context.asyncAssertSuccess(v -> {
+        wheel.schedule(10, v2 -> async.complete());
+      }));
+    }));
+  }
+
+  @Test
+  public void testCloseShared(TestContext context) {
+    TimerWheel wheel = TimerWheel.getShared(vertx);
+    wheel.close();
+    Async async = context.async();
+    TimerWheel.getShared(vertx).schedule(10, v -> async.complete());
+  }
+
+  @Test
+  public void testSharedClosedWithVertx(TestContext context) {
+    Vertx other = Vertx.vertx();
+    TimerWheel wheel = TimerWheel.getShared(other);
+    Async async = context.async();
+    other.setPeriodic(10, id -> {
+      // Wait for the wheel verticle
+      if (other.deploymentIDs().size() == 1) {
+        other.cancelTimer(id);
+        other.close(context.asyncAssertSuccess(v -> {
+          try {
+            wheel.schedule(10, v2 -> {});
+            context.fail();
+          } catch (IllegalStateException expected) {
+          }
+          async.complete();
+        }));
+      }
+    });
+  }
+}
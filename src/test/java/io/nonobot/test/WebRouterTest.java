@@ -18,6 +18,9 @@ package io.nonobot.test;
 
 import io.nonobot.core.Bot;
 import io.nonobot.core.BotOptions;
+import io.nonobot.core.client.BotClient;
+import io.nonobot.core.client.ClientOptions;
+import io.nonobot.core.client.ReceiveOptions;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.ext.unit.Async;
@@ -50,4 +53,36 @@ public class WebRouterTest extends BaseTest {
       });
     });
   }
+
+  @Test
+  public void testMetrics(TestContext context) {
+    Async serverLatch = context.async();
+    Bot bot = Bot.createShared(vertx, new BotOptions().setName("metered").
+        setHttpServerOptions(new HttpServerOptions().setPort(8080).setHost("localhost")),
+        context.asyncAssertSuccess(v -> {
+          serverLatch.complete();
+        }));
+    serverLatch.awaitSuccess(2000);
+    bot.chatRouter().respond("^echo\\s+(.+)", msg -> msg.reply(msg.matchedGroup(1)));
+    Async doneLatch = context.async();
+    BotClient.client(vertx, new ClientOptions().setName("metered"), context.asyncAssertSuccess(client -> {
+      client.receiveMessage(new ReceiveOptions(), "metered echo hello", context.asyncAssertSuccess(reply -> {
+        client.receiveMessage(new ReceiveOptions(), "metered unknown", context.asyncAssertFailure(err -> {
+          HttpClient http = vertx.createHttpClient();
+          http.getNow(8080, "localhost", "/metrics", resp -> {
+            context.assertTrue(resp.getHeader("Content-Type").startsWith("text/plain; version=0.0.4"));
+            resp.bodyHandler(body -> {
+              String metrics = body.toString();
+              context.assertTrue(metrics.contains("# TYPE nonobot_handler_invocation_seconds histogram\n"), metrics);
+              context.assertTrue(metrics.contains("nonobot_messages_no_match_total{bot=\"metered\"} 1\n"), metrics);
+              context.assertTrue(metrics.contains("nonobot_handler_matches_total{bot=\"metered\",handler=\"1\",kind=\"respond\",pattern=\"^echo\\\\s+(.+)\"} 1\n"), metrics);
+              context.assertTrue(metrics.contains("nonobot_handler_reply_seconds_count{bot=\"metered\",handler=\"1\",kind=\"respond\",pattern=\"^echo\\\\s+(.+)\"} 1\n"), metrics);
+              context.assertTrue(metrics.contains("le=\"+Inf\"} 1\n"), metrics);
+              doneLatch.complete();
+            });
+          });
+        }));
+      }));
+    }));
+  }
 }